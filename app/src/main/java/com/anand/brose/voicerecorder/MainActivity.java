@@ -11,24 +11,34 @@ import android.support.v7.app.AppCompatActivity;
 import android.view.View;
 import android.widget.Button;
 
+import com.anand.brose.graphviewlibrary.ExtractionListener;
 import com.anand.brose.graphviewlibrary.GraphView;
+import com.anand.brose.graphviewlibrary.PcmIngest;
+import com.anand.brose.graphviewlibrary.SampleSource;
+import com.anand.brose.graphviewlibrary.SampleStore;
+import com.anand.brose.graphviewlibrary.WaveformExtractor;
+import com.anand.brose.graphviewlibrary.WaveformFile;
 
 import java.io.File;
-import java.util.List;
+import java.io.IOException;
 
 
 
 public class MainActivity extends AppCompatActivity {
 
     public static final String SCALE = "scale";
+    public static final String ZOOM = "zoom";
     public static final String OUTPUT_DIRECTORY = "VoiceRecorder";
-    public static final String OUTPUT_FILENAME = "recorder.mp3";
+    public static final String OUTPUT_FILENAME = "recorder.wav";
+    private static final float ZOOM_STEP = 1.5f;
     private static final int MY_PERMISSIONS_REQUEST_CODE = 0;
     private static final int MY_PERMISSIONS_REQUEST_WRITE_EXTERNAL_STORAGE = 1;
+    private static final long RESTORE_REFRESH_MILLIS = 500;//Show extracted samples at most twice a second
     int scale = 8;
     private GraphView graphView;
     private VoiceRecorder recorder;
-    private List samples;
+    private SampleSource samples;
+    private Thread restoreThread;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -39,6 +49,7 @@ public class MainActivity extends AppCompatActivity {
         graphView.setCanvasColor(Color.rgb(20,20,20));
         graphView.setTimeColor(Color.rgb(255, 255, 255));
         recorder = VoiceRecorder.getInstance();
+        recorder.setGraphView(graphView);
         if (recorder.isRecording()) {
             ((Button) findViewById(R.id.control)).setText(getResources().getString(R.string.stop));
             recorder.startPlotting(graphView);
@@ -47,54 +58,73 @@ public class MainActivity extends AppCompatActivity {
             scale = savedInstanceState.getInt(SCALE);
             graphView.setWaveLengthPX(scale);
             if (!recorder.isRecording()) {
-                samples = recorder.getSamples();
-                graphView.showFullGraph(samples);
+                samples = recorder.getSampleSource();
+                if (samples.size() == 0) {
+                    //Process was killed, recorder singleton lost its samples
+                    restoreSamples();
+                } else {
+                    graphView.showFullGraph(samples);
+                }
+                //Full graph zoom of buttons and pinch, after the wave length which resets it
+                graphView.setSamplesPerPixel(savedInstanceState.getFloat(ZOOM));
             }
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        cancelRestore();
+    }
+
     @Override
     protected void onSaveInstanceState(Bundle outState) {
         outState.putInt(SCALE, scale);
+        if (!recorder.isRecording()) {
+            outState.putFloat(ZOOM, graphView.getSamplesPerPixel());
+        }
         super.onSaveInstanceState(outState);
     }
 
     public void zoomIn(View v) {
+        if (!recorder.isRecording()) {
+            graphView.zoomFullGraph(ZOOM_STEP);
+            return;
+        }
         scale = scale + 1;
         if (scale > 15) {
             scale = 15;
         }
         graphView.setWaveLengthPX(scale);
-        if (!recorder.isRecording()) {
-            graphView.showFullGraph(samples);
-        }
     }
 
     public void zoomOut(View v) {
+        if (!recorder.isRecording()) {
+            graphView.zoomFullGraph(1 / ZOOM_STEP);
+            return;
+        }
         scale = scale - 1;
         if (scale < 2) {
             scale = 2;
         }
         graphView.setWaveLengthPX(scale);
-        if (!recorder.isRecording()) {
-            graphView.showFullGraph(samples);
-        }
     }
 
     public void controlClick(View v) {
         if (recorder.isRecording()) {
             ((Button) findViewById(R.id.control)).setText(this.getResources().getString(R.string.record));
             graphView.stopPlotting();
-            samples = recorder.stopRecording();
+            recorder.stopRecording();
+            samples = recorder.getSampleSource();
             graphView.showFullGraph(samples);
         } else if(checkRecordPermission()&&checkStoragePermission()){
+            cancelRestore();
             graphView.reset();
-            String filepath = Environment.getExternalStorageDirectory().getPath();
-            File file = new File(filepath, OUTPUT_DIRECTORY);
+            File file = new File(getOutputFilePath()).getParentFile();
             if (!file.exists()) {
                 file.mkdirs();
             }
-            recorder.setOutputFilePath(file.getAbsoluteFile() + "/" + OUTPUT_FILENAME);
+            recorder.setOutputFilePath(getOutputFilePath());
             recorder.startRecording();
             recorder.startPlotting(graphView);
             ((Button) findViewById(R.id.control)).setText(this.getResources().getString(R.string.stop));
@@ -103,6 +133,80 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    private String getOutputFilePath() {
+        String filepath = Environment.getExternalStorageDirectory().getPath();
+        return new File(filepath, OUTPUT_DIRECTORY).getAbsolutePath() + "/" + OUTPUT_FILENAME;
+    }
+
+    /**
+     * Read samples of last recording back from its waveform file, or extract them from the recorded audio
+     * if the waveform file was not saved. Runs on a background thread, the full graph is shown as extracted
+     * samples arrive and once more when done
+     */
+    private void restoreSamples() {
+        final SampleStore restored = new SampleStore();
+        final File waveformFile = WaveformFile.fileFor(getOutputFilePath());
+        final File audioFile = new File(getOutputFilePath());
+        samples = restored;
+        restoreThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (waveformFile.exists()) {
+                        WaveformFile.read(waveformFile, restored);
+                    } else if (audioFile.exists()) {
+                        WaveformExtractor extractor = new WaveformExtractor();
+                        extractor.setExtractionListener(new ExtractionListener() {
+                            private long lastShown = System.currentTimeMillis();
+
+                            @Override
+                            public void onProgress(long processedFrames, long totalFrames) {
+                                long now = System.currentTimeMillis();
+                                if (now - lastShown >= RESTORE_REFRESH_MILLIS) {
+                                    lastShown = now;
+                                    showRestored(restored);
+                                }
+                            }
+                        });
+                        try {
+                            extractor.extract(audioFile, restored, PcmIngest.DEFAULT_SAMPLES_PER_SECOND);
+                        } finally {
+                            extractor.close();
+                        }
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                showRestored(restored);
+            }
+        }, "Restore samples");
+        restoreThread.start();
+    }
+
+    private void cancelRestore() {
+        if (restoreThread != null) {
+            //Interrupting cancels an extraction in progress
+            restoreThread.interrupt();
+            restoreThread = null;
+        }
+    }
+
+    /**
+     * Show restored samples in the full graph unless recording started or the activity went away meanwhile
+     */
+    private void showRestored(final SampleStore restored) {
+        runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                if (!isFinishing() && samples == restored && !recorder.isRecording()) {
+                    graphView.showFullGraph(restored);
+                }
+            }
+        });
+    }
+
     @Override
     public void onBackPressed() {
         super.onBackPressed();
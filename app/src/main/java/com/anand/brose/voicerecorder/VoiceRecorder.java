@@ -3,31 +3,48 @@ package com.anand.brose.voicerecorder;
 /**
  * Created by Anand on 25-03-2016.
  */
-import android.media.MediaRecorder;
 import android.os.Environment;
 
+import com.anand.brose.graphviewlibrary.AudioRecordSource;
 import com.anand.brose.graphviewlibrary.GraphView;
+import com.anand.brose.graphviewlibrary.MappedSampleStore;
+import com.anand.brose.graphviewlibrary.PcmIngest;
+import com.anand.brose.graphviewlibrary.SampleSink;
+import com.anand.brose.graphviewlibrary.SampleSource;
+import com.anand.brose.graphviewlibrary.SampleStore;
+import com.anand.brose.graphviewlibrary.WavFileWriter;
 import com.anand.brose.graphviewlibrary.WaveSample;
+import com.anand.brose.graphviewlibrary.WaveformFile;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class VoiceRecorder {
 
     private static VoiceRecorder mInstance = null;
-    private List<WaveSample> pointList = new ArrayList<>();
-    private long startTime = 0;
+    private SampleStore pointList = new SampleStore();
+    //Samples of long recordings go to a file next to the audio, pointList is used only if the file can't be mapped
+    private MappedSampleStore fileStore;
     private Thread mRecordingThread;
-    private volatile Boolean stop = false;
-    private MediaRecorder myAudioRecorder;
+    private AudioRecordSource audioSource;
+    private WavFileWriter audioWriter;
+    private PcmIngest ingest;
+    private int samplesPerSecond = PcmIngest.DEFAULT_SAMPLES_PER_SECOND;
+    private int reduction = PcmIngest.REDUCE_PEAK;
     private String outputFilePath;
     private File tempFile;
+    private String audioFilePath;
     private GraphView graphView;
+    //Saves waveform files and closes sample files off the UI thread, in order, its thread ends when idle
+    private final ThreadPoolExecutor fileWorker = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>());
 
     private VoiceRecorder() {
-
+        fileWorker.allowCoreThreadTimeOut(true);
     }
 
     /**
@@ -51,8 +68,8 @@ public class VoiceRecorder {
      */
     public boolean startPlotting(GraphView graphView) {
         if (graphView != null) {
-            this.graphView = graphView;
-            graphView.setMasterList(pointList);
+            setGraphView(graphView);
+            graphView.setMasterList(getSampleSource());
             graphView.startPlotting();
             return true;
         } else {
@@ -60,6 +77,16 @@ public class VoiceRecorder {
         }
     }
 
+    /**
+     * Sets the graph plotting or showing the recorded samples, e.g. after the activity was recreated.
+     * The sample file is only closed once this graph stopped reading it
+     *
+     * @param graphView current graph
+     */
+    public void setGraphView(GraphView graphView) {
+        this.graphView = graphView;
+    }
+
     /**
      * Returns the state of recording
      *
@@ -74,27 +101,56 @@ public class VoiceRecorder {
      *
      * @return {@link WaveSample list}
      */
-    public List getSamples() {
+    public List<WaveSample> getSamples() {
+        return fileStore != null ? fileStore.asList() : pointList.asList();
+    }
+
+    /**
+     * Returns in memory samples, filled only when the sample file next to the audio could not be mapped
+     *
+     * @return {@link SampleStore} holding the samples
+     * @see #getSampleSource()
+     */
+    public SampleStore getSampleStore() {
         return pointList;
     }
 
     /**
-     * Stop voice recording
+     * Returns last recorded audio samples without creating a {@link WaveSample} per sample.
+     * Samples are read from the memory mapped sample file, heap use does not grow with recording length
+     *
+     * @return {@link SampleSource} holding the samples
+     */
+    public SampleSource getSampleSource() {
+        return fileStore != null ? fileStore : pointList;
+    }
+
+    /**
+     * Stop voice recording, the waveform file of the recording is saved in the background
      *
      * @return Returns List containing audio samples, can be used to show full graph
      * @see GraphView
      */
-    public List stopRecording() {
-        this.stop = true;
-        mRecordingThread.interrupt();
+    public List<WaveSample> stopRecording() {
         if (graphView != null) {
             graphView.stopPlotting();
         }
-        myAudioRecorder.stop();
-        myAudioRecorder.reset();
-        myAudioRecorder.release();
-        myAudioRecorder = null;
-        return pointList;
+        if (ingest != null) {
+            //Block in progress is finished, reads return at least once per sample interval
+            ingest.stop();
+            try {
+                mRecordingThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ingest = null;
+        }
+        closeAudio();
+        if (fileStore != null) {
+            fileStore.flush();
+        }
+        saveWaveform();
+        return getSamples();
     }
 
     /**
@@ -105,6 +161,73 @@ public class VoiceRecorder {
         if (isRecording()) {
             stopRecording();
         }
+        closeFileStore();
+    }
+
+    /**
+     * Save recorded samples in compact waveform file next to the audio on the file worker, the graph can be
+     * restored from it after the process is killed
+     */
+    private void saveWaveform() {
+        final SampleSource samples = getSampleSource();
+        final File file = WaveformFile.fileFor(audioFilePath);
+        fileWorker.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    WaveformFile.write(samples, file, 1);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    private void closeAudio() {
+        if (audioSource != null) {
+            audioSource.close();
+            audioSource = null;
+        }
+        if (audioWriter != null) {
+            try {
+                audioWriter.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            audioWriter = null;
+        }
+    }
+
+    /**
+     * Close the sample file on the file worker once the graph no longer reads it, frames in progress may still
+     * plot it and a waveform save may still read it
+     */
+    private void closeFileStore() {
+        final MappedSampleStore store = fileStore;
+        if (store == null) {
+            return;
+        }
+        fileStore = null;
+        Runnable close = new Runnable() {
+            @Override
+            public void run() {
+                fileWorker.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            store.close();
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                });
+            }
+        };
+        if (graphView != null) {
+            graphView.releaseSource(store, close);
+        } else {
+            close.run();
+        }
     }
 
     /**
@@ -122,7 +245,7 @@ public class VoiceRecorder {
 
     /**
      * Sets path of the output file, should be called before {@link #startRecording()}.
-     * If not set default is sdcard/AudioRecorder/_timestamp.mp3
+     * If not set default is sdcard/AudioRecorder/_timestamp.wav
      *
      * @param file Output file path
      */
@@ -131,46 +254,61 @@ public class VoiceRecorder {
     }
 
     /**
-     * Start voice recording, {@link #setOutputFilePath(String)} should be called before this
+     * Sets no of amplitude samples plotted per second, should be called before {@link #startRecording()}.
+     * Each sample reduces the audio of its interval, default is {@link PcmIngest#DEFAULT_SAMPLES_PER_SECOND}
+     *
+     * @param samplesPerSecond e.g. 50 to 200
+     */
+    public void setSamplesPerSecond(int samplesPerSecond) {
+        this.samplesPerSecond = samplesPerSecond;
+    }
+
+    /**
+     * Sets how the audio of each sample interval is reduced, should be called before {@link #startRecording()}
+     *
+     * @param reduction {@link PcmIngest#REDUCE_PEAK} (default) or {@link PcmIngest#REDUCE_RMS}
+     */
+    public void setReduction(int reduction) {
+        this.reduction = reduction;
+    }
+
+    /**
+     * Start voice recording, {@link #setOutputFilePath(String)} should be called before this.
+     * Audio is recorded as 16 bit PCM WAV, the graph is fed from the same PCM
      */
     public void startRecording() {
-        this.stop = false;
-        myAudioRecorder = new MediaRecorder();
-        myAudioRecorder.setAudioSource(MediaRecorder.AudioSource.MIC);
-        myAudioRecorder.setOutputFormat(MediaRecorder.OutputFormat.DEFAULT);
-        myAudioRecorder.setAudioEncoder(MediaRecorder.OutputFormat.DEFAULT);
         if (outputFilePath == null) {
             String filepath = Environment.getExternalStorageDirectory().getPath();
             tempFile = new File(filepath, "AudioRecorder");
             if (!tempFile.exists()) {
                 tempFile.mkdirs();
             }
-            myAudioRecorder.setOutputFile((tempFile.getAbsolutePath() + "/" + System.currentTimeMillis() + ".mp3"));
+            audioFilePath = tempFile.getAbsolutePath() + "/" + System.currentTimeMillis() + ".wav";
         } else {
-            myAudioRecorder.setOutputFile(outputFilePath);
+            audioFilePath = outputFilePath;
         }
+        //A new store, the previous one may still be saved
+        pointList = new SampleStore();
+        closeFileStore();
         try {
-            myAudioRecorder.prepare();
+            fileStore = MappedSampleStore.create(MappedSampleStore.fileFor(audioFilePath));
         } catch (IOException e) {
             e.printStackTrace();
         }
-        myAudioRecorder.start();
-        pointList.clear();
-        startTime = System.currentTimeMillis();
-        mRecordingThread = new Thread(new Runnable() {
-            @Override
-            public void run() {
-                while (!VoiceRecorder.this.stop) {
-                    //Add current audio sample amplitude and timestamp
-                    pointList.add(new WaveSample(System.currentTimeMillis() - startTime, myAudioRecorder.getMaxAmplitude()));
-                    try {
-                        Thread.sleep(150);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                }
-            }
-        });
+        SampleSink samples = fileStore != null ? fileStore : pointList;
+        try {
+            audioSource = new AudioRecordSource();
+            audioWriter = new WavFileWriter(new File(audioFilePath), audioSource.getSampleRate(),
+                    audioSource.getChannelCount());
+        } catch (IOException e) {
+            e.printStackTrace();
+            closeAudio();
+            return;
+        }
+        ingest = new PcmIngest(audioSource, samples, samplesPerSecond);
+        ingest.setReduction(reduction);
+        ingest.setPcmSink(audioWriter);
+        mRecordingThread = new Thread(ingest, "VoiceRecorder");
         mRecordingThread.start();
     }
 }
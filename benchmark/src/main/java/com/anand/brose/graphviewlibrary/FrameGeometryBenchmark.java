@@ -0,0 +1,94 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geometry building cost of one frame for realtime, realtime partial redraw of one new sample, full graph and
+ * zoomed out full graph. Frames are laid out into {@link GeometryRecorder} instead of android.graphics.Path
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FrameGeometryBenchmark {
+
+    static final int WIDTH = 1080;
+    static final int HALF_HEIGHT = 300;
+    static final int WAVE_LENGTH = 8;
+    static final int TIME_SCALE = 5000;
+    static final int MAX_AMPLITUDE = 35000;
+    static final int LABEL_WIDTH = 100;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int sampleCount;
+
+    @Param({"realtime", "realtimeStrip", "fullGraph", "fullGraphZoomedOut"})
+    public String mode;
+
+    private SampleStore store;
+    private RealtimeFrameBuilder realtimeFrameBuilder;
+    private FullGraphLayout fullGraphLayout;
+    private final TimeMarkers timeMarkers = new TimeMarkers();
+    private final GeometryRecorder recorder = new GeometryRecorder();
+    private int scrollOffset;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = fill(sampleCount);
+        TimeLabels timeLabels = new TimeLabels();
+        realtimeFrameBuilder = new RealtimeFrameBuilder(timeLabels);
+        fullGraphLayout = new FullGraphLayout(timeLabels);
+        float samplesPerPixel = "fullGraphZoomedOut".equals(mode) ? (float) sampleCount / WIDTH : 0;
+        fullGraphLayout.configure(WAVE_LENGTH, samplesPerPixel, TIME_SCALE, HALF_HEIGHT, MAX_AMPLITUDE, LABEL_WIDTH);
+        //Build the pyramid up front, frames measure steady state scrolling
+        fullGraphLayout.pyramid.update(store, sampleCount);
+        scrollOffset = Math.max(0, FullGraphLayout.contentWidth(sampleCount, WAVE_LENGTH, samplesPerPixel) / 2 - WIDTH / 2);
+    }
+
+    @Benchmark
+    public int frame() {
+        timeMarkers.clear();
+        recorder.rewind(HALF_HEIGHT, WAVE_LENGTH);
+        if ("realtime".equals(mode)) {
+            realtimeFrameBuilder.build(store, sampleCount, (int) (WIDTH * 0.75), WAVE_LENGTH, 3, TIME_SCALE,
+                    HALF_HEIGHT, MAX_AMPLITUDE, recorder);
+        } else if ("realtimeStrip".equals(mode)) {
+            //Strip ScrollDamage plans for a frame where one sample arrived
+            int startX = (int) (WIDTH * 0.75);
+            realtimeFrameBuilder.buildStrip(store, sampleCount, startX, WAVE_LENGTH, 0, TIME_SCALE, HALF_HEIGHT,
+                    MAX_AMPLITUDE, startX - WAVE_LENGTH - ScrollDamage.MARGIN,
+                    startX + Math.max(WAVE_LENGTH, LABEL_WIDTH) + ScrollDamage.MARGIN, LABEL_WIDTH, recorder);
+        } else {
+            fullGraphLayout.layout(store, sampleCount, scrollOffset, scrollOffset + WIDTH, timeMarkers, recorder);
+        }
+        return recorder.size() + timeMarkers.size();
+    }
+
+    /**
+     * Samples every 150 ms like VoiceRecorder with pseudo random amplitudes
+     */
+    static SampleStore fill(int sampleCount) {
+        SampleStore store = new SampleStore();
+        int seed = 12345;
+        for (int i = 0; i < sampleCount; i++) {
+            seed = seed * 1103515245 + 12345;
+            store.add(i * 150L, (seed >>> 1) % MAX_AMPLITUDE);
+        }
+        return store;
+    }
+}
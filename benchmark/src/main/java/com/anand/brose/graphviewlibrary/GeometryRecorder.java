@@ -0,0 +1,61 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * {@link WaveSink} standing in for android.graphics.Path in benchmarks.
+ * Records the arc bounds and line end points a Path would receive into a reused float array
+ */
+final class GeometryRecorder implements WaveSink {
+
+    private float[] points = new float[4096];
+    private int size = 0;
+    private int halfHeight;
+    private int waveLength;
+
+    void rewind(int halfHeight, int waveLength) {
+        size = 0;
+        this.halfHeight = halfHeight;
+        this.waveLength = waveLength;
+    }
+
+    @Override
+    public void addWave(int x, int amplitude) {
+        ensureCapacity(8);
+        if (amplitude > 0) {
+            //Bounds of the two half sine ovals
+            points[size++] = x;
+            points[size++] = halfHeight - amplitude;
+            points[size++] = x + (waveLength / 2);
+            points[size++] = halfHeight + amplitude;
+            points[size++] = x + (waveLength / 2);
+            points[size++] = halfHeight - amplitude;
+            points[size++] = x + waveLength;
+            points[size++] = halfHeight + amplitude;
+        } else {
+            points[size++] = x;
+            points[size++] = halfHeight;
+            points[size++] = x + waveLength;
+            points[size++] = halfHeight;
+        }
+    }
+
+    @Override
+    public void addPeak(int x, int amplitude) {
+        ensureCapacity(4);
+        points[size++] = x;
+        points[size++] = halfHeight - amplitude;
+        points[size++] = x;
+        points[size++] = halfHeight + amplitude + 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > points.length) {
+            float[] newPoints = new float[points.length * 2];
+            System.arraycopy(points, 0, newPoints, 0, size);
+            points = newPoints;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Peak and RMS block reduction of one second of 44.1 kHz mono PCM, as {@link PcmIngest} does while recording
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PcmReductionBenchmark {
+
+    private static final int SAMPLE_RATE = 44100;
+
+    @Param({"peak", "rms"})
+    public String reduction;
+
+    @Param({"50", "200"})
+    public int samplesPerSecond;
+
+    private final short[] pcm = new short[SAMPLE_RATE];
+    private PcmReducer reducer;
+    private int checksum;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(1);
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (short) random.nextInt();
+        }
+        reducer = new PcmReducer(new SampleSink() {
+            @Override
+            public void add(long time, int amplitude) {
+                checksum += amplitude;
+            }
+        }, SAMPLE_RATE, 1, samplesPerSecond);
+        reducer.setRms("rms".equals(reduction));
+    }
+
+    @Benchmark
+    public int reduceSecond() {
+        //Reads of AudioRecord size blocks, not aligned to output blocks
+        for (int offset = 0; offset < pcm.length; offset += 1024) {
+            reducer.reduce(pcm, offset, Math.min(1024, pcm.length - offset));
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,65 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of drawing frames with the pure Java rasterizer: a realtime frame, a full graph thumbnail and its PNG encoding
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RasterRenderBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int sampleCount;
+
+    private SampleStore store;
+    private final RealtimeFrameBuilder frameBuilder = new RealtimeFrameBuilder(new TimeLabels());
+    private final RasterGraphRenderer renderer = new RasterGraphRenderer(FrameGeometryBenchmark.WIDTH,
+            FrameGeometryBenchmark.HALF_HEIGHT * 2);
+    private final WaveformThumbnail thumbnail = new WaveformThumbnail(320, 80);
+    private final ByteArrayOutputStream png = new ByteArrayOutputStream();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = FrameGeometryBenchmark.fill(sampleCount);
+    }
+
+    @Benchmark
+    public int[] realtimeFrame() {
+        frameBuilder.render(store, sampleCount, FrameGeometryBenchmark.WIDTH, FrameGeometryBenchmark.HALF_HEIGHT * 2,
+                0.75, FrameGeometryBenchmark.WAVE_LENGTH, 0, FrameGeometryBenchmark.TIME_SCALE,
+                FrameGeometryBenchmark.MAX_AMPLITUDE, renderer);
+        return renderer.getPixels();
+    }
+
+    @Benchmark
+    public int[] thumbnail() {
+        return thumbnail.render(store);
+    }
+
+    @Benchmark
+    public int thumbnailPng() throws IOException {
+        png.reset();
+        thumbnail.writePng(store, png);
+        return png.size();
+    }
+}
@@ -0,0 +1,80 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of appending a recording worth of samples as VoiceRecorder does
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SampleIngestionBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int sampleCount;
+
+    private SampleStore recorded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        recorded = FrameGeometryBenchmark.fill(sampleCount);
+    }
+
+    @Benchmark
+    public SampleStore sampleStoreAppend() {
+        SampleStore store = new SampleStore();
+        for (int i = 0; i < sampleCount; i++) {
+            store.add(i * 150L, i & 0x7fff);
+        }
+        return store;
+    }
+
+    @Benchmark
+    public List<WaveSample> waveSampleListAppend() {
+        List<WaveSample> list = new ArrayList<>();
+        for (int i = 0; i < sampleCount; i++) {
+            list.add(new WaveSample(i * 150L, i & 0x7fff));
+        }
+        return list;
+    }
+
+    @Benchmark
+    public TransformedSampleSource transformChain() {
+        return new TransformedSampleSource(recorded, SampleTransforms.noiseGate(300), SampleTransforms.ema(0.3f),
+                SampleTransforms.decibels(35000, -60), SampleTransforms.peakHold(500, 20000));
+    }
+
+    @Benchmark
+    public int autoGainWindowMax() {
+        SlidingWindowMax window = new SlidingWindowMax(3000);
+        for (int i = 0; i < sampleCount; i++) {
+            window.add(recorded.getTime(i), recorded.getAmplitude(i));
+        }
+        return window.max();
+    }
+
+    @Benchmark
+    public WaveformPyramid pyramidBuild() {
+        WaveformPyramid pyramid = new WaveformPyramid();
+        pyramid.update(recorded, sampleCount);
+        return pyramid;
+    }
+}
@@ -0,0 +1,95 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time marker detection of one screen of samples, by testing each sample as the render loops did before
+ * {@link TimeMarkerIndex} and by index lookup, and mm:ss label formatting
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TimeMarkerBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int sampleCount;
+
+    private SampleStore store;
+    private final TimeLabels timeLabels = new TimeLabels();
+    private final TimeMarkerIndex markerIndex = new TimeMarkerIndex(timeLabels);
+    private int visibleFrom;
+    private int visibleTo;
+    private long labelTime;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = FrameGeometryBenchmark.fill(sampleCount);
+        //One screen of waves at the end of the recording
+        int visible = FrameGeometryBenchmark.WIDTH / FrameGeometryBenchmark.WAVE_LENGTH;
+        visibleTo = sampleCount;
+        visibleFrom = Math.max(1, sampleCount - visible);
+        labelTime = store.getTime(sampleCount - 1);
+        markerIndex.update(store, sampleCount, FrameGeometryBenchmark.TIME_SCALE);
+    }
+
+    @Benchmark
+    public int markerScan() {
+        int markers = 0;
+        int timeScale = FrameGeometryBenchmark.TIME_SCALE;
+        for (int i = visibleFrom; i < visibleTo; i++) {
+            if (store.getTime(i - 1) % timeScale > store.getTime(i) % timeScale) {
+                markers++;
+            }
+        }
+        return markers;
+    }
+
+    @Benchmark
+    public int markerIndexLookup() {
+        int markers = 0;
+        //Same size snapshot every invocation, the update returns at once like a frame without new samples
+        markerIndex.update(store, visibleTo, FrameGeometryBenchmark.TIME_SCALE);
+        for (int m = markerIndex.firstAtOrAfter(visibleFrom); m < markerIndex.size()
+                && markerIndex.getSampleIndex(m) < visibleTo; m++) {
+            markers++;
+        }
+        return markers;
+    }
+
+    @Benchmark
+    public void formatTimeConcat(Blackhole blackhole) {
+        blackhole.consume(formatTime(labelTime));
+    }
+
+    @Benchmark
+    public void formatTimeCached(Blackhole blackhole) {
+        blackhole.consume(timeLabels.format(labelTime));
+    }
+
+    /**
+     * String concatenation formatting GraphView used before labels were cached
+     */
+    private static String formatTime(long currentSampleTime) {
+        int seconds = (int) (currentSampleTime / 1000) % 60;
+        int minutes = (int) (currentSampleTime / 60000);
+
+        return (minutes < 10 ? "0" + minutes : minutes) + ":" + (seconds < 10 ? "0" + seconds : seconds);
+    }
+}
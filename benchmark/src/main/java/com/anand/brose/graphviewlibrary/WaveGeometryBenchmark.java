@@ -0,0 +1,76 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exact arc versus half sine polyline wave geometry for one realtime frame.
+ * Android Path stroking can't run on a JVM, so geometry building is measured on its own (arc bounds recorded
+ * as a Path would receive them versus the batched line segments) and stroking is measured with the raster backend.
+ * On device compare draw time reported by {@link GraphView#getStats()} with each {@link GraphView#setWaveGeometry(int)}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class WaveGeometryBenchmark {
+
+    @Param({"arc", "polyline"})
+    public String geometry;
+
+    @Param({"4", "8", "15"})
+    public int waveLength;
+
+    private static final int SAMPLE_COUNT = 100000;
+
+    private SampleStore store;
+    private final RealtimeFrameBuilder frameBuilder = new RealtimeFrameBuilder(new TimeLabels());
+    private final GeometryRecorder arcRecorder = new GeometryRecorder();
+    private final WaveLines lines = new WaveLines();
+    private final RasterGraphRenderer renderer = new RasterGraphRenderer(FrameGeometryBenchmark.WIDTH,
+            FrameGeometryBenchmark.HALF_HEIGHT * 2);
+    private boolean polyline;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = FrameGeometryBenchmark.fill(SAMPLE_COUNT);
+        polyline = "polyline".equals(geometry);
+        renderer.setPolyline(polyline);
+    }
+
+    @Benchmark
+    public int buildGeometry() {
+        int startX = (int) (FrameGeometryBenchmark.WIDTH * 0.75);
+        if (polyline) {
+            lines.rewind(FrameGeometryBenchmark.HALF_HEIGHT, waveLength);
+            frameBuilder.build(store, SAMPLE_COUNT, startX, waveLength, 0, FrameGeometryBenchmark.TIME_SCALE,
+                    FrameGeometryBenchmark.HALF_HEIGHT, FrameGeometryBenchmark.MAX_AMPLITUDE, lines);
+            return lines.size();
+        }
+        arcRecorder.rewind(FrameGeometryBenchmark.HALF_HEIGHT, waveLength);
+        frameBuilder.build(store, SAMPLE_COUNT, startX, waveLength, 0, FrameGeometryBenchmark.TIME_SCALE,
+                FrameGeometryBenchmark.HALF_HEIGHT, FrameGeometryBenchmark.MAX_AMPLITUDE, arcRecorder);
+        return arcRecorder.size();
+    }
+
+    @Benchmark
+    public int[] rasterFrame() {
+        frameBuilder.render(store, SAMPLE_COUNT, FrameGeometryBenchmark.WIDTH, FrameGeometryBenchmark.HALF_HEIGHT * 2,
+                0.75, waveLength, 0, FrameGeometryBenchmark.TIME_SCALE, FrameGeometryBenchmark.MAX_AMPLITUDE, renderer);
+        return renderer.getPixels();
+    }
+}
@@ -0,0 +1,74 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and restoring a session through {@link WaveformFile}, 2 million samples is over 83 hours at 150 ms per
+ * sample. Divide the sample count by the time per operation for samples per second
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WaveformFileBenchmark {
+
+    @Param({"2000000"})
+    public int sampleCount;
+
+    @Param({"1", "16"})
+    public int quantizationStep;
+
+    private SampleStore samples;
+    private File writeFile;
+    private File readFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(3);
+        samples = new SampleStore();
+        long time = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            time += 100 + random.nextInt(100);
+            samples.add(time, random.nextInt(65536) - 32768);
+        }
+        writeFile = File.createTempFile("benchmark", WaveformFile.FILE_EXTENSION);
+        readFile = File.createTempFile("benchmark", WaveformFile.FILE_EXTENSION);
+        WaveformFile.write(samples, readFile, quantizationStep);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        writeFile.delete();
+        readFile.delete();
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        WaveformFile.write(samples, writeFile, quantizationStep);
+        return writeFile.length();
+    }
+
+    @Benchmark
+    public SampleStore read() throws IOException {
+        return WaveformFile.read(readFile, new SampleStore());
+    }
+}
@@ -0,0 +1,77 @@
+package com.anand.brose.graphviewlibrary;
+
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+
+import java.io.IOException;
+
+/**
+ * {@link PcmSource} recording mono 16 bit PCM from the microphone with AudioRecord.
+ * Recording starts on construction, {@link #close()} stops it and releases the recorder
+ */
+public class AudioRecordSource implements PcmSource {
+
+    //Only sample rate guaranteed on every device
+    public static final int DEFAULT_SAMPLE_RATE = 44100;
+    //Recorder buffer holds this much audio so a late reader doesn't lose samples
+    private static final int BUFFER_MILLIS = 500;
+
+    private final AudioRecord record;
+
+    /**
+     * Start recording from the microphone at {@link #DEFAULT_SAMPLE_RATE}
+     *
+     * @throws IOException if the microphone can not be opened
+     */
+    public AudioRecordSource() throws IOException {
+        this(DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * Start recording from the microphone
+     *
+     * @param sampleRate frames per second
+     * @throws IOException if the microphone can not be opened at this rate
+     */
+    public AudioRecordSource(int sampleRate) throws IOException {
+        int minBufferSize = AudioRecord.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_IN_MONO,
+                AudioFormat.ENCODING_PCM_16BIT);
+        if (minBufferSize <= 0) {
+            throw new IOException("Unsupported sample rate " + sampleRate);
+        }
+        int bufferSize = Math.max(minBufferSize, sampleRate * 2 * BUFFER_MILLIS / 1000);
+        record = new AudioRecord(MediaRecorder.AudioSource.MIC, sampleRate, AudioFormat.CHANNEL_IN_MONO,
+                AudioFormat.ENCODING_PCM_16BIT, bufferSize);
+        if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+            record.release();
+            throw new IOException("Microphone not available");
+        }
+        record.startRecording();
+    }
+
+    @Override
+    public int getSampleRate() {
+        return record.getSampleRate();
+    }
+
+    @Override
+    public int getChannelCount() {
+        return 1;
+    }
+
+    @Override
+    public int read(short[] buffer, int offset, int length) throws IOException {
+        int count = record.read(buffer, offset, length);
+        if (count < 0) {
+            throw new IOException("AudioRecord read failed: " + count);
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        record.stop();
+        record.release();
+    }
+}
@@ -0,0 +1,94 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Amplitude drawn at full half height that follows the loudest recent sample instead of a fixed max amplitude.
+ * Samples are fed once as they arrive into a {@link SlidingWindowMax}, the scale then moves towards that max:
+ * quickly when the source gets louder so waves barely clip, slowly when it gets quieter so the graph does not pump.
+ * Must be used from a single thread, e.g. the plotting thread
+ */
+final class AutoGain {
+
+    static final long ATTACK_NANOS = 50 * 1000000L;//Time constant of growing scale
+    static final long RELEASE_NANOS = 1000 * 1000000L;//Time constant of shrinking scale
+    static final float HEADROOM = 1.1f;//Loudest sample is drawn at 90% of half height
+    private static final float SETTLED = 0.005f;//Scale within 0.5% of its target snaps to it
+
+    private final SlidingWindowMax window;
+    private SampleSource source;
+    private int added = 0;
+    private long lastAddedTime;
+    private float scale = 0;
+    private float target = 0;
+    private long lastNanos = 0;
+
+    /**
+     * @param windowMillis sample time the loudest sample is looked for in
+     */
+    AutoGain(long windowMillis) {
+        window = new SlidingWindowMax(windowMillis);
+    }
+
+    long getWindow() {
+        return window.getWindow();
+    }
+
+    /**
+     * Change the window, the scale is kept and moves to the max of the new window
+     */
+    void setWindow(long windowMillis) {
+        window.setWindow(windowMillis);
+        added = 0;
+    }
+
+    /**
+     * Feed samples appended since the last update and move the scale towards the windowed max
+     *
+     * @param samples     source being plotted
+     * @param sampleCount size snapshot of the source
+     * @param minScale    smallest scale, so silence is not drawn at full height
+     * @param nowNanos    current frame time
+     * @return amplitude to map to half height
+     */
+    int update(SampleSource samples, int sampleCount, int minScale, long nowNanos) {
+        if (samples != source || sampleCount < added || (added > 0 && samples.getTime(added - 1) != lastAddedTime)) {
+            //Another source or it was cleared, maybe refilled since
+            source = samples;
+            window.clear();
+            added = 0;
+        }
+        for (int i = added; i < sampleCount; i++) {
+            lastAddedTime = samples.getTime(i);
+            window.add(lastAddedTime, Math.abs(samples.getAmplitude(i)));
+        }
+        added = sampleCount;
+        target = Math.max(minScale, window.max() * HEADROOM);
+        if (scale == 0 || lastNanos == 0) {
+            scale = target;
+        } else if (scale != target) {
+            long elapsed = Math.max(0, nowNanos - lastNanos);
+            double timeConstant = target > scale ? ATTACK_NANOS : RELEASE_NANOS;
+            scale += (target - scale) * (float) (1 - Math.exp(-elapsed / timeConstant));
+            if (Math.abs(target - scale) <= target * SETTLED) {
+                scale = target;
+            }
+        }
+        lastNanos = nowNanos;
+        return Math.max(1, Math.round(scale));
+    }
+
+    /**
+     * @return true if the scale reached the windowed max of the last update
+     */
+    boolean isSettled() {
+        return scale == target;
+    }
+
+    /**
+     * Start again from the next update, e.g. after plotting was paused
+     */
+    void reset() {
+        source = null;
+        scale = 0;
+        lastNanos = 0;
+    }
+}
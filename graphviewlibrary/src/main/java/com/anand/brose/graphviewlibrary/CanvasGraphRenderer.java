@@ -0,0 +1,185 @@
+package com.anand.brose.graphviewlibrary;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * {@link GraphRenderer} recording a frame into reusable {@link Path}s, replayed on a {@link Canvas} by
+ * {@link #draw(Canvas, int, Paint, Paint, Paint, Paint)}. Frame is laid out before the surface is locked,
+ * so the canvas is held only while drawing.
+ * Waves are exact arcs, or in polyline mode half sine line segments from {@link WaveLines} drawn in one batch.
+ * Time labels are blitted from a {@link LabelBitmapCache} instead of drawing their text every frame
+ */
+final class CanvasGraphRenderer implements GraphRenderer {
+
+    final Path path = new Path();
+    private final Path markerPath = new Path();
+    private final Path needlePath = new Path();
+    private final TimeMarkers labels = new TimeMarkers();
+    private final RectF oval = new RectF();
+    private final WaveLines lines = new WaveLines();
+    //Created on first label, renderers of additional series never draw one
+    private LabelBitmapCache labelCache;
+    private volatile boolean polylineRequested = false;
+    //Mode of the frame being recorded, fixed at begin
+    private boolean polyline;
+    private int halfHeight;
+    private int waveLength;
+    private int markerStrokeWidth;
+    private boolean hasMarker;
+    private boolean hasNeedle;
+
+    /**
+     * Clear the paths keeping their storage for the next frame
+     */
+    @Override
+    public void begin(int halfHeight, int waveLength) {
+        path.rewind();
+        markerPath.rewind();
+        needlePath.rewind();
+        labels.clear();
+        polyline = polylineRequested;
+        lines.rewind(halfHeight, waveLength);
+        hasMarker = false;
+        hasNeedle = false;
+        this.halfHeight = halfHeight;
+        this.waveLength = waveLength;
+    }
+
+    /**
+     * @param polyline true to draw waves as batched half sine line segments instead of arcs, from next frame on
+     */
+    void setPolyline(boolean polyline) {
+        polylineRequested = polyline;
+    }
+
+    @Override
+    public void addWave(int x, int amplitude) {
+        if (polyline) {
+            lines.addWave(x, amplitude);
+        } else if (amplitude > 0) {
+            /*  Below code can be customized to support more graph types
+             *  Draw a sine wave from x to x + waveLength with positive magnitude at halfHeight - amplitude and negative at halfHeight + amplitude    */
+            oval.set(x, halfHeight - amplitude, x + (waveLength / 2), halfHeight + amplitude);
+            path.addArc(oval, 180, 180);
+            oval.set(x + (waveLength / 2), halfHeight - amplitude, x + (waveLength), halfHeight + amplitude);
+            path.addArc(oval, 0, 180);
+        } else {
+            /*  Draw simple line to represent 0 */
+            path.moveTo(x, halfHeight);
+            path.lineTo(x + waveLength, halfHeight);
+        }
+    }
+
+    @Override
+    public void addPeak(int x, int amplitude) {
+        if (polyline) {
+            lines.addPeak(x, amplitude);
+            return;
+        }
+        path.moveTo(x, halfHeight - amplitude);
+        path.lineTo(x, halfHeight + amplitude + 1);
+    }
+
+    @Override
+    public void addTimeLabel(String label, int x) {
+        labels.add(x, label);
+    }
+
+    @Override
+    public void addMarker(int x, int strokeWidth) {
+        markerPath.moveTo(x, 0);
+        markerPath.lineTo(x, halfHeight * 2);
+        markerStrokeWidth = strokeWidth;
+        hasMarker = true;
+    }
+
+    @Override
+    public void addNeedle(int fromX, int toX, int y) {
+        needlePath.moveTo(fromX, y);
+        needlePath.lineTo(toX, y);
+        hasNeedle = true;
+    }
+
+    /**
+     * Draw the recorded frame
+     *
+     * @param canvas      target canvas
+     * @param canvasColor background color
+     * @param wavePaint   paint for waves
+     * @param timePaint   paint for time labels
+     * @param markerPaint paint for marker band, stroke width is set from the frame
+     * @param needlePaint paint for needle
+     */
+    void draw(Canvas canvas, int canvasColor, Paint wavePaint, Paint timePaint, Paint markerPaint, Paint needlePaint) {
+        /*  Clean SurfaceView with plain canvas color   */
+        canvas.drawColor(canvasColor);
+        drawContent(canvas, wavePaint, timePaint);
+        drawFixed(canvas, markerPaint, needlePaint);
+    }
+
+    /**
+     * Draw time labels and waves of the recorded frame, the part that scrolls
+     *
+     * @param canvas    target canvas
+     * @param wavePaint paint for waves
+     * @param timePaint paint for time labels
+     */
+    void drawContent(Canvas canvas, Paint wavePaint, Paint timePaint) {
+        //Draw time texts
+        if (labels.size() > 0) {
+            if (labelCache == null) {
+                labelCache = new LabelBitmapCache(LabelBitmapCache.DEFAULT_MAX_LABELS);
+            }
+            labelCache.validate(timePaint);
+            for (int i = 0; i < labels.size(); i++) {
+                labelCache.draw(canvas, labels.getLabel(i), labels.getPosition(i), TIME_LABEL_BASELINE, timePaint);
+            }
+        }
+        /*  Draw sine waves  */
+        drawWaves(canvas, wavePaint);
+    }
+
+    /**
+     * Draw marker band and needle of the recorded frame, the part that stays in place
+     *
+     * @param canvas      target canvas
+     * @param markerPaint paint for marker band, stroke width is set from the frame
+     * @param needlePaint paint for needle
+     */
+    void drawFixed(Canvas canvas, Paint markerPaint, Paint needlePaint) {
+        if (hasMarker) {
+            markerPaint.setStrokeWidth(markerStrokeWidth);
+            canvas.drawPath(markerPath, markerPaint);
+        }
+        drawNeedle(canvas, needlePaint);
+    }
+
+    /**
+     * Draw only waves and needle of the recorded frame over what the canvas holds, used for additional series
+     *
+     * @param canvas      target canvas
+     * @param wavePaint   paint for waves
+     * @param needlePaint paint for needle
+     */
+    void drawOverlay(Canvas canvas, Paint wavePaint, Paint needlePaint) {
+        drawWaves(canvas, wavePaint);
+        drawNeedle(canvas, needlePaint);
+    }
+
+    private void drawWaves(Canvas canvas, Paint wavePaint) {
+        if (polyline) {
+            canvas.drawLines(lines.getPoints(), 0, lines.size(), wavePaint);
+        } else {
+            canvas.drawPath(path, wavePaint);
+        }
+    }
+
+    private void drawNeedle(Canvas canvas, Paint needlePaint) {
+        if (hasNeedle) {
+            canvas.drawPath(needlePath, needlePaint);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single worker thread running the latest submitted task.
+ * A task submitted while another one waits replaces it, so a burst of requests runs at most once after the running task.
+ * Tasks never overlap, a task submitted after {@link #stop()} while the stopped task still runs waits for it on the
+ * same worker
+ */
+final class CoalescingExecutor {
+
+    private final String name;
+    private final Object lock = new Object();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong executed = new AtomicLong();
+    private Runnable pending;
+    private Thread worker;
+    private boolean stopped = false;
+
+    private final Runnable workerLoop = new Runnable() {
+        @Override
+        public void run() {
+            while (true) {
+                Runnable task;
+                synchronized (lock) {
+                    while (pending == null && !stopped) {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            worker = null;
+                            return;
+                        }
+                    }
+                    if (pending == null) {//Stopped, the next submit starts a new worker
+                        worker = null;
+                        return;
+                    }
+                    task = pending;
+                    pending = null;
+                }
+                task.run();
+                executed.incrementAndGet();
+            }
+        }
+    };
+
+    CoalescingExecutor(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Run the task on the worker, replacing a task still waiting to run. Starts the worker if needed
+     */
+    void submit(Runnable task) {
+        received.incrementAndGet();
+        synchronized (lock) {
+            pending = task;
+            stopped = false;
+            if (worker == null) {
+                worker = new Thread(workerLoop, name);
+                worker.start();
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Drop the waiting task and let the worker exit after the running one. A submit before it exited keeps the
+     * worker, a later one starts a new worker
+     */
+    void stop() {
+        synchronized (lock) {
+            pending = null;
+            stopped = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * @return true if a submitted task waits to run, e.g. optional work of the running task should yield to it
+     */
+    boolean hasPending() {
+        synchronized (lock) {
+            return pending != null;
+        }
+    }
+
+    /**
+     * @return no of tasks submitted
+     */
+    long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * @return no of tasks actually run, the rest were replaced by a later task
+     */
+    long getExecutedCount() {
+        return executed.get();
+    }
+}
@@ -0,0 +1,13 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Progress of a {@link WaveformExtractor}, called on the extracting thread after each chunk is merged
+ */
+public interface ExtractionListener {
+
+    /**
+     * @param processedFrames audio frames reduced and appended so far
+     * @param totalFrames     audio frames in the file
+     */
+    void onProgress(long processedFrames, long totalFrames);
+}
@@ -0,0 +1,127 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Path of a full graph fling. Velocity decays exponentially from the release velocity, like a scroll with friction,
+ * until it falls below {@link #MIN_VELOCITY} or the position reaches a bound, where the fling stops.
+ * Immutable, so the main thread can start a fling while the full graph worker reads it to rasterize tiles the
+ * fling is about to show before their frames are due
+ */
+final class FlingTrajectory {
+
+    //Velocity falls to 1/e every TIME_CONSTANT seconds
+    static final double TIME_CONSTANT = 0.325;
+    //px per second where the fling stops
+    static final float MIN_VELOCITY = 20;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final float start;
+    private final float velocity;
+    private final float min;
+    private final float max;
+    private final long startNanos;
+    private final long durationNanos;
+    private final float end;
+
+    /**
+     * @param start      position at release, e.g. full graph move
+     * @param velocity   release velocity in px per second
+     * @param min        lowest position
+     * @param max        highest position
+     * @param startNanos release time in {@link System#nanoTime()} time base
+     */
+    FlingTrajectory(float start, float velocity, float min, float max, long startNanos) {
+        this.start = start;
+        this.velocity = velocity;
+        this.min = min;
+        this.max = max;
+        this.startNanos = startNanos;
+        double speed = Math.abs(velocity);
+        double duration = speed > MIN_VELOCITY ? TIME_CONSTANT * Math.log(speed / MIN_VELOCITY) : 0;
+        double travel = velocity * TIME_CONSTANT * (1 - Math.exp(-duration / TIME_CONSTANT));
+        double target = start + travel;
+        float bound = velocity > 0 ? max : min;
+        if ((velocity > 0 && target > bound) || (velocity < 0 && target < bound)) {
+            //Time the free path reaches the bound, the fling ends there
+            double fraction = (bound - start) / (velocity * TIME_CONSTANT);
+            duration = fraction <= 0 ? 0 : -TIME_CONSTANT * Math.log(1 - fraction);
+            target = bound;
+        }
+        durationNanos = (long) (duration * NANOS_PER_SECOND);
+        end = clamp((float) target);
+    }
+
+    /**
+     * @param nanos time in {@link System#nanoTime()} time base
+     * @return position at that time, final position once finished
+     */
+    float positionAt(long nanos) {
+        long elapsed = nanos - startNanos;
+        if (elapsed <= 0) {
+            return start;
+        }
+        if (elapsed >= durationNanos) {
+            return end;
+        }
+        double seconds = elapsed / NANOS_PER_SECOND;
+        return clamp((float) (start + velocity * TIME_CONSTANT * (1 - Math.exp(-seconds / TIME_CONSTANT))));
+    }
+
+    /**
+     * @param nanos time in {@link System#nanoTime()} time base
+     * @return velocity in px per second at that time, 0 once finished
+     */
+    float velocityAt(long nanos) {
+        long elapsed = Math.max(0, nanos - startNanos);
+        if (elapsed >= durationNanos) {
+            return 0;
+        }
+        return (float) (velocity * Math.exp(-elapsed / NANOS_PER_SECOND / TIME_CONSTANT));
+    }
+
+    boolean isFinished(long nanos) {
+        return nanos - startNanos >= durationNanos;
+    }
+
+    float getFinalPosition() {
+        return end;
+    }
+
+    long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Tiles the view passes over between now and lookahead, for a position that is the negated content offset
+     * like full graph move. Tiles visible at now are left out, the rest are ordered nearest first in fling direction
+     *
+     * @param nanos          now in {@link System#nanoTime()} time base
+     * @param lookaheadNanos how far ahead to predict
+     * @param viewWidth      view width in px
+     * @param tileWidth      tile width in px
+     * @param tiles          receives tile indices
+     * @return no of tiles written to tiles, at most its length
+     */
+    int predictTiles(long nanos, long lookaheadNanos, int viewWidth, int tileWidth, int[] tiles) {
+        int offset = (int) -positionAt(nanos);
+        int aheadOffset = (int) -positionAt(nanos + lookaheadNanos);
+        int firstVisible = offset / tileWidth;
+        int lastVisible = (offset + viewWidth) / tileWidth;
+        int count = 0;
+        if (aheadOffset > offset) {
+            int last = (aheadOffset + viewWidth) / tileWidth;
+            for (int tile = lastVisible + 1; tile <= last && count < tiles.length; tile++) {
+                tiles[count++] = tile;
+            }
+        } else if (aheadOffset < offset) {
+            int first = Math.max(0, aheadOffset / tileWidth);
+            for (int tile = firstVisible - 1; tile >= first && count < tiles.length; tile--) {
+                tiles[count++] = tile;
+            }
+        }
+        return count;
+    }
+
+    private float clamp(float position) {
+        return Math.max(min, Math.min(max, position));
+    }
+}
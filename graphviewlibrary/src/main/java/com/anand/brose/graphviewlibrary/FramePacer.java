@@ -0,0 +1,172 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces the plotting thread to display frames from a {@link FrameScheduler}.
+ * The plotting thread requests a frame and parks until it arrives, so at most one frame is rendered per vsync.
+ * While paused or idle the thread parks without requesting frames until {@link #wakeUp(int)} or {@link #stop()}.
+ * {@link #cancelFrame()} releases a thread waiting for a frame without one, e.g. to handle a lifecycle command.
+ * Wake-ups carry a cause bit, see {@link GraphStats#WAKE_UP_SAMPLES}, and only unpark the thread while it waits
+ * for them, so a wake-up per appended sample is cheap while frames render
+ */
+final class FramePacer implements FrameScheduler.FrameCallback {
+
+    //Returned by awaitFrame when no frame arrived
+    static final long NO_FRAME = Long.MIN_VALUE;
+
+    private final FrameScheduler scheduler;
+    private final AtomicBoolean frameRequested = new AtomicBoolean();
+    private volatile Thread renderThread;
+    private volatile boolean framePending = false;
+    //Cause bits of wake-ups since the thread last looked
+    private final AtomicInteger wakeUpCauses = new AtomicInteger();
+    private volatile boolean awaitingWakeUp = false;
+    private volatile boolean stopped = false;
+    private volatile boolean frameCancelled = false;
+    private volatile long frameTimeNanos;
+
+    FramePacer(FrameScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Bind the pacer to the calling plotting thread and clear earlier stop
+     */
+    void attach() {
+        renderThread = Thread.currentThread();
+        framePending = false;
+        wakeUpCauses.set(0);
+        stopped = false;
+        frameCancelled = false;
+    }
+
+    /**
+     * Ask for the next frame, repeated requests before the frame arrives are ignored
+     */
+    void requestFrame() {
+        if (frameRequested.compareAndSet(false, true)) {
+            scheduler.postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        this.frameTimeNanos = frameTimeNanos;
+        frameRequested.set(false);
+        framePending = true;
+        unpark();
+    }
+
+    /**
+     * Park plotting thread until the requested frame arrives, it is cancelled or pacer is stopped
+     *
+     * @return frame time in nano seconds, {@link #NO_FRAME} if cancelled or stopped before the frame arrived
+     */
+    long awaitFrame() {
+        while (!framePending && !stopped && !frameCancelled) {
+            LockSupport.park(this);
+        }
+        frameCancelled = false;
+        if (!framePending) {
+            return NO_FRAME;
+        }
+        framePending = false;
+        return frameTimeNanos;
+    }
+
+    /**
+     * Park plotting thread until {@link #wakeUp(int)}, {@link #stop()} or timeout
+     *
+     * @param timeoutNanos max time to park, 0 to park until woken up
+     * @return cause bits of wake-ups since the last call or {@link #clearWakeUps()}, 0 on timeout or stop
+     */
+    int awaitWakeUp(long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        //Published before looking at the causes, a waker either sees it and unparks or its cause is seen below
+        awaitingWakeUp = true;
+        try {
+            while (wakeUpCauses.get() == 0 && !stopped) {
+                if (timeoutNanos > 0) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        } finally {
+            awaitingWakeUp = false;
+        }
+        return wakeUpCauses.getAndSet(0);
+    }
+
+    /**
+     * Forget wake-ups that arrived while frames rendered, call before deciding to park so a change found
+     * after it is either seen by that decision or wakes the thread
+     *
+     * @return cause bits dropped
+     */
+    int clearWakeUps() {
+        return wakeUpCauses.getAndSet(0);
+    }
+
+    /**
+     * Wake up parked plotting thread for a redraw, e.g. after a setting changed
+     */
+    void wakeUp() {
+        wakeUp(GraphStats.WAKE_UP_REDRAW);
+    }
+
+    /**
+     * Wake up parked plotting thread
+     *
+     * @param cause one of the wake-up causes of {@link GraphStats}
+     */
+    void wakeUp(int cause) {
+        //Always written, even if the bit is set, so whoever clears it next also sees what the waker published
+        int causes;
+        do {
+            causes = wakeUpCauses.get();
+        } while (!wakeUpCauses.compareAndSet(causes, causes | cause));
+        if (awaitingWakeUp) {
+            unpark();
+        }
+    }
+
+    /**
+     * Cancel requested frame and release plotting thread waiting for it once, the pacer keeps running.
+     * A later frame request posts a new callback
+     */
+    void cancelFrame() {
+        scheduler.removeFrameCallback(this);
+        frameRequested.set(false);
+        frameCancelled = true;
+        unpark();
+    }
+
+    /**
+     * Cancel requested frame and release parked plotting thread
+     */
+    void stop() {
+        stopped = true;
+        scheduler.removeFrameCallback(this);
+        frameRequested.set(false);
+        unpark();
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    private void unpark() {
+        Thread thread = renderThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Source of display frame callbacks used to pace plotting, modelled on Choreographer frame callbacks.
+ * A posted callback is called once on the next frame, it has to be posted again for the following frame
+ */
+interface FrameScheduler {
+
+    /**
+     * Callback called on a display frame
+     */
+    interface FrameCallback {
+
+        /**
+         * @param frameTimeNanos time the frame started rendering in {@link System#nanoTime()} time base
+         */
+        void doFrame(long frameTimeNanos);
+    }
+
+    /**
+     * Call the callback once on the next frame, may be called from any thread
+     */
+    void postFrameCallback(FrameCallback callback);
+
+    /**
+     * Remove a posted callback which is not called yet, may be called from any thread
+     */
+    void removeFrameCallback(FrameCallback callback);
+}
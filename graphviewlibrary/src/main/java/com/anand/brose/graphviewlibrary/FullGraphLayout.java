@@ -0,0 +1,161 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Lays out a horizontal range of the full graph content as waves and time markers.
+ * One wave per sample while a sample gets more than a px, otherwise one peak per px column read from the waveform pyramid
+ */
+final class FullGraphLayout {
+
+    final WaveformPyramid pyramid = new WaveformPyramid();
+    private final WaveformPyramid.Bucket pyramidBucket = new WaveformPyramid.Bucket();
+    private final TimeMarkerIndex markerIndex;
+    private int waveLength;
+    private float samplesPerPixel;
+    private int timeScale;
+    private int halfHeight;
+    private int maxAmplitude;
+    private int labelWidth;
+
+    FullGraphLayout(TimeLabels timeLabels) {
+        markerIndex = new TimeMarkerIndex(timeLabels);
+    }
+
+    /**
+     * Set scale for following layouts
+     *
+     * @param waveLength      width of each wave in px when samplesPerPixel is below 1
+     * @param samplesPerPixel samples in a px column, 1 or above draws peaks
+     * @param timeScale       time marker interval in millisecond
+     * @param halfHeight      half of the surface height in px
+     * @param maxAmplitude    amplitude mapped to halfHeight
+     * @param labelWidth      room needed by a time marker text in px
+     */
+    void configure(int waveLength, float samplesPerPixel, int timeScale, int halfHeight, int maxAmplitude, int labelWidth) {
+        this.waveLength = waveLength;
+        this.samplesPerPixel = samplesPerPixel;
+        this.timeScale = timeScale;
+        this.halfHeight = halfHeight;
+        this.maxAmplitude = maxAmplitude;
+        this.labelWidth = labelWidth;
+    }
+
+    /**
+     * @return true if configured scale draws peaks from the pyramid
+     */
+    boolean isEnvelope() {
+        return samplesPerPixel >= 1;
+    }
+
+    /**
+     * No of pixels in x direction needed to display all samples in a scale
+     */
+    static int contentWidth(int sampleCount, int waveLength, float samplesPerPixel) {
+        if (samplesPerPixel >= 1) {
+            return (int) (sampleCount / samplesPerPixel) + 50;
+        }
+        return sampleCount * waveLength + 50;
+    }
+
+    /**
+     * Lay out graph content from px to px - 1 with x relative to from.
+     * Markers starting a label width before from are included so their text continues across range borders
+     *
+     * @param samples     source being plotted
+     * @param sampleCount size snapshot of the source
+     * @param from        first content px
+     * @param to          content px after the range
+     * @param timeMarkers receives time markers
+     * @param sink        receives waves or peaks
+     */
+    void layout(SampleSource samples, int sampleCount, int from, int to, TimeMarkers timeMarkers, WaveSink sink) {
+        if (sampleCount == 0) {
+            return;
+        }
+        markerIndex.update(samples, sampleCount, timeScale);
+        if (isEnvelope()) {
+            pyramid.update(samples, sampleCount);
+            layoutEnvelope(samples, sampleCount, from, to, timeMarkers, sink);
+        } else {
+            layoutWaves(samples, sampleCount, from, to, timeMarkers, sink);
+        }
+    }
+
+    /**
+     * Lay out a range as a complete frame for a drawing backend, e.g. a full graph tile or a thumbnail
+     *
+     * @param samples     source being plotted
+     * @param sampleCount size snapshot of the source
+     * @param from        first content px
+     * @param to          content px after the range
+     * @param timeMarkers reused to collect time markers
+     * @param renderer    drawing backend
+     */
+    void render(SampleSource samples, int sampleCount, int from, int to, TimeMarkers timeMarkers, GraphRenderer renderer) {
+        renderer.begin(halfHeight, waveLength);
+        timeMarkers.clear();
+        layout(samples, sampleCount, from, to, timeMarkers, renderer);
+        for (int i = 0; i < timeMarkers.size(); i++) {
+            renderer.addTimeLabel(timeMarkers.getLabel(i), timeMarkers.getPosition(i));
+        }
+    }
+
+    /**
+     * Draw each sample as a sine wave with waveLength as width
+     */
+    private void layoutWaves(SampleSource samples, int sampleCount, int from, int to, TimeMarkers timeMarkers, WaveSink sink) {
+        int first = Math.max(0, (from - labelWidth) / waveLength);
+        int last = Math.min(sampleCount - 1, to / waveLength);
+        for (int m = markerIndex.firstAtOrAfter(first); m < markerIndex.size(); m++) {
+            int index = markerIndex.getSampleIndex(m);
+            if (index > last) {
+                break;
+            }
+            timeMarkers.add(index * waveLength - from, markerIndex.getLabel(m));
+        }
+        for (int i = first; i <= last; i++) {
+            int amplitude = samples.getAmplitude(i);
+            sink.addWave(i * waveLength - from, halfHeight * amplitude / maxAmplitude);
+        }
+    }
+
+    /**
+     * Draw a peak line per pixel column when at least one sample falls on each pixel.
+     * Column peaks come from the waveform pyramid level matching samplesPerPixel, so cost is O(width)
+     */
+    private void layoutEnvelope(SampleSource samples, int sampleCount, int from, int to, TimeMarkers timeMarkers, WaveSink sink) {
+        long markerInterval = envelopeMarkerInterval(samples, sampleCount);
+        int column = Math.max(0, from - labelWidth);
+        int sampleFrom = (int) (column * samplesPerPixel);
+        int marker = markerIndex.firstAtOrAfter(sampleFrom);
+        int markerCount = markerIndex.size();
+        for (; column < to && sampleFrom < sampleCount; column++) {
+            int sampleTo = Math.min(sampleCount, (int) ((column + 1) * samplesPerPixel));
+            if (sampleTo <= sampleFrom) {
+                continue;
+            }
+            pyramid.reduce(samples, sampleFrom, sampleTo, pyramidBucket);
+            //put a time marker if the column passes a marker interval, labelled with the latest one passed
+            int passed = -1;
+            for (; marker < markerCount && markerIndex.getSampleIndex(marker) < sampleTo; marker++) {
+                if (markerIndex.getTime(marker) % markerInterval == 0) {
+                    passed = marker;
+                }
+            }
+            if (passed >= 0) {
+                timeMarkers.add(column - from, markerIndex.getLabel(passed));
+            }
+            sink.addPeak(column - from, halfHeight * pyramidBucket.max / maxAmplitude);
+            sampleFrom = sampleTo;
+        }
+    }
+
+    /**
+     * Multiple of timeScale leaving room for marker text between markers when zoomed out
+     */
+    private long envelopeMarkerInterval(SampleSource samples, int sampleCount) {
+        long duration = samples.getTime(sampleCount - 1) - samples.getTime(0);
+        double millisPerPixel = duration * samplesPerPixel / sampleCount;
+        long multiple = (long) Math.ceil(millisPerPixel * labelWidth / timeScale);
+        return Math.max(1, multiple) * timeScale;
+    }
+}
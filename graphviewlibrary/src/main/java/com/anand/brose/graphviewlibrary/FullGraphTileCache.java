@@ -0,0 +1,164 @@
+package com.anand.brose.graphviewlibrary;
+
+import android.graphics.Bitmap;
+
+import java.util.HashSet;
+
+/**
+ * LRU cache of rasterized full graph tiles bounded by a byte budget.
+ * Tiles are fixed width strips of the full graph keyed by their index in graph content. Tiles of the frame being
+ * built are pinned from {@link #beginFrame(int, int, int)} to {@link #endFrame()}, so rasterizing one visible tile
+ * never evicts and reuses the bitmap of another.
+ * Must be used from a single thread, other threads only call {@link #invalidate()} and {@link #setMaxBytes(int)}
+ */
+final class FullGraphTileCache {
+
+    static final int TILE_WIDTH = 256;
+    static final int DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+    private static final int POOL_SIZE = 4;
+
+    private final TilePool<Bitmap> pool = new TilePool<Bitmap>(POOL_SIZE) {
+        @Override
+        protected Bitmap create(int height) {
+            return Bitmap.createBitmap(TILE_WIDTH, height, Bitmap.Config.ARGB_8888);
+        }
+
+        @Override
+        protected int heightOf(Bitmap value) {
+            return value.getHeight();
+        }
+
+        @Override
+        protected void recycle(Bitmap value) {
+            value.recycle();
+        }
+    };
+    private volatile int maxBytes = DEFAULT_MAX_BYTES;
+    private volatile int generation = 0;
+    private int cacheGeneration = -1;
+    private int cacheMaxBytes = -1;
+    private int tileHeight = 0;
+    private TileLru<Bitmap> cache;
+    //Tiles rasterized ahead of a fling and not shown yet
+    private final HashSet<Integer> prefetched = new HashSet<>();
+
+    /**
+     * Drop all tiles on next {@link #validate(int)}, e.g. after color, scale or data change
+     */
+    void invalidate() {
+        generation++;
+    }
+
+    /**
+     * @param maxBytes byte budget for cached tile bitmaps
+     */
+    void setMaxBytes(int maxBytes) {
+        this.maxBytes = maxBytes;
+        generation++;
+    }
+
+    int getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Apply pending invalidation before a frame
+     *
+     * @param height current surface height, tiles of another height are dropped
+     */
+    void validate(int height) {
+        if (cache == null || cacheMaxBytes != maxBytes) {
+            if (cache != null) {
+                cache.clear();
+            }
+            cacheMaxBytes = maxBytes;
+            cache = new TileLru<Bitmap>(1) {
+                @Override
+                protected void entryRemoved(int tile, Bitmap value) {
+                    prefetched.remove(tile);
+                    //Keep a few evicted bitmaps for the next tiles instead of allocating
+                    pool.release(value);
+                }
+            };
+            cacheGeneration = generation;
+        }
+        if (cacheGeneration != generation || tileHeight != height) {
+            tileHeight = height;
+            cacheGeneration = generation;
+            //Bitmaps of the old height are recycled, not pooled
+            pool.setTileHeight(height);
+            cache.clear();
+        }
+        cache.setCapacity(getCapacity());
+    }
+
+    /**
+     * Pin the tiles of the frame being built until {@link #endFrame()}. The cache grows past the byte budget if it
+     * can not hold them and the tiles prefetched after the frame, so neither evicts what is on screen
+     *
+     * @param firstTile     first visible tile
+     * @param lastTile      last visible tile
+     * @param prefetchTiles max no of tiles prefetched after the frame
+     */
+    void beginFrame(int firstTile, int lastTile, int prefetchTiles) {
+        cache.setCapacity(Math.max(getCapacity(), lastTile - firstTile + 1 + prefetchTiles));
+        cache.pin(firstTile, lastTile);
+    }
+
+    /**
+     * Unpin the tiles of the frame once they are drawn
+     */
+    void endFrame() {
+        cache.unpin();
+    }
+
+    /**
+     * @return cached tile or null if it has to be rasterized
+     */
+    Bitmap get(int tile) {
+        return cache.get(tile);
+    }
+
+    /**
+     * @return bitmap of the current height to rasterize a new tile into, reused from evicted tiles when possible
+     */
+    Bitmap obtain() {
+        return pool.obtain();
+    }
+
+    void put(int tile, Bitmap bitmap) {
+        cache.put(tile, bitmap);
+    }
+
+    /**
+     * Cache a tile rasterized because a fling is predicted to show it
+     */
+    void putPrefetched(int tile, Bitmap bitmap) {
+        cache.put(tile, bitmap);
+        prefetched.add(tile);
+    }
+
+    /**
+     * Mark a cached tile as shown
+     *
+     * @return true if it was prefetched and is shown for the first time
+     */
+    boolean takePrefetched(int tile) {
+        return !prefetched.isEmpty() && prefetched.remove(tile);
+    }
+
+    /**
+     * @return no of tiles the cache holds during frames, at least {@link #getCapacity()}
+     */
+    int getFrameCapacity() {
+        return cache == null ? getCapacity() : cache.getCapacity();
+    }
+
+    /**
+     * @return no of tiles of the current height fitting in the byte budget
+     */
+    int getCapacity() {
+        long tileBytes = (long) TILE_WIDTH * Math.max(1, tileHeight) * 4;
+        return (int) Math.max(1, cacheMaxBytes / tileBytes);
+    }
+}
@@ -0,0 +1,91 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Continuous full graph zoom as a float no of samples per px column, from a wave of {@link #MAX_WAVE_LENGTH} px per
+ * sample to the whole recording in view width.
+ * Tiles can only be rasterized at a raster scale: a wave of a whole no of px per sample below 1, peaks from the
+ * waveform pyramid at 1 and above. While pinching, tiles of a nearby raster scale are stretched to the gesture scale,
+ * they are rasterized again only once the stretch passes {@link #MAX_STRETCH} and when the gesture ends
+ */
+final class FullGraphZoom {
+
+    static final int MIN_WAVE_LENGTH = 2;
+    static final int MAX_WAVE_LENGTH = 15;
+    static final float MAX_STRETCH = 2;
+    private static final float SQRT_HALF = 0.70710677f;//Halfway between a wave of 2 px and a peak per px on a log scale
+
+    private FullGraphZoom() {
+    }
+
+    /**
+     * @param samplesPerPixel requested scale
+     * @param sampleCount     no of samples in the recording
+     * @param viewWidth       width of the view in px
+     * @return scale limited to the longest wave and to the whole recording in view width
+     */
+    static float clamp(float samplesPerPixel, int sampleCount, int viewWidth) {
+        float closest = 1f / MAX_WAVE_LENGTH;
+        float farthest = Math.max(closest, (float) sampleCount / Math.max(1, viewWidth));
+        return Math.max(closest, Math.min(farthest, samplesPerPixel));
+    }
+
+    /**
+     * @param samplesPerPixel any scale
+     * @return nearest scale tiles can be rasterized at
+     */
+    static float rasterScale(float samplesPerPixel) {
+        if (samplesPerPixel >= 1) {
+            return samplesPerPixel;
+        }
+        if (samplesPerPixel > SQRT_HALF) {
+            return 1;
+        }
+        int waveLength = Math.round(1 / samplesPerPixel);
+        return 1f / Math.max(MIN_WAVE_LENGTH, Math.min(MAX_WAVE_LENGTH, waveLength));
+    }
+
+    /**
+     * @param rasterScale scale below 1 returned by {@link #rasterScale(float)}
+     * @return wave length in px drawing one sample at that scale
+     */
+    static int waveLength(float rasterScale) {
+        return Math.round(1 / rasterScale);
+    }
+
+    /**
+     * @param rasterScale     scale cached tiles were rasterized at
+     * @param samplesPerPixel scale to show
+     * @return true if the tiles may be stretched to the scale instead of rasterized again
+     */
+    static boolean canStretch(float rasterScale, float samplesPerPixel) {
+        float stretch = rasterScale / samplesPerPixel;
+        return stretch <= MAX_STRETCH && stretch * MAX_STRETCH >= 1;
+    }
+
+    /**
+     * Scroll offset keeping the sample under a focus point under the focus after a zoom, while the focus itself
+     * may move, e.g. the center of two fingers
+     *
+     * @param move       current scroll offset, 0 or negative content px
+     * @param fromFocusX focus x in view px before the zoom
+     * @param toFocusX   focus x in view px after the zoom
+     * @param fromScale  samples per px before the zoom
+     * @param toScale    samples per px after the zoom
+     * @return scroll offset after the zoom
+     */
+    static float anchor(float move, float fromFocusX, float toFocusX, float fromScale, float toScale) {
+        double sample = (fromFocusX - move) * (double) fromScale;
+        return (float) (toFocusX - sample / toScale);
+    }
+
+    /**
+     * No of pixels in x direction needed to display all samples at any scale, same as
+     * {@link FullGraphLayout#contentWidth(int, int, float)} at a raster scale
+     */
+    static int contentWidth(int sampleCount, float samplesPerPixel) {
+        if (samplesPerPixel >= 1) {
+            return FullGraphLayout.contentWidth(sampleCount, 1, samplesPerPixel);
+        }
+        return (int) Math.round(sampleCount / (double) samplesPerPixel) + 50;
+    }
+}
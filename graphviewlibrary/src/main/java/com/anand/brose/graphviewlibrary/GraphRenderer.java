@@ -0,0 +1,44 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Drawing backend of a graph frame. Frame layout code emits waves, time labels, the marker band and the needle,
+ * a backend records them for an Android Canvas or rasterizes them into pixels
+ */
+interface GraphRenderer extends WaveSink {
+
+    /**
+     * Baseline of time label text in px
+     */
+    int TIME_LABEL_BASELINE = 20;
+
+    /**
+     * Start a new frame cleared to canvas color
+     *
+     * @param halfHeight center line y position in px
+     * @param waveLength width of each wave in px
+     */
+    void begin(int halfHeight, int waveLength);
+
+    /**
+     * @param label text to draw
+     * @param x     left position of the text in px
+     */
+    void addTimeLabel(String label, int x);
+
+    /**
+     * Add full height vertical marker band
+     *
+     * @param x           center of the band in px
+     * @param strokeWidth band width in px
+     */
+    void addMarker(int x, int strokeWidth);
+
+    /**
+     * Add horizontal needle line showing current amplitude
+     *
+     * @param fromX start position in px
+     * @param toX   end position in px
+     * @param y     line position in px
+     */
+    void addNeedle(int fromX, int toX, int y);
+}
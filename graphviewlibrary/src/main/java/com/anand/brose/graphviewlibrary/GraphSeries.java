@@ -0,0 +1,148 @@
+package com.anand.brose.graphviewlibrary;
+
+import android.graphics.Color;
+import android.graphics.Paint;
+
+/**
+ * Additional named sample stream plotted on top of the master list of a {@link GraphView}, e.g. one per microphone.
+ * Every series is drawn in the same pass on the same render thread and surface as the master list and scrolls
+ * with it, so adding a series costs its waves only, not another thread or surface.
+ * Created by {@link GraphView#addSeries(String, SampleSource)}, setters may be called from any thread
+ */
+public class GraphSeries {
+
+    private final String name;
+    private final GraphView owner;
+    private volatile SampleSource samples;
+    private volatile int maxAmplitude = 0;
+    private volatile boolean needleVisible = false;
+    private volatile boolean visible = true;
+    final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    final Paint needlePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    //Realtime frame state, only touched by the plotting thread
+    final RealtimeFrameBuilder frameBuilder;
+    final CanvasGraphRenderer renderer = new CanvasGraphRenderer();
+    //Full graph state, only touched by the full graph worker
+    final FullGraphLayout fullGraphLayout;
+    final CanvasGraphRenderer fullGraphRenderer = new CanvasGraphRenderer();
+
+    GraphSeries(GraphView owner, String name, SampleSource samples, TimeLabels timeLabels) {
+        this.owner = owner;
+        this.name = name;
+        this.samples = samples;
+        frameBuilder = new RealtimeFrameBuilder(timeLabels);
+        fullGraphLayout = new FullGraphLayout(timeLabels);
+        paint.setColor(Color.rgb(0, 200, 255));
+        paint.setStrokeWidth(1);
+        paint.setStyle(Paint.Style.STROKE);
+        needlePaint.setColor(Color.rgb(0, 200, 255));
+        needlePaint.setStrokeWidth(1);
+        needlePaint.setStyle(Paint.Style.STROKE);
+    }
+
+    /**
+     * @return name given to {@link GraphView#addSeries(String, SampleSource)}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return samples plotted by this series
+     */
+    public SampleSource getSamples() {
+        return samples;
+    }
+
+    /**
+     * Replace the samples plotted by this series
+     *
+     * @param samples source of this series
+     */
+    public void setSamples(SampleSource samples) {
+        if (this.samples != samples) {
+            this.samples = samples;
+            owner.onSeriesChanged();
+        }
+    }
+
+    /**
+     * @return wave and needle color
+     */
+    public int getColor() {
+        return paint.getColor();
+    }
+
+    /**
+     * Set wave and needle color
+     *
+     * @param color color of this series
+     */
+    public void setColor(int color) {
+        paint.setColor(color);
+        needlePaint.setColor(color);
+        owner.onSeriesChanged();
+    }
+
+    /**
+     * @return amplitude drawn at full half height, 0 when the graph's max amplitude is used
+     */
+    public int getMaxAmplitude() {
+        return maxAmplitude;
+    }
+
+    /**
+     * Set the scale of this series
+     *
+     * @param maxAmplitude amplitude drawn at full half height, 0 to use {@link GraphView#getMaxAmplitude()}
+     */
+    public void setMaxAmplitude(int maxAmplitude) {
+        this.maxAmplitude = maxAmplitude;
+        owner.onSeriesChanged();
+    }
+
+    /**
+     * @return true if a needle shows the latest amplitude of this series while plotting
+     */
+    public boolean isNeedleVisible() {
+        return needleVisible;
+    }
+
+    /**
+     * Show or hide a needle at the latest amplitude of this series while plotting, hidden by default
+     *
+     * @param needleVisible true to show
+     */
+    public void setNeedleVisible(boolean needleVisible) {
+        this.needleVisible = needleVisible;
+        owner.onSeriesChanged();
+    }
+
+    /**
+     * @return true if this series is drawn
+     */
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Show or hide this series, its samples and layout state are kept so showing it again only redraws
+     *
+     * @param visible true to draw
+     */
+    public void setVisible(boolean visible) {
+        if (this.visible != visible) {
+            this.visible = visible;
+            owner.onSeriesChanged();
+        }
+    }
+
+    /**
+     * @param graphMaxAmplitude max amplitude of the graph
+     * @return max amplitude this series is scaled to
+     */
+    int maxAmplitude(int graphMaxAmplitude) {
+        int max = maxAmplitude;
+        return max > 0 ? max : graphMaxAmplitude;
+    }
+}
@@ -0,0 +1,262 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Snapshot of {@link GraphView} render and ingestion statistics, see {@link GraphView#getStats()}.
+ * Durations are in micro seconds
+ */
+public class GraphStats {
+
+    /**
+     * Wake-up cause: samples appended to or cleared from an {@link ObservableSampleSource}
+     */
+    public static final int WAKE_UP_SAMPLES = 1;
+    /**
+     * Wake-up cause: {@link GraphView#resume()} or {@link GraphView#pause()}
+     */
+    public static final int WAKE_UP_PLAYBACK = 1 << 1;
+    /**
+     * Wake-up cause: touch scroll input
+     */
+    public static final int WAKE_UP_SCROLL = 1 << 2;
+    /**
+     * Wake-up cause: redraw request, e.g. a setting or series changed
+     */
+    public static final int WAKE_UP_REDRAW = 1 << 3;
+    /**
+     * Wake-up cause: idle poll of a source that is not an {@link ObservableSampleSource}
+     */
+    public static final int WAKE_UP_POLL = 1 << 4;
+    static final int WAKE_UP_CAUSES = 5;
+
+    private final FrameTimeHistogram frameTime = new FrameTimeHistogram();
+    private final FrameTimeHistogram buildTime = new FrameTimeHistogram();
+    private final FrameTimeHistogram drawTime = new FrameTimeHistogram();
+    private final FrameTimeHistogram lockCanvasTime = new FrameTimeHistogram();
+    private final FrameTimeHistogram postTime = new FrameTimeHistogram();
+    long droppedFrames;
+    long skippedFrames;
+    float samplesPerSecond;
+    int renderLag;
+    long flingFrames;
+    long flingTileMisses;
+    long prefetchedTiles;
+    long prefetchHits;
+    long zoomFrames;
+    long zoomTileMisses;
+    long wakeUps;
+    final long[] causeWakeUps = new long[WAKE_UP_CAUSES];
+    long idleTime;
+    long pausedTime;
+
+    GraphStats() {
+    }
+
+    FrameTimeHistogram frameTime() {
+        return frameTime;
+    }
+
+    FrameTimeHistogram buildTime() {
+        return buildTime;
+    }
+
+    FrameTimeHistogram drawTime() {
+        return drawTime;
+    }
+
+    FrameTimeHistogram lockCanvasTime() {
+        return lockCanvasTime;
+    }
+
+    FrameTimeHistogram postTime() {
+        return postTime;
+    }
+
+    /**
+     * @return no of frames rendered
+     */
+    public long getFrameCount() {
+        return frameTime.getCount();
+    }
+
+    /**
+     * Frame time from start of building the paths to posting the canvas
+     *
+     * @param percentile from 0 to 100, e.g. 99
+     * @return frame time in micro seconds
+     */
+    public long getFrameTime(double percentile) {
+        return frameTime.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * @return longest frame time in micro seconds
+     */
+    public long getMaxFrameTime() {
+        return frameTime.getMax();
+    }
+
+    /**
+     * @return mean time spent laying out waves and markers per frame in micro seconds
+     */
+    public long getMeanBuildTime() {
+        return buildTime.getMean();
+    }
+
+    /**
+     * @return mean time spent drawing on the locked canvas per frame in micro seconds
+     */
+    public long getMeanDrawTime() {
+        return drawTime.getMean();
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return time taken by lockCanvas in micro seconds
+     */
+    public long getLockCanvasTime(double percentile) {
+        return lockCanvasTime.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return time taken by unlockCanvasAndPost in micro seconds
+     */
+    public long getPostTime(double percentile) {
+        return postTime.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * @return no of display frames missed while plotting was active
+     */
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * @return no of display frames not rendered because nothing changed
+     */
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    /**
+     * @return samples appended per second over the last one to two seconds while frames are rendered, the same for
+     * every caller. Without frames it is averaged since the previous snapshot plus up to one second
+     */
+    public float getSamplesPerSecond() {
+        return samplesPerSecond;
+    }
+
+    /**
+     * @return no of samples appended but not yet rendered
+     */
+    public int getRenderLag() {
+        return renderLag;
+    }
+
+    /**
+     * @return no of full graph frames rendered while a fling scrolled the graph
+     */
+    public long getFlingFrameCount() {
+        return flingFrames;
+    }
+
+    /**
+     * @return no of tiles fling frames had to rasterize before they could be drawn, each delays its frame
+     */
+    public long getFlingTileMissCount() {
+        return flingTileMisses;
+    }
+
+    /**
+     * @return no of full graph tiles rasterized ahead of time along predicted fling paths
+     */
+    public long getPrefetchedTileCount() {
+        return prefetchedTiles;
+    }
+
+    /**
+     * @return no of prefetched tiles that were shown
+     */
+    public long getPrefetchHitCount() {
+        return prefetchHits;
+    }
+
+    /**
+     * @return share of prefetched tiles that were shown, from 0 to 1, 0 if nothing was prefetched
+     */
+    public float getPrefetchHitRate() {
+        return prefetchedTiles == 0 ? 0 : (float) prefetchHits / prefetchedTiles;
+    }
+
+    /**
+     * @return no of full graph frames rendered while a pinch zoomed the graph
+     */
+    public long getZoomFrameCount() {
+        return zoomFrames;
+    }
+
+    /**
+     * @return no of tiles zoom frames had to rasterize, the other tiles were stretched from a nearby scale
+     */
+    public long getZoomTileMissCount() {
+        return zoomTileMisses;
+    }
+
+    /**
+     * @return no of times the plotting thread was woken up while idle or paused
+     */
+    public long getWakeUpCount() {
+        return wakeUps;
+    }
+
+    /**
+     * @param cause one of the WAKE_UP constants, e.g. {@link #WAKE_UP_SAMPLES}
+     * @return no of wake-ups with this cause, a wake-up may have more than one cause
+     */
+    public long getWakeUpCount(int cause) {
+        if (Integer.bitCount(cause) != 1 || cause >= 1 << WAKE_UP_CAUSES) {
+            throw new IllegalArgumentException("Unknown wake-up cause " + cause);
+        }
+        return causeWakeUps[Integer.numberOfTrailingZeros(cause)];
+    }
+
+    /**
+     * @return time the plotting thread parked because nothing changed, in micro seconds
+     */
+    public long getIdleTime() {
+        return idleTime;
+    }
+
+    /**
+     * @return time the plotting thread parked while paused, in micro seconds
+     */
+    public long getPausedTime() {
+        return pausedTime;
+    }
+
+    @Override
+    public String toString() {
+        return "GraphStats{frames=" + getFrameCount()
+                + ", frameTimeP50=" + getFrameTime(50)
+                + ", frameTimeP99=" + getFrameTime(99)
+                + ", maxFrameTime=" + getMaxFrameTime()
+                + ", meanBuildTime=" + getMeanBuildTime()
+                + ", meanDrawTime=" + getMeanDrawTime()
+                + ", lockCanvasP99=" + getLockCanvasTime(99)
+                + ", postP99=" + getPostTime(99)
+                + ", droppedFrames=" + droppedFrames
+                + ", skippedFrames=" + skippedFrames
+                + ", samplesPerSecond=" + samplesPerSecond
+                + ", renderLag=" + renderLag
+                + ", flingFrames=" + flingFrames
+                + ", flingTileMisses=" + flingTileMisses
+                + ", prefetchedTiles=" + prefetchedTiles
+                + ", prefetchHits=" + prefetchHits
+                + ", zoomFrames=" + zoomFrames
+                + ", zoomTileMisses=" + zoomTileMisses
+                + ", wakeUps=" + wakeUps
+                + ", idleTime=" + idleTime
+                + ", pausedTime=" + pausedTime + "}";
+    }
+}
@@ -0,0 +1,9 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Receives {@link GraphStats} about once per second while {@link GraphView} renders, on the main thread
+ */
+public interface GraphStatsListener {
+
+    void onStats(GraphStats stats);
+}
@@ -0,0 +1,203 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects render and ingestion statistics from the plotting threads
+ */
+final class GraphStatsRecorder {
+
+    private static final long NANOS_PER_MICRO = 1000L;
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    static final long RATE_WINDOW_NANOS = NANOS_PER_SECOND;
+
+    final FrameTimeHistogram frameTime = new FrameTimeHistogram();
+    final FrameTimeHistogram buildTime = new FrameTimeHistogram();
+    final FrameTimeHistogram drawTime = new FrameTimeHistogram();
+    final FrameTimeHistogram lockCanvasTime = new FrameTimeHistogram();
+    final FrameTimeHistogram postTime = new FrameTimeHistogram();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong skippedFrames = new AtomicLong();
+    private volatile int renderedSampleCount = 0;
+    //Ingestion rate over a window of one to two RATE_WINDOW_NANOS, rolled every rendered frame and snapshot once a
+    //window passed, so the rate does not depend on how often getStats or the stats listener take snapshots
+    private int windowStartCount = 0;
+    private long windowStartNanos = 0;
+    private int windowMarkCount = 0;
+    private long windowMarkNanos = 0;
+    //Full graph flings, written by the full graph worker
+    private final AtomicLong flingFrames = new AtomicLong();
+    private final AtomicLong flingTileMisses = new AtomicLong();
+    private final AtomicLong prefetchedTiles = new AtomicLong();
+    private final AtomicLong prefetchHits = new AtomicLong();
+    //Full graph pinch zoom, written by the full graph worker
+    private final AtomicLong zoomFrames = new AtomicLong();
+    private final AtomicLong zoomTileMisses = new AtomicLong();
+    private final AtomicLong wakeUps = new AtomicLong();
+    private final AtomicLongArray causeWakeUps = new AtomicLongArray(GraphStats.WAKE_UP_CAUSES);
+    //Plotting thread state and time parked in each state
+    private int plottingState = PlottingState.STOPPED;
+    private long stateSinceNanos;
+    private long idleNanos;
+    private long pausedNanos;
+
+    static void record(FrameTimeHistogram histogram, long startNanos, long endNanos) {
+        histogram.record((endNanos - startNanos) / NANOS_PER_MICRO);
+    }
+
+    void frameDropped(long frames) {
+        droppedFrames.addAndGet(frames);
+    }
+
+    void frameSkipped() {
+        skippedFrames.incrementAndGet();
+    }
+
+    /**
+     * @param tileMisses visible tiles of a full graph frame shown during a fling that had to be rasterized for it
+     */
+    void flingFrame(int tileMisses) {
+        flingFrames.incrementAndGet();
+        flingTileMisses.addAndGet(tileMisses);
+    }
+
+    void tilePrefetched() {
+        prefetchedTiles.incrementAndGet();
+    }
+
+    void prefetchHit() {
+        prefetchHits.incrementAndGet();
+    }
+
+    /**
+     * @param tileMisses visible tiles of a full graph frame shown during a pinch that had to be rasterized for it
+     */
+    void zoomFrame(int tileMisses) {
+        zoomFrames.incrementAndGet();
+        zoomTileMisses.addAndGet(tileMisses);
+    }
+
+    /**
+     * @param causes wake-up cause bits returned by {@link FramePacer#awaitWakeUp(long)}
+     */
+    void wokeUp(int causes) {
+        wakeUps.incrementAndGet();
+        for (int i = 0; i < GraphStats.WAKE_UP_CAUSES; i++) {
+            if ((causes & (1 << i)) != 0) {
+                causeWakeUps.incrementAndGet(i);
+            }
+        }
+    }
+
+    /**
+     * Account time spent in the previous state of the plotting thread
+     *
+     * @param state    new {@link PlottingState} state
+     * @param nowNanos current {@link System#nanoTime()}
+     */
+    synchronized void setPlottingState(int state, long nowNanos) {
+        addParkedTime(nowNanos);
+        plottingState = state;
+        stateSinceNanos = nowNanos;
+    }
+
+    private void addParkedTime(long nowNanos) {
+        if (plottingState == PlottingState.IDLE) {
+            idleNanos += nowNanos - stateSinceNanos;
+        } else if (plottingState == PlottingState.PAUSED) {
+            pausedNanos += nowNanos - stateSinceNanos;
+        }
+        stateSinceNanos = nowNanos;
+    }
+
+    /**
+     * @param sampleCount no of samples the last rendered frame was built from
+     * @param nowNanos    current {@link System#nanoTime()}
+     */
+    void setRenderedSampleCount(int sampleCount, long nowNanos) {
+        renderedSampleCount = sampleCount;
+        rollRateWindow(sampleCount, nowNanos);
+    }
+
+    /**
+     * Start a new rate window once the current one is {@link #RATE_WINDOW_NANOS} long, the last one becomes the
+     * baseline of the rate
+     */
+    private synchronized void rollRateWindow(int sampleCount, long nowNanos) {
+        if (windowMarkNanos == 0) {
+            windowMarkCount = sampleCount;
+            windowMarkNanos = nowNanos;
+        } else if (nowNanos - windowMarkNanos >= RATE_WINDOW_NANOS) {
+            windowStartCount = windowMarkCount;
+            windowStartNanos = windowMarkNanos;
+            windowMarkCount = sampleCount;
+            windowMarkNanos = nowNanos;
+        }
+    }
+
+    synchronized void reset() {
+        frameTime.reset();
+        buildTime.reset();
+        drawTime.reset();
+        lockCanvasTime.reset();
+        postTime.reset();
+        droppedFrames.set(0);
+        skippedFrames.set(0);
+        windowStartNanos = 0;
+        windowMarkNanos = 0;
+        flingFrames.set(0);
+        flingTileMisses.set(0);
+        prefetchedTiles.set(0);
+        prefetchHits.set(0);
+        zoomFrames.set(0);
+        zoomTileMisses.set(0);
+        wakeUps.set(0);
+        for (int i = 0; i < GraphStats.WAKE_UP_CAUSES; i++) {
+            causeWakeUps.set(i, 0);
+        }
+        idleNanos = 0;
+        pausedNanos = 0;
+        stateSinceNanos = System.nanoTime();
+    }
+
+    /**
+     * @param sampleCount current size of the plotted source
+     * @param nowNanos    current {@link System#nanoTime()}
+     * @return snapshot of all statistics
+     */
+    synchronized GraphStats snapshot(int sampleCount, long nowNanos) {
+        //Frames roll the window while plotting, a snapshot rolls it when none are rendered
+        rollRateWindow(sampleCount, nowNanos);
+        float samplesPerSecond = 0;
+        if (windowStartNanos != 0 && nowNanos > windowStartNanos) {
+            samplesPerSecond = (float) (sampleCount - windowStartCount) * NANOS_PER_SECOND / (nowNanos - windowStartNanos);
+        }
+
+        GraphStats stats = new GraphStats();
+        frameTime.copyInto(stats.frameTime());
+        buildTime.copyInto(stats.buildTime());
+        drawTime.copyInto(stats.drawTime());
+        lockCanvasTime.copyInto(stats.lockCanvasTime());
+        postTime.copyInto(stats.postTime());
+        stats.droppedFrames = droppedFrames.get();
+        stats.skippedFrames = skippedFrames.get();
+        stats.samplesPerSecond = samplesPerSecond;
+        stats.renderLag = Math.max(0, sampleCount - renderedSampleCount);
+        stats.flingFrames = flingFrames.get();
+        stats.flingTileMisses = flingTileMisses.get();
+        stats.prefetchedTiles = prefetchedTiles.get();
+        stats.prefetchHits = prefetchHits.get();
+        stats.zoomFrames = zoomFrames.get();
+        stats.zoomTileMisses = zoomTileMisses.get();
+        stats.wakeUps = wakeUps.get();
+        for (int i = 0; i < GraphStats.WAKE_UP_CAUSES; i++) {
+            stats.causeWakeUps[i] = causeWakeUps.get(i);
+        }
+        //Include the ongoing park
+        addParkedTime(nowNanos);
+        stats.idleTime = idleNanos / NANOS_PER_MICRO;
+        stats.pausedTime = pausedNanos / NANOS_PER_MICRO;
+        return stats;
+    }
+}
@@ -1,34 +1,50 @@
 package com.anand.brose.graphviewlibrary;
 
         import android.content.Context;
+        import android.graphics.Bitmap;
         import android.graphics.Canvas;
         import android.graphics.Color;
         import android.graphics.Paint;
-        import android.graphics.Path;
-        import android.graphics.RectF;
+        import android.graphics.PorterDuff;
+        import android.graphics.Rect;
         import android.util.AttributeSet;
         import android.util.Log;
         import android.view.Gravity;
         import android.view.MotionEvent;
+        import android.view.ScaleGestureDetector;
         import android.view.SurfaceHolder;
         import android.view.SurfaceView;
+        import android.view.VelocityTracker;
+        import android.view.ViewConfiguration;
         import android.view.ViewGroup;
         import android.widget.FrameLayout;
         import android.widget.HorizontalScrollView;
 
-        import java.util.HashMap;
         import java.util.List;
-        import java.util.Set;
 
 /**
  * Created by Anand on 25-03-2016.
  * Graph view extends Horizontal scrollview containing a surface view.
  * This view can be used for plotting values over time both in real time and post processed values
- * The graph is plotted using a list containing {@link WaveSample} values
+ * The graph is plotted using a {@link SampleSource}, either a {@link SampleStore} or a list containing {@link WaveSample} values
  */
 public class GraphView extends HorizontalScrollView {
 
     private static final String TAG = "GraphViewLibrary";
+    /**
+     * Waves drawn as two exact arcs per sample
+     */
+    public static final int GEOMETRY_ARC = 0;
+    /**
+     * Waves drawn as half sine line segments from a lookup table, all in one drawLines call per frame
+     */
+    public static final int GEOMETRY_POLYLINE = 1;
+    private static final long IDLE_POLL_NANOS = 100 * 1000000L;//Look for new samples every 100 ms when idle on a source that can not be observed
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 16666667L;//60 fps until a shorter vsync interval is seen
+    private static final long STATS_INTERVAL_NANOS = 1000 * 1000000L;
+    private static final long PREFETCH_LOOKAHEAD_NANOS = 300 * 1000000L;//Rasterize tiles a fling shows within 300 ms
+    private static final int MAX_AUTO_GAIN = 100;//Auto gain scale is at least maxAmplitude / 100
+    private static final long SURFACE_LOST_TIMEOUT_MILLIS = 200;//Max wait for the plotting thread to let go of a destroyed surface
     private double graphXOffset = 0.75;//X position to start plotting
     private int timeScale = 5 * 1000;//Put time marker for every 5 sec
     private int maxAmplitude = 35000;//Maximum possible amplitude
@@ -36,7 +52,7 @@ public class GraphView extends HorizontalScrollView {
     private int timeMarkerSize = 50;
     private boolean drawFullGraph = false;
     private GraphSurfaceView graphSurfaceView;
-    private List<WaveSample> pointList;
+    private volatile SampleSource pointList;
     private Paint paint;
     private Paint markerPaint;
     private Paint timePaint;
@@ -46,10 +62,22 @@ public class GraphView extends HorizontalScrollView {
     private int graphColor = Color.rgb(255, 255, 255);
     private int timeColor = Color.rgb(250, 250, 250);
     private int needleColor = Color.rgb(250, 0, 0);
-    private boolean pausePlotting = false;
+    private volatile boolean pausePlotting = false;
     private FrameLayout frame;
     private Context context;
     private volatile float move = 0;
+    //Full graph fling, started and stepped on main thread, read by the full graph worker to prefetch tiles
+    private volatile FlingTrajectory fling;
+    private final FrameScheduler flingScheduler = new VsyncFrameScheduler();
+    private VelocityTracker velocityTracker;
+    private int minFlingVelocity;
+    private int maxFlingVelocity;
+    //Pinch zoom of the full graph, a pinch in a touch sequence suppresses its fling
+    private ScaleGestureDetector scaleDetector;
+    private boolean pinched = false;
+    private final TimeLabels timeLabels = new TimeLabels();
+    //Additional series drawn over the master list, replaced as a whole on add and remove
+    private volatile GraphSeries[] series = new GraphSeries[0];
 
     public GraphView(Context context) {
         super(context);
@@ -68,6 +96,10 @@ public class GraphView extends HorizontalScrollView {
 
     private void init(Context context) {
         this.context = context;
+        ViewConfiguration configuration = ViewConfiguration.get(context);
+        minFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        maxFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+        scaleDetector = new ScaleGestureDetector(context, scaleListener);
 
         //FrameLayout config to hold SurfaceView
         frame = new FrameLayout(context);
@@ -94,6 +126,18 @@ public class GraphView extends HorizontalScrollView {
      */
     public void setMaxAmplitude(int maxAmplitude) {
         this.maxAmplitude = maxAmplitude;
+        graphSurfaceView.invalidateTiles();
+    }
+
+    /**
+     * Scale amplitudes to the loudest sample of a recent time window instead of the fixed max amplitude, so quiet
+     * sources are not drawn as a flat line and loud ones do not clip. Scale changes are smoothed and the full graph
+     * is scaled to the loudest sample of the whole recording. Gain is at most 100 times the fixed max amplitude
+     *
+     * @param windowMillis sample time the loudest sample is looked for in, 0 to use the fixed max amplitude again
+     */
+    public void setAutoGain(long windowMillis) {
+        graphSurfaceView.setAutoGain(windowMillis);
     }
 
     /**
@@ -110,6 +154,7 @@ public class GraphView extends HorizontalScrollView {
      */
     public void setTimeScale(int timeScale) {
         this.timeScale = timeScale;
+        graphSurfaceView.invalidateTiles();
     }
 
     /**
@@ -127,6 +172,7 @@ public class GraphView extends HorizontalScrollView {
     public void setGraphXOffset(double graphXOffset) {
         if (graphXOffset > 0 && graphXOffset < 1) {
             this.graphXOffset = graphXOffset;
+            graphSurfaceView.invalidateFrame();
         }
     }
 
@@ -139,6 +185,7 @@ public class GraphView extends HorizontalScrollView {
         this.canvasColor = canvasColor;
         this.setBackgroundColor(canvasColor);
         frame.setBackgroundColor(canvasColor);
+        graphSurfaceView.invalidateTiles();
     }
 
     /**
@@ -159,6 +206,7 @@ public class GraphView extends HorizontalScrollView {
     public void setGraphColor(int graphColor) {
         this.graphColor = graphColor;
         paint.setColor(graphColor);
+        graphSurfaceView.invalidateTiles();
     }
 
     /**
@@ -169,6 +217,7 @@ public class GraphView extends HorizontalScrollView {
     public void setTimeColor(int timeColor) {
         this.timeColor = timeColor;
         timePaint.setColor(timeColor);
+        graphSurfaceView.invalidateTiles();
     }
 
     /**
@@ -195,6 +244,7 @@ public class GraphView extends HorizontalScrollView {
      */
     public void pause() {
         this.pausePlotting = true;
+        graphSurfaceView.wakeUp(GraphStats.WAKE_UP_PLAYBACK);
     }
 
     /**
@@ -202,6 +252,7 @@ public class GraphView extends HorizontalScrollView {
      */
     public void resume() {
         this.pausePlotting = false;
+        graphSurfaceView.wakeUp(GraphStats.WAKE_UP_PLAYBACK);
     }
 
     /**
@@ -210,7 +261,18 @@ public class GraphView extends HorizontalScrollView {
      * @param waveSamples {@link WaveSample} list
      */
     public void showFullGraph(List<WaveSample> waveSamples) {
-        graphSurfaceView.setMasterList(waveSamples);
+        showFullGraph(WaveSampleListSource.of(waveSamples));
+    }
+
+    /**
+     * Show full graph of recorded wave, stopPlotting should be called if plotting in progress.
+     * Dragging scrolls the full graph and a fast release keeps it scrolling with deceleration,
+     * tiles the fling is about to show are rasterized ahead of time. Pinching zooms about the fingers
+     *
+     * @param samples {@link SampleStore} or any other {@link SampleSource}
+     */
+    public void showFullGraph(SampleSource samples) {
+        graphSurfaceView.setMasterList(samples);
         graphSurfaceView.showFullGraph();
     }
 
@@ -220,7 +282,27 @@ public class GraphView extends HorizontalScrollView {
      * @param list
      */
     public void setMasterList(List<WaveSample> list) {
-        graphSurfaceView.setMasterList(list);
+        setMasterList(WaveSampleListSource.of(list));
+    }
+
+    /**
+     * Assign source that holds samples
+     *
+     * @param samples {@link SampleStore} or any other {@link SampleSource}
+     */
+    public void setMasterList(SampleSource samples) {
+        graphSurfaceView.setMasterList(samples);
+    }
+
+    /**
+     * Stop reading a source, e.g. before closing a {@link MappedSampleStore}. If it is plotted the graph switches to
+     * an empty source, the action runs once realtime and full graph frames that may still read it are done
+     *
+     * @param samples    source to release
+     * @param onReleased runs on the thread of the last such frame, or right away if none is in progress
+     */
+    public void releaseSource(SampleSource samples, Runnable onReleased) {
+        graphSurfaceView.releaseSource(samples, onReleased);
     }
 
 
@@ -258,46 +340,398 @@ public class GraphView extends HorizontalScrollView {
         graphSurfaceView.setWaveLength(scale);
     }
 
+    /**
+     * Zoom full graph out to show the whole recording in view width.
+     * When more than one sample falls on a pixel the peak of those samples is drawn, use {@link #zoomFullGraph(float)}
+     * or {@link #setWaveLengthPX(int)} to zoom in again
+     */
+    public void fitFullGraph() {
+        graphSurfaceView.fitFullGraph();
+    }
+
+    /**
+     * Zoom full graph about the center of the view, e.g. from zoom buttons. Pinching the full graph zooms about the fingers.
+     * Zoom is continuous from a 15 px wave per sample to the whole recording in view width
+     *
+     * @param factor above 1 zooms in, below 1 zooms out
+     */
+    public void zoomFullGraph(float factor) {
+        stopFling();
+        float center = graphSurfaceView.width / 2f;
+        graphSurfaceView.zoom(factor, center, center);
+    }
+
+    /**
+     * @return no of samples per px column of the full graph, below 1 each sample is drawn as a wave wider than a px
+     */
+    public float getSamplesPerPixel() {
+        return graphSurfaceView.getZoomScale();
+    }
+
+    /**
+     * Zoom full graph to a scale read from {@link #getSamplesPerPixel()}, e.g. to restore the zoom after the
+     * activity was recreated. May be called before the full graph is shown or laid out
+     *
+     * @param samplesPerPixel no of samples per px column, below 1 each sample is drawn as a wave wider than a px
+     */
+    public void setSamplesPerPixel(float samplesPerPixel) {
+        stopFling();
+        graphSurfaceView.setZoomScale(samplesPerPixel);
+    }
+
+    /**
+     * Set memory budget for rasterized full graph tiles, scrolling full graph redraws only tiles not in this cache
+     *
+     * @param maxBytes default is 8 MB
+     */
+    public void setTileCacheSize(int maxBytes) {
+        graphSurfaceView.tileCache.setMaxBytes(maxBytes);
+    }
+
+    /**
+     * Returns no of full graph frames requested by scroll, zoom and surface changes
+     *
+     * @return requested frame count
+     */
+    public long getFullGraphRequestCount() {
+        return graphSurfaceView.fullGraphExecutor.getReceivedCount();
+    }
+
+    /**
+     * Returns no of full graph frames actually rendered, requests arriving faster than frames render are dropped
+     *
+     * @return rendered frame count
+     */
+    public long getFullGraphFrameCount() {
+        return graphSurfaceView.fullGraphExecutor.getExecutedCount();
+    }
+
+    /**
+     * Add a named series plotted over the master list on the same surface and render thread.
+     * Series scroll with the master list, set its color, scale, needle and visibility on the returned series
+     *
+     * @param name    unique name of the series
+     * @param samples source of the series
+     * @return the new series
+     * @throws IllegalArgumentException if a series with this name exists
+     */
+    public GraphSeries addSeries(String name, SampleSource samples) {
+        synchronized (this) {
+            if (getSeries(name) != null) {
+                throw new IllegalArgumentException("Series " + name + " already added");
+            }
+            GraphSeries item = new GraphSeries(this, name, samples, timeLabels);
+            graphSurfaceView.applyPolyline(item);
+            GraphSeries[] current = series;
+            GraphSeries[] added = new GraphSeries[current.length + 1];
+            System.arraycopy(current, 0, added, 0, current.length);
+            added[current.length] = item;
+            series = added;
+            onSeriesChanged();
+            return item;
+        }
+    }
+
+    /**
+     * @param name name of the series
+     * @return series added with this name, null if there is none
+     */
+    public GraphSeries getSeries(String name) {
+        for (GraphSeries item : series) {
+            if (item.getName().equals(name)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove a series added by {@link #addSeries(String, SampleSource)}
+     *
+     * @param name name of the series
+     * @return true if a series was removed
+     */
+    public boolean removeSeries(String name) {
+        synchronized (this) {
+            GraphSeries[] current = series;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].getName().equals(name)) {
+                    GraphSeries[] removed = new GraphSeries[current.length - 1];
+                    System.arraycopy(current, 0, removed, 0, i);
+                    System.arraycopy(current, i + 1, removed, i, current.length - i - 1);
+                    series = removed;
+                    onSeriesChanged();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Called by {@link GraphSeries} setters, draws the change without waiting for a sample
+     */
+    void onSeriesChanged() {
+        graphSurfaceView.requestRedraw();
+    }
+
+    /**
+     * Set how waves are drawn, {@link #GEOMETRY_POLYLINE} is much cheaper to stroke than arcs on long or zoomed in graphs
+     *
+     * @param geometry {@link #GEOMETRY_ARC} (default) or {@link #GEOMETRY_POLYLINE}
+     */
+    public void setWaveGeometry(int geometry) {
+        if (geometry != GEOMETRY_ARC && geometry != GEOMETRY_POLYLINE) {
+            throw new IllegalArgumentException("Unknown wave geometry " + geometry);
+        }
+        graphSurfaceView.setPolyline(geometry == GEOMETRY_POLYLINE);
+    }
+
+    /**
+     * Draw only waves and labels of newly arrived samples while plotting, everything already drawn scrolls in a
+     * back buffer of about one view size. Cuts path drawing per frame to the newest waves on long recordings.
+     * Frames with visible series are always drawn in full
+     *
+     * @param partialRedraw true to enable, disabled by default
+     */
+    public void setPartialRedraw(boolean partialRedraw) {
+        graphSurfaceView.setPartialRedraw(partialRedraw);
+    }
+
+    /**
+     * Returns render and ingestion statistics: frame time histogram, dropped and skipped frames,
+     * build versus draw time, lockCanvas and post time, samples ingested per second, render lag,
+     * fling frames with tile misses and prefetch hit rate, pinch zoom frames with tile misses,
+     * time the plotting thread parked while idle or paused and its wake-ups by cause
+     *
+     * @return snapshot of current statistics
+     */
+    public GraphStats getStats() {
+        return graphSurfaceView.getStats();
+    }
+
+    /**
+     * Clear render statistics
+     */
+    public void resetStats() {
+        graphSurfaceView.stats.reset();
+    }
+
+    /**
+     * Set listener receiving {@link GraphStats} about once per second on main thread while frames render
+     *
+     * @param listener null to stop
+     */
+    public void setStatsListener(GraphStatsListener listener) {
+        graphSurfaceView.statsListener = listener;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        stopFling();
+        graphSurfaceView.release();
+    }
+
     private float x1, x2;
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         if (!drawFullGraph) {
+            graphSurfaceView.wakeUp(GraphStats.WAKE_UP_SCROLL);
             return false;
         }
-        switch (event.getAction()) {
+        if (velocityTracker == null) {
+            velocityTracker = VelocityTracker.obtain();
+        }
+        scaleDetector.onTouchEvent(event);
+        switch (event.getActionMasked()) {
             case MotionEvent.ACTION_DOWN:
+                //Touch catches a running fling
+                stopFling();
+                pinched = false;
+                velocityTracker.clear();
+                velocityTracker.addMovement(event);
                 x1 = event.getX();
                 break;
+            case MotionEvent.ACTION_POINTER_UP:
+                //Keep dragging with the finger left after a pinch
+                x1 = event.getX(event.getActionIndex() == 0 ? 1 : 0);
+                break;
             case MotionEvent.ACTION_MOVE:
+                velocityTracker.addMovement(event);
+                if (scaleDetector.isInProgress() || event.getPointerCount() > 1) {
+                    //Pinch moves the graph with its focus
+                    break;
+                }
                 x2 = event.getX();
                 float delta = x2 - x1;
                 x1 = x2;
                 move = move + delta;
                 graphSurfaceView.drawFullGraph();
                 break;
+            case MotionEvent.ACTION_UP:
+                velocityTracker.addMovement(event);
+                velocityTracker.computeCurrentVelocity(1000, maxFlingVelocity);
+                float velocity = velocityTracker.getXVelocity();
+                if (!pinched && Math.abs(velocity) > minFlingVelocity) {
+                    startFling(velocity);
+                }
+                velocityTracker.recycle();
+                velocityTracker = null;
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                velocityTracker.recycle();
+                velocityTracker = null;
+                break;
         }
         return super.onTouchEvent(event);
     }
 
+    /**
+     * Keep scrolling the full graph after release, decelerating from the release velocity
+     *
+     * @param velocity px per second, positive moves towards the start of the recording
+     */
+    private void startFling(float velocity) {
+        float min = Math.min(0, graphSurfaceView.width - graphSurfaceView.widthForFullGraph);
+        fling = new FlingTrajectory(move, velocity, min, 0, System.nanoTime());
+        flingScheduler.postFrameCallback(flingFrame);
+    }
+
+    private void stopFling() {
+        fling = null;
+        flingScheduler.removeFrameCallback(flingFrame);
+    }
+
+    /**
+     * Zooms the full graph about the pinch focus, the graph under the fingers follows the focus as it moves
+     */
+    private final ScaleGestureDetector.OnScaleGestureListener scaleListener = new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+        private float focusX;
+
+        @Override
+        public boolean onScaleBegin(ScaleGestureDetector detector) {
+            if (!drawFullGraph) {
+                return false;
+            }
+            stopFling();
+            pinched = true;
+            focusX = detector.getFocusX();
+            graphSurfaceView.zooming = true;
+            return true;
+        }
+
+        @Override
+        public boolean onScale(ScaleGestureDetector detector) {
+            float previousFocusX = focusX;
+            focusX = detector.getFocusX();
+            graphSurfaceView.zoom(detector.getScaleFactor(), previousFocusX, focusX);
+            return true;
+        }
+
+        @Override
+        public void onScaleEnd(ScaleGestureDetector detector) {
+            //Settle on the scale tiles can be rasterized at
+            graphSurfaceView.zooming = false;
+            graphSurfaceView.drawFullGraph();
+        }
+    };
+
+    /**
+     * Moves the full graph along the fling each display frame, the worker draws the coalesced newest position
+     */
+    private final FrameScheduler.FrameCallback flingFrame = new FrameScheduler.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            FlingTrajectory current = fling;
+            if (current == null || !drawFullGraph) {
+                fling = null;
+                return;
+            }
+            move = current.positionAt(frameTimeNanos);
+            graphSurfaceView.drawFullGraph();
+            if (current.isFinished(frameTimeNanos)) {
+                fling = null;
+            } else {
+                flingScheduler.postFrameCallback(this);
+            }
+        }
+    };
+
     private class GraphSurfaceView extends SurfaceView implements SurfaceHolder.Callback, Runnable {
         private SurfaceHolder holder;
         private Context context;
-        private Thread _plottingThread;
         //Current rendered surface view dimensions
         private int height;
         private int halfHeight;
         private int width;
 
         private volatile int waveLength;
-        private volatile boolean isRunning = false;
-        private volatile boolean stop = false;
-        private int widthForFullGraph = 50;
-        int listMasterSize = 0;
-        int redrawCount = 0;
-        int freezCount = 0;
-        int sleepTime = 5;
+        private volatile int widthForFullGraph = 50;
+        private int listMasterSize = 0;
         private int deltaWidth;
+        //Plotting thread is paced by display frames and parks while paused or idle
+        private final FramePacer framePacer = new FramePacer(new VsyncFrameScheduler());
+        private final SampleListener sampleListener = new SampleListener() {
+            @Override
+            public void onSamplesChanged(SampleSource source) {
+                //Appends only matter while plotting, stopped or suspended threads wait for a lifecycle command
+                if (lifecycle.isPlotting()) {
+                    framePacer.wakeUp(GraphStats.WAKE_UP_SAMPLES);
+                }
+            }
+        };
+        private final RealtimeScroll realtimeScroll = new RealtimeScroll();
+        //Set when a frame must be drawn although no sample arrived, e.g. a series was hidden
+        private volatile boolean redrawRequested = false;
+        private volatile boolean polyline = false;
+        //Render and ingestion statistics
+        private final GraphStatsRecorder stats = new GraphStatsRecorder();
+        private final PlottingState plottingState = new PlottingState(stats);
+        //Start, stop and surface changes queued for the one plotting thread
+        private final PlottingLifecycle lifecycle = new PlottingLifecycle();
+        //Frames read one source snapshot, a source switched away from is released once they are done with it
+        private final SourceRetirement sourceRetirement = new SourceRetirement();
+        private SampleSource realtimeSamples;//Only used by the plotting thread
+        private SampleSource fullGraphSamples;//Only used by the full graph worker
+        private volatile GraphStatsListener statsListener;
+        private long lastStatsNanos = 0;
+        //Full graph raster scale, samplesPerPixel of 1 or above draws peaks from the pyramid, 0 one wave per sample
+        private final FullGraphLayout fullGraphLayout = new FullGraphLayout(timeLabels);
+        private volatile float samplesPerPixel = 0;
+        //Full graph scale shown in samples per px, 0 to show the raster scale. Tiles are stretched to it while zooming
+        private volatile float zoomScale = 0;
+        private volatile float zoomFocusX = 0;
+        private volatile boolean zooming = false;
+        private final Paint tilePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        //Single long lived worker for full graph frames, state below is only touched by it
+        private final CoalescingExecutor fullGraphExecutor = new CoalescingExecutor("GraphViewFullGraph");
+        private final TimeMarkers fullGraphMarkers = new TimeMarkers();
+        private final CanvasGraphRenderer fullGraphRenderer = new CanvasGraphRenderer();
+        private final FullGraphTileCache tileCache = new FullGraphTileCache();
+        private final Canvas tileCanvas = new Canvas();
+        private Bitmap[] visibleTiles = new Bitmap[8];
+        private final int[] predictedTiles = new int[16];
+        private int tileSampleCount = -1;
+        private int tileMaxAmplitude = 0;
+        private final WaveformPyramid.Bucket fullGraphPeak = new WaveformPyramid.Bucket();
+        //Auto gain of realtime frames, only touched by the plotting thread
+        private volatile long autoGainWindow = 0;
+        private final AutoGain autoGain = new AutoGain(0);
+        private int frameMaxAmplitude = 0;
+        //Realtime frame state reused across frames to avoid allocation while plotting
+        private final RealtimeFrameBuilder frameBuilder = new RealtimeFrameBuilder(timeLabels);
+        private final CanvasGraphRenderer graphRenderer = new CanvasGraphRenderer();
+        //Partial redraw keeps scrolling content in a wrapping back buffer, buffer state is only touched by the plotting thread
+        private volatile boolean partialRedraw = false;
+        private volatile int frameGeneration = 0;
+        private final ScrollDamage scrollDamage = new ScrollDamage();
+        private Bitmap backBuffer;
+        private final Canvas backBufferCanvas = new Canvas();
+        private final Rect dirtyRect = new Rect();
+        private final Rect sourceRect = new Rect();
+        private final Rect targetRect = new Rect();
 
         public GraphSurfaceView(Context context) {
             super(context);
@@ -316,6 +750,11 @@ public class GraphView extends HorizontalScrollView {
 
         public void setWaveLength(int scale) {
             waveLength = scale;
+            //Back to one wave per sample
+            samplesPerPixel = 0;
+            zoomScale = 0;
+            tileCache.invalidate();
+            invalidateFrame();
         }
 
         public void init(Context context) {
@@ -357,142 +796,215 @@ public class GraphView extends HorizontalScrollView {
         /**
          * Function to calculate time to x and amplitude to y mapping of each sample for current frame
          */
-        private void processAmplitude() {
-            //calculate sleep time and redraw count for smooth wave movement
-            if (pointList.size() != listMasterSize) {//new sample found since last frame
-                listMasterSize = pointList.size();
-                freezCount = -1;
-                redrawCount = 0;
-            } else {//same no of samples since last frame so move the wave to left by incrementing redrawCount
-                redrawCount++;
-                if (redrawCount > waveLength) {//Moved too much left still no new sample
-                    freezCount++;
-                    if (freezCount > 0) {//Increase sleep time to avoid wave redraw
-                        sleepTime = sleepTime + 1;
-                    } else if (freezCount < 0) {
-                        sleepTime = sleepTime - 1;
-                        if (sleepTime < 0) {
-                            sleepTime = 0;
-                        }
-                    }
-                    redrawCount = waveLength;
+        private void processAmplitude(int sampleCount, int redrawCount) {
+            GraphSeries[] frameSeries = series;
+            if (partialRedraw && !hasVisibleSeries(frameSeries)) {
+                processStrip(sampleCount, redrawCount);
+                return;
+            }
+            //Back buffer misses whatever is drawn now
+            scrollDamage.invalidate();
+            long buildStartNanos = System.nanoTime();
+            frameBuilder.render(realtimeSamples, sampleCount, width, height, graphXOffset, waveLength, redrawCount, timeScale,
+                    frameMaxAmplitude, graphRenderer);
+            //Additional series scroll with the master list and are drawn in the same pass
+            for (GraphSeries item : frameSeries) {
+                SampleSource samples = item.getSamples();
+                if (item.isVisible() && samples != null) {
+                    item.frameBuilder.renderSeries(samples, samples.size(), width, height, graphXOffset, waveLength,
+                            redrawCount, timeScale, item.maxAmplitude(frameMaxAmplitude), item.isNeedleVisible(), item.renderer);
                 }
             }
-            //Path variable for wave
-            Path graphPath = new Path();
-
-            //HashMap to hold time markers position
-            HashMap<Integer, String> timeMap = new HashMap<>();
-
-            //Initialize start position for wave path
-            int x = (int) (width * graphXOffset);
-            int listSize = pointList.size() - 1;
-
-            //Path variable for marker
-            Path markerPath = new Path();
-            markerPaint.setStrokeWidth((float) (width - (width * graphXOffset)));
-            markerPath.moveTo(x + (width / 8), 0);
-            markerPath.lineTo(x + (width / 8), height);
-
-            //Path variable for needle
-            Path needlePath = new Path();
-
-            /*
-            Draw sine waves for last 'n' no of samples.
-            'n' is calculated from no x - direction pixels available in surface view from width * 3/4 to 0 - wavelength.
-            Each sample will be drawn as a sine wave with waveLength as width
-            */
-            for (int i = listSize - 1; x >= 0 - waveLength; x = x - waveLength) {
-                if (i >= 0) {
-                    if (i == 0) {
-                        timeMap.put(x - redrawCount, "00:00"); //put time 00.00 for first sample
-                    } else {
-                        long currentSampleTime = pointList.get(i).getTime();
-                        long lastSampleTime = pointList.get(i - 1).getTime();
-                        //put a time marker if current sampled time passes timeScale sec
-                        if (lastSampleTime % timeScale > currentSampleTime % timeScale) {
-                            timeMap.put(x - redrawCount, formatTime(currentSampleTime));
-                        }
-                    }
-
-                    int amplitude = (int) pointList.get(i).getAmplitude();
-                    drawAmplitude(amplitude, x, graphPath, needlePath);
+            GraphStatsRecorder.record(stats.buildTime, buildStartNanos, System.nanoTime());
+            renderAmplitude(graphRenderer, frameSeries);
+            GraphStatsRecorder.record(stats.frameTime, buildStartNanos, System.nanoTime());
+            stats.setRenderedSampleCount(sampleCount, System.nanoTime());
+        }
 
+        private boolean hasVisibleSeries(GraphSeries[] frameSeries) {
+            for (GraphSeries item : frameSeries) {
+                if (item.isVisible() && item.getSamples() != null) {
+                    return true;
                 }
-                i--;
             }
-            renderAmplitude(timeMap, graphPath, markerPath, needlePath);
+            return false;
         }
 
         /**
-         * Draw sine wave path for current sample at x position with amplitude and needle path to show current amplitude
+         * Same as processAmplitude but only lays out waves and labels of samples that arrived since last frame.
+         * They are drawn once into the back buffer at their content x, the visible window of the buffer is copied
+         * to the surface with marker and needle on top
          */
-        private Path drawAmplitude(int amplitude, int x, Path graphPath, Path needlePath) {
-
-            /* Calculate no y pixels for sine wave magnitude from amplitude */
-            amplitude = halfHeight * amplitude / maxAmplitude;
-            /*  If current sample is the latest then move needle to show current amplitude    */
-            if (x == (int) (width * graphXOffset)) {
-                needlePath.moveTo((float) (width * graphXOffset), halfHeight - amplitude);
-                needlePath.lineTo(width, halfHeight - amplitude);
+        private void processStrip(int sampleCount, int redrawCount) {
+            if (width <= 0 || height <= 0) {
+                return;
             }
-            if (amplitude > 0) {
+            long buildStartNanos = System.nanoTime();
+            int startX = (int) (width * graphXOffset);
+            //Content x shown at screen x 0, sample i is drawn at content x i * waveLength
+            long origin = (long) (sampleCount - 2) * waveLength + redrawCount - startX;
+            int labelWidth = timeMarkerSize * 2;
+            scrollDamage.plan(origin, sampleCount, waveLength, labelWidth, width, frameGeneration);
+            int fromX = (int) (scrollDamage.getStripFrom() - origin);
+            int toX = (int) (scrollDamage.getStripTo() - origin);
+            frameBuilder.renderStrip(realtimeSamples, sampleCount, width, height, graphXOffset, waveLength, redrawCount,
+                    timeScale, frameMaxAmplitude, fromX, toX, labelWidth, graphRenderer);
+            GraphStatsRecorder.record(stats.buildTime, buildStartNanos, System.nanoTime());
+            updateBackBuffer(origin);
+            renderBackBuffer(origin, startX);
+            GraphStatsRecorder.record(stats.frameTime, buildStartNanos, System.nanoTime());
+            stats.setRenderedSampleCount(sampleCount, System.nanoTime());
+        }
 
-                /*  Below code can be customized to support more graph types
-                 *  Draw a sine wave from x-redrawCount to x - redrawCount + waveLength with positive magnitude at halfHeight - amplitude and negative at halfHeight + amplitude    */
-                RectF oval = new RectF();
-                oval.set(x - redrawCount, halfHeight - amplitude, x - redrawCount + (waveLength / 2), halfHeight + amplitude);
-                graphPath.addArc(oval, 180, 180);
-                oval.set(x - redrawCount + (waveLength / 2), halfHeight - amplitude, x - redrawCount + (waveLength), halfHeight + amplitude);
-                graphPath.addArc(oval, 0, 180);
+        /**
+         * Clear back buffer columns about to scroll into view and draw the laid out strip
+         */
+        private void updateBackBuffer(long origin) {
+            if (scrollDamage.isFull()) {
+                int ringWidth = scrollDamage.getRingWidth();
+                if (backBuffer == null || backBuffer.getWidth() != ringWidth || backBuffer.getHeight() != height) {
+                    if (backBuffer != null) {
+                        backBuffer.recycle();
+                    }
+                    backBuffer = Bitmap.createBitmap(ringWidth, height, Bitmap.Config.ARGB_8888);
+                    backBufferCanvas.setBitmap(backBuffer);
+                }
+                backBuffer.eraseColor(canvasColor);
             } else {
-                /*  Draw simple line to represent 0 */
-                graphPath.moveTo(x - redrawCount, halfHeight);
-                graphPath.lineTo(x - redrawCount + waveLength, halfHeight);
+                drawBackBuffer(scrollDamage.getClearFrom(), scrollDamage.getClearTo(), origin, false);
+            }
+            drawBackBuffer(scrollDamage.getStripFrom(), scrollDamage.getStripTo(), origin, true);
+        }
+
+        /**
+         * Clear a content range of the back buffer, split where it wraps, and optionally draw the laid out content
+         */
+        private void drawBackBuffer(long from, long to, long origin, boolean content) {
+            int ringWidth = backBuffer.getWidth();
+            while (from < to) {
+                int left = ScrollDamage.ringX(from, ringWidth);
+                int right = (int) Math.min(ringWidth, left + (to - from));
+                backBufferCanvas.save();
+                backBufferCanvas.clipRect(left, 0, right, height);
+                backBufferCanvas.drawColor(canvasColor, PorterDuff.Mode.SRC);
+                if (content) {
+                    //Screen x of the layout to ring column
+                    backBufferCanvas.translate(left + origin - from, 0);
+                    graphRenderer.drawContent(backBufferCanvas, paint, timePaint);
+                }
+                backBufferCanvas.restore();
+                from += right - left;
             }
-            return graphPath;
         }
 
         /**
-         * Draw all the path on SurfaceView canvas
+         * Copy the visible window of the back buffer to SurfaceView canvas and draw marker and needle over it.
+         * While waves stand still only the strip and needle are locked
          */
-        private void renderAmplitude(HashMap<Integer, String> timeMap, Path tempPath, Path markerPath, Path needlePath) {
+        private void renderBackBuffer(long origin, int startX) {
             Canvas tempCanvas = null;
             if (holder.getSurface().isValid()) {//SurfaceView available
+                long drawStartNanos = 0;
                 try {
-                    tempCanvas = holder.lockCanvas();
+                    long lockStartNanos = System.nanoTime();
+                    if (scrollDamage.isScrolled()) {
+                        tempCanvas = holder.lockCanvas();
+                    } else {
+                        long left = startX - ScrollDamage.MARGIN;
+                        if (scrollDamage.getStripTo() > scrollDamage.getStripFrom()) {
+                            left = Math.min(left, scrollDamage.getStripFrom() - origin);
+                        }
+                        dirtyRect.set((int) Math.max(0, left), 0, width, height);
+                        tempCanvas = holder.lockCanvas(dirtyRect);
+                    }
+                    drawStartNanos = System.nanoTime();
+                    GraphStatsRecorder.record(stats.lockCanvasTime, lockStartNanos, drawStartNanos);
                     synchronized (holder) {
                         if (tempCanvas != null) {
-                            /*  Clean SurfaceView with plain canvas color   */
-                            tempCanvas.drawColor(canvasColor);
-
-                            //Draw time texts
-                            Set<Integer> keys = timeMap.keySet();
-                            for (int key : keys) {
-                                tempCanvas.drawText(timeMap.get(key), key, 20, timePaint);
-                            }
-                            /*  Draw sine waves, marker and needle  */
-                            tempCanvas.drawPath(tempPath, paint);
-                            if (markerPath != null) {
-                                tempCanvas.drawPath(markerPath, markerPaint);
+                            int ringWidth = backBuffer.getWidth();
+                            for (int x = 0; x < width; ) {
+                                int left = ScrollDamage.ringX(origin + x, ringWidth);
+                                int right = Math.min(ringWidth, left + width - x);
+                                sourceRect.set(left, 0, right, height);
+                                targetRect.set(x, 0, x + right - left, height);
+                                tempCanvas.drawBitmap(backBuffer, sourceRect, targetRect, null);
+                                x += right - left;
                             }
-                            if (needlePath != null) {
-                                tempCanvas.drawPath(needlePath, needlePaint);
+                            graphRenderer.drawFixed(tempCanvas, markerPaint, needlePaint);
+                        }
+                    }
+                } finally {
+                    if (tempCanvas != null) {
+                        unlockCanvasAndPost(tempCanvas, drawStartNanos);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Draw the laid out frame on SurfaceView canvas
+         */
+        private void renderAmplitude(CanvasGraphRenderer renderer, GraphSeries[] frameSeries) {
+            Canvas tempCanvas = null;
+            if (holder.getSurface().isValid()) {//SurfaceView available
+                long drawStartNanos = 0;
+                try {
+                    long lockStartNanos = System.nanoTime();
+                    tempCanvas = holder.lockCanvas();
+                    drawStartNanos = System.nanoTime();
+                    GraphStatsRecorder.record(stats.lockCanvasTime, lockStartNanos, drawStartNanos);
+                    synchronized (holder) {
+                        if (tempCanvas != null) {
+                            renderer.draw(tempCanvas, canvasColor, paint, timePaint, markerPaint, needlePaint);
+                            for (GraphSeries item : frameSeries) {
+                                if (item.isVisible() && item.getSamples() != null) {
+                                    item.renderer.drawOverlay(tempCanvas, item.paint, item.needlePaint);
+                                }
                             }
                         }
                     }
                 } finally {
                     if (tempCanvas != null) {
-                        holder.unlockCanvasAndPost(tempCanvas);
+                        unlockCanvasAndPost(tempCanvas, drawStartNanos);
                     }
                 }
             }
-            try {
-                /*  Sleep the thread to reduce CPU usage and avoid same wave redrawn    */
-                Thread.sleep(sleepTime);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+        }
+
+        /**
+         * Post the canvas and record draw and post time
+         */
+        private void unlockCanvasAndPost(Canvas canvas, long drawStartNanos) {
+            long postStartNanos = System.nanoTime();
+            GraphStatsRecorder.record(stats.drawTime, drawStartNanos, postStartNanos);
+            holder.unlockCanvasAndPost(canvas);
+            GraphStatsRecorder.record(stats.postTime, postStartNanos, System.nanoTime());
+        }
+
+        /**
+         * Hand a stats snapshot to the listener on main thread about once per second
+         */
+        private void publishStats(long nowNanos) {
+            final GraphStatsListener listener = statsListener;
+            if (listener == null || nowNanos - lastStatsNanos < STATS_INTERVAL_NANOS) {
+                return;
             }
+            lastStatsNanos = nowNanos;
+            final GraphStats snapshot = getStats();
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onStats(snapshot);
+                }
+            });
+        }
+
+        /**
+         * Snapshot of render and ingestion statistics
+         */
+        public GraphStats getStats() {
+            SampleSource samples = pointList;
+            return stats.snapshot(samples == null ? 0 : samples.size(), System.nanoTime());
         }
 
         @Override
@@ -502,9 +1014,7 @@ public class GraphView extends HorizontalScrollView {
             /*  Configure width for current mode  */
             this.setLayoutParams(new LayoutParams(GraphView.this.getWidth(), GraphView.this.getHeight()));
             /*  Continue plotting on app switches between foreground and background  */
-            if (isRunning && !_plottingThread.isAlive()) {
-                startPlotting();
-            }
+            postLifecycle(PlottingLifecycle.SURFACE_READY);
         }
 
         @Override
@@ -521,10 +1031,10 @@ public class GraphView extends HorizontalScrollView {
         @Override
         public void surfaceDestroyed(SurfaceHolder surfaceHolder) {
             Log.d(TAG, "Destroyed");
-            //Stop the plotting if app goes to background
-            this.stop = true;
-            if (_plottingThread != null) {
-                _plottingThread.interrupt();
+            //Suspend the plotting if app goes to background, the surface must not be drawn on once this returns
+            postLifecycle(PlottingLifecycle.SURFACE_LOST);
+            if (!lifecycle.awaitApplied(SURFACE_LOST_TIMEOUT_MILLIS)) {
+                Log.w(TAG, "Plotting thread still rendering on destroyed surface");
             }
         }
 
@@ -532,6 +1042,8 @@ public class GraphView extends HorizontalScrollView {
          * Reset the surface view with plain canvas color and get current rendered dimensions
          */
         public void reset() {
+            tileCache.invalidate();
+            invalidateFrame();
             height = getHeight();
             halfHeight = height / (2);
             width = getWidth();
@@ -553,17 +1065,31 @@ public class GraphView extends HorizontalScrollView {
         }
 
         /**
-         * set master list that holds the samples
+         * set master source that holds the samples
          *
-         * @param list
+         * @param samples
          */
-        public void setMasterList(List<WaveSample> list) {
-            pointList = list;
+        public void setMasterList(SampleSource samples) {
+            SampleSource previous = pointList;
+            if (previous != samples) {
+                tileCache.invalidate();
+                invalidateFrame();
+                if (previous instanceof ObservableSampleSource) {
+                    ((ObservableSampleSource) previous).removeSampleListener(sampleListener);
+                }
+                if (samples instanceof ObservableSampleSource) {
+                    ((ObservableSampleSource) samples).addSampleListener(sampleListener);
+                }
+            }
+            pointList = samples;
+            if (previous != samples) {
+                framePacer.wakeUp(GraphStats.WAKE_UP_SAMPLES);
+            }
         }
 
         /**
-         * Calculate no of pixels needed in x direction to display all available samples in the point list and set it as surface view's width
-         * Will trigger surface change after new dimensions
+         * Stop plotting and draw the whole point list scrollable at the current zoom.
+         * Content width in x direction is taken from the sample count and zoom on every full graph frame
          */
         public void showFullGraph() {
             if (pointList == null) {
@@ -574,110 +1100,545 @@ public class GraphView extends HorizontalScrollView {
             }
             drawFullGraph = true;
             reset();
-            this.stop = true;
-            isRunning = false;
-            if (_plottingThread != null) {
-                _plottingThread.interrupt();
-            }
-            widthForFullGraph = pointList.size() * waveLength + 50;
+            postLifecycle(PlottingLifecycle.STOP);
             drawFullGraph();
         }
 
 
         /**
-         * Same as processAmplitude function
+         * Zoom full graph to show all samples in view width
+         */
+        public void fitFullGraph() {
+            int sampleCount = pointList == null ? 0 : pointList.size();
+            if (sampleCount == 0 || width == 0) {
+                return;
+            }
+            zoomScale = FullGraphZoom.rasterScale(FullGraphZoom.clamp((float) sampleCount / width, sampleCount, width));
+            move = 0;
+            if (drawFullGraph) {
+                drawFullGraph();
+            }
+        }
+
+        /**
+         * @return full graph scale shown in samples per px
+         */
+        public float getZoomScale() {
+            float scale = zoomScale;
+            return scale > 0 ? scale : rasterScale();
+        }
+
+        /**
+         * Zoom full graph to a scale, clamped to the samples and view width once both are known
+         */
+        public void setZoomScale(float scale) {
+            if (scale <= 0) {
+                return;
+            }
+            int sampleCount = pointList == null ? 0 : pointList.size();
+            if (sampleCount > 0 && width > 0) {
+                scale = FullGraphZoom.clamp(scale, sampleCount, width);
+            } else {
+                scale = Math.max(1f / FullGraphZoom.MAX_WAVE_LENGTH, scale);
+            }
+            zoomScale = scale;
+            zoomFocusX = 0;
+            if (drawFullGraph) {
+                drawFullGraph();
+            }
+        }
+
+        /**
+         * Zoom full graph keeping the sample under a focus point under the focus
+         *
+         * @param factor     above 1 zooms in
+         * @param fromFocusX focus x in view px before the zoom
+         * @param toFocusX   focus x in view px after the zoom
+         */
+        public void zoom(float factor, float fromFocusX, float toFocusX) {
+            int sampleCount = pointList == null ? 0 : pointList.size();
+            if (sampleCount == 0 || width == 0 || factor <= 0) {
+                return;
+            }
+            float current = getZoomScale();
+            float next = FullGraphZoom.clamp(current / factor, sampleCount, width);
+            move = FullGraphZoom.anchor(move, fromFocusX, toFocusX, current, next);
+            zoomFocusX = toFocusX;
+            zoomScale = next;
+            if (drawFullGraph) {
+                drawFullGraph();
+            }
+        }
+
+        /**
+         * @return samples per px full graph tiles are rasterized at
+         */
+        private float rasterScale() {
+            float scale = samplesPerPixel;
+            return scale >= 1 ? scale : 1f / waveLength;
+        }
+
+        /**
+         * Pick the scale tiles are rasterized at for the shown zoom, only called by the full graph worker.
+         * While zooming, cached tiles are stretched as long as they stay sharp and fit in the tile cache, otherwise
+         * tiles are rasterized at the nearest raster scale. Once zooming ends the shown scale snaps to the raster scale
+         *
+         * @return samples per px shown by this frame
+         */
+        private float applyZoom() {
+            float raster = rasterScale();
+            float shown = zoomScale;
+            if (shown <= 0) {
+                return raster;
+            }
+            float target = FullGraphZoom.rasterScale(shown);
+            if (target != raster && (!zooming || !FullGraphZoom.canStretch(raster, shown)
+                    || stretchedTileCount(raster / shown) >= tileCache.getCapacity())) {
+                if (target >= 1) {
+                    samplesPerPixel = target;
+                } else {
+                    waveLength = FullGraphZoom.waveLength(target);
+                    samplesPerPixel = 0;
+                }
+                tileCache.invalidate();
+                raster = target;
+            }
+            if (!zooming && shown != raster) {
+                float focusX = zoomFocusX;
+                move = FullGraphZoom.anchor(move, focusX, focusX, shown, raster);
+                zoomScale = raster;
+                shown = raster;
+            }
+            return shown;
+        }
+
+        /**
+         * @return no of tiles covering the view when tiles are stretched by a factor
+         */
+        private int stretchedTileCount(float stretch) {
+            return (int) (width / stretch) / FullGraphTileCache.TILE_WIDTH + 2;
+        }
+
+        private void configureFullGraphLayout() {
+            fullGraphLayout.configure(waveLength, samplesPerPixel, timeScale, halfHeight, tileMaxAmplitude, timeMarkerSize * 2);
+        }
+
+        public void setAutoGain(long windowMillis) {
+            autoGainWindow = Math.max(0, windowMillis);
+            requestRedraw();
+        }
+
+        /**
+         * Amplitude mapped to half height in the next realtime frame, only called by the plotting thread
+         */
+        private int realtimeMaxAmplitude(int sampleCount, long frameTimeNanos) {
+            long window = autoGainWindow;
+            if (window <= 0) {
+                return maxAmplitude;
+            }
+            if (autoGain.getWindow() != window) {
+                autoGain.setWindow(window);
+            }
+            return autoGain.update(realtimeSamples, sampleCount, Math.max(1, maxAmplitude / MAX_AUTO_GAIN), frameTimeNanos);
+        }
+
+        /**
+         * Amplitude mapped to half height in full graph tiles, with auto gain the loudest sample of the whole
+         * recording read from the waveform pyramid instead of scanning the samples
+         */
+        private int fullGraphMaxAmplitude(int sampleCount) {
+            if (autoGainWindow <= 0 || sampleCount == 0) {
+                return maxAmplitude;
+            }
+            WaveformPyramid pyramid = fullGraphLayout.pyramid;
+            pyramid.update(fullGraphSamples, sampleCount);
+            pyramid.reduce(fullGraphSamples, 0, sampleCount, fullGraphPeak);
+            int peak = Math.max(fullGraphPeak.max, -fullGraphPeak.min);
+            return Math.max(Math.max(1, maxAmplitude / MAX_AUTO_GAIN), Math.round(peak * AutoGain.HEADROOM));
+        }
+
+        /**
+         * Request a full graph frame for current scroll position.
+         * Requests are coalesced on the full graph worker, only the newest position is drawn
          */
         private void drawFullGraph() {
-            new Thread(new Runnable() {
-                @Override
-                public void run() {
-                    deltaWidth = width - widthForFullGraph;
-                    if (move > 0) {
-                        move = 0;
-                    }
-                    if (deltaWidth < 0) {
-                        if (move < deltaWidth) {
-                            move = deltaWidth;
+            fullGraphExecutor.submit(fullGraphFrame);
+        }
+
+        public void setPolyline(boolean polyline) {
+            this.polyline = polyline;
+            graphRenderer.setPolyline(polyline);
+            fullGraphRenderer.setPolyline(polyline);
+            for (GraphSeries item : series) {
+                applyPolyline(item);
+            }
+            invalidateTiles();
+        }
+
+        public void applyPolyline(GraphSeries item) {
+            item.renderer.setPolyline(polyline);
+            item.fullGraphRenderer.setPolyline(polyline);
+        }
+
+        /**
+         * Redraw current realtime frame and full graph, e.g. after a series changed
+         */
+        public void requestRedraw() {
+            redrawRequested = true;
+            framePacer.wakeUp(GraphStats.WAKE_UP_REDRAW);
+            invalidateTiles();
+        }
+
+        /**
+         * Drop rasterized full graph tiles and redraw, called when anything drawn in them changes
+         */
+        public void invalidateTiles() {
+            tileCache.invalidate();
+            invalidateFrame();
+            if (drawFullGraph) {
+                drawFullGraph();
+            }
+        }
+
+        /**
+         * Redraw all of the next realtime frame instead of the strip of new samples, called when anything drawn in
+         * the back buffer changes
+         */
+        public void invalidateFrame() {
+            frameGeneration++;
+        }
+
+        public void setPartialRedraw(boolean partialRedraw) {
+            this.partialRedraw = partialRedraw;
+            invalidateFrame();
+        }
+
+        /**
+         * Same as processAmplitude function, always runs on the full graph worker.
+         * Full graph is drawn as fixed width tiles, scrolling only draws cached tiles at the new offset
+         * and rasterizes newly exposed ones
+         */
+        private final Runnable fullGraphFrame = new Runnable() {
+            @Override
+            public void run() {
+                long readToken = sourceRetirement.enter();
+                try {
+                    fullGraphSamples = pointList;
+                    renderFullGraphFrame();
+                } finally {
+                    sourceRetirement.exit(readToken);
+                }
+            }
+        };
+
+        private void renderFullGraphFrame() {
+            long buildStartNanos = System.nanoTime();
+            int sampleCount = fullGraphSamples.size();
+            //Tiles of the raster scale are stretched to the shown scale while zooming
+            float shownScale = applyZoom();
+            float stretch = rasterScale() / shownScale;
+            boolean pinchFrame = zooming;
+            widthForFullGraph = FullGraphZoom.contentWidth(sampleCount, shownScale);
+            deltaWidth = width - widthForFullGraph;
+            if (move > 0) {
+                move = 0;
+            }
+            if (deltaWidth < 0) {
+                if (move < deltaWidth) {
+                    move = deltaWidth;
+                }
+            } else {
+                move = 0;
+            }
+            int contentSampleCount = sampleCount;
+            for (GraphSeries item : series) {
+                SampleSource samples = item.getSamples();
+                contentSampleCount += samples == null ? 0 : samples.size();
+            }
+            int graphMaxAmplitude = fullGraphMaxAmplitude(sampleCount);
+            if (contentSampleCount != tileSampleCount || graphMaxAmplitude != tileMaxAmplitude) {//Samples or scale changed under last tile
+                tileSampleCount = contentSampleCount;
+                tileMaxAmplitude = graphMaxAmplitude;
+                tileCache.invalidate();
+            }
+            tileCache.validate(height);
+            configureFullGraphLayout();
+
+            //Rasterize missing tiles before locking the surface
+            int offset = (int) Math.abs(move);
+            float rasterOffset = offset / stretch;
+            int firstTile = (int) (rasterOffset / FullGraphTileCache.TILE_WIDTH);
+            int lastTile = (int) ((rasterOffset + width / stretch) / FullGraphTileCache.TILE_WIDTH);
+            int tileCount = lastTile - firstTile + 1;
+            if (visibleTiles.length < tileCount) {
+                visibleTiles = new Bitmap[tileCount];
+            }
+            //Visible tiles stay cached and out of the bitmap pool until they are drawn
+            tileCache.beginFrame(firstTile, lastTile, predictedTiles.length);
+            FlingTrajectory currentFling = fling;
+            int tileMisses = 0;
+            for (int tile = firstTile; tile <= lastTile; tile++) {
+                Bitmap bitmap = tileCache.get(tile);
+                if (bitmap == null) {
+                    bitmap = rasterizeTile(tile, sampleCount);
+                    tileCache.put(tile, bitmap);
+                    tileMisses++;
+                } else if (tileCache.takePrefetched(tile)) {
+                    stats.prefetchHit();
+                }
+                visibleTiles[tile - firstTile] = bitmap;
+            }
+            if (currentFling != null) {
+                stats.flingFrame(tileMisses);
+            }
+            if (pinchFrame) {
+                stats.zoomFrame(tileMisses);
+            }
+
+            GraphStatsRecorder.record(stats.buildTime, buildStartNanos, System.nanoTime());
+
+            Canvas tempCanvas = null;
+            if (holder.getSurface().isValid()) {
+                long drawStartNanos = 0;
+                try {
+                    long lockStartNanos = System.nanoTime();
+                    tempCanvas = holder.lockCanvas();
+                    drawStartNanos = System.nanoTime();
+                    GraphStatsRecorder.record(stats.lockCanvasTime, lockStartNanos, drawStartNanos);
+                    synchronized (holder) {
+                        if (tempCanvas != null) {
+                            tempCanvas.drawColor(canvasColor);
+                            tempCanvas.save();
+                            tempCanvas.scale(stretch, 1);
+                            for (int tile = firstTile; tile <= lastTile; tile++) {
+                                tempCanvas.drawBitmap(visibleTiles[tile - firstTile], tile * FullGraphTileCache.TILE_WIDTH - rasterOffset, 0, tilePaint);
+                            }
+                            tempCanvas.restore();
                         }
-                    } else {
-                        move = 0;
                     }
-                    int sampleNo;
-                    int x = 0;
-                    if (widthForFullGraph < width) {
-                        sampleNo = pointList.size();
-                    } else {
-                        sampleNo = (int) ((width + waveLength + Math.abs(move)) / waveLength);
-                    }
-                    if (sampleNo > pointList.size()) {
-                        sampleNo = pointList.size();
+                } finally {
+                    if (tempCanvas != null) {
+                        unlockCanvasAndPost(tempCanvas, drawStartNanos);
                     }
-                    HashMap<Integer, String> timeMap1 = new HashMap<>();
-                    Path tempPath1 = new Path();
-
-                    for (int i = (int) (Math.abs(move) / waveLength); i <= sampleNo - 1; i++) {
-                        if (i == 0) {
-                            timeMap1.put(x, "00:00");
-                        } else {
-                            long currentSampleTime = pointList.get(i).getTime();
-                            long lastSampleTime = pointList.get(i - 1).getTime();
-                            if (lastSampleTime % timeScale > currentSampleTime % timeScale) {
-                                timeMap1.put(x, formatTime(currentSampleTime));
-                            }
-                        }
+                }
+            }
+            for (int i = 0; i < tileCount; i++) {
+                visibleTiles[i] = null;
+            }
+            tileCache.endFrame();
+            GraphStatsRecorder.record(stats.frameTime, buildStartNanos, System.nanoTime());
+            stats.setRenderedSampleCount(sampleCount, System.nanoTime());
+            if (currentFling != null) {
+                prefetchTiles(currentFling, tileCount, sampleCount);
+            }
+            publishStats(System.nanoTime());
+        }
 
-                        int amplitude = (int) pointList.get(i).getAmplitude();
-                        amplitude = halfHeight * amplitude / maxAmplitude;
-                        if (amplitude > 0) {
-                            RectF oval = new RectF();
-                            oval.set(x, halfHeight - amplitude, x + (waveLength / 2), halfHeight + amplitude);
-                            tempPath1.addArc(oval, 180, 180);
-                            oval.set(x + (waveLength / 2), halfHeight - amplitude, x + (waveLength), halfHeight + amplitude);
-                            tempPath1.addArc(oval, 0, 180);
-                        } else {
-                            tempPath1.moveTo(x, halfHeight);
-                            tempPath1.lineTo(x + waveLength, halfHeight);
-                        }
+        /**
+         * Rasterize tiles the fling shows within {@link #PREFETCH_LOOKAHEAD_NANOS} while the worker would otherwise
+         * wait for the next frame. Stops as soon as the next frame is requested, and keeps room in the cache for the
+         * visible tiles so prefetching never evicts what is on screen
+         */
+        private void prefetchTiles(FlingTrajectory currentFling, int visibleCount, int sampleCount) {
+            int count = currentFling.predictTiles(System.nanoTime(), PREFETCH_LOOKAHEAD_NANOS, width,
+                    FullGraphTileCache.TILE_WIDTH, predictedTiles);
+            int budget = Math.min(count, tileCache.getFrameCapacity() - visibleCount);
+            int lastContentTile = (widthForFullGraph - 1) / FullGraphTileCache.TILE_WIDTH;
+            for (int i = 0; i < budget && !fullGraphExecutor.hasPending(); i++) {
+                int tile = predictedTiles[i];
+                if (tile < 0 || tile > lastContentTile || tileCache.get(tile) != null) {
+                    continue;
+                }
+                tileCache.putPrefetched(tile, rasterizeTile(tile, sampleCount));
+                stats.tilePrefetched();
+            }
+        }
 
-                        x = x + waveLength;
-                    }
-                    renderAmplitude(timeMap1, tempPath1, null, null);
+        /**
+         * Draw waves and time markers of one full graph tile into a tile bitmap
+         */
+        private Bitmap rasterizeTile(int tile, int sampleCount) {
+            Bitmap bitmap = tileCache.obtain();
+            tileCanvas.setBitmap(bitmap);
+            int from = tile * FullGraphTileCache.TILE_WIDTH;
+            fullGraphLayout.render(fullGraphSamples, sampleCount, from, from + FullGraphTileCache.TILE_WIDTH, fullGraphMarkers, fullGraphRenderer);
+            fullGraphRenderer.draw(tileCanvas, canvasColor, paint, timePaint, markerPaint, needlePaint);
+            for (GraphSeries item : series) {
+                SampleSource samples = item.getSamples();
+                if (item.isVisible() && samples != null) {
+                    item.fullGraphLayout.configure(waveLength, samplesPerPixel, timeScale, halfHeight,
+                            item.maxAmplitude(tileMaxAmplitude), timeMarkerSize * 2);
+                    item.fullGraphLayout.render(samples, samples.size(), from, from + FullGraphTileCache.TILE_WIDTH,
+                            fullGraphMarkers, item.fullGraphRenderer);
+                    item.fullGraphRenderer.drawOverlay(tileCanvas, item.paint, item.needlePaint);
                 }
-            }).start();
+            }
+            return bitmap;
         }
 
         /**
-         * Reset the flags and start drawing thread
+         * Reset the flags and start plotting, from the beginning if already plotting
          */
         public void startPlotting() {
             drawFullGraph = false;
             reset();
-            this.stop = false;
-            isRunning = true;
-            _plottingThread = new Thread(this);
-            _plottingThread.start();
+            postLifecycle(PlottingLifecycle.START);
         }
 
         /**
-         * Reset the flags and stop drawing thread
+         * Stop plotting, the plotting thread parks until plotting starts again
          */
         public void stopPlotting() {
-            this.stop = true;
-            isRunning = false;
-            if (_plottingThread != null) {
-                _plottingThread.interrupt();
+            postLifecycle(PlottingLifecycle.STOP);
+        }
+
+        /**
+         * Queue a lifecycle command for the plotting thread, start the thread if none is running and release it
+         * from waiting for a frame or wake-up so the command is applied before anything else is rendered
+         *
+         * @param command one of the commands of {@link PlottingLifecycle}
+         */
+        private void postLifecycle(int command) {
+            if (lifecycle.post(command)) {
+                new Thread(this, "GraphView plotting").start();
             }
+            framePacer.cancelFrame();
+            framePacer.wakeUp(GraphStats.WAKE_UP_REDRAW);
+        }
+
+        /**
+         * Wake up plotting thread parked while paused or idle
+         *
+         * @param cause one of the wake-up causes of {@link GraphStats}
+         */
+        public void wakeUp(int cause) {
+            framePacer.wakeUp(cause);
+        }
+
+        /**
+         * @return true if nothing changed since the last rendered frame
+         */
+        private boolean isSettled() {
+            return realtimeScroll.isSettled(waveLength) && !redrawRequested && pointList.size() == listMasterSize
+                    && (autoGainWindow <= 0 || autoGain.isSettled());
         }
 
+        /**
+         * Plotting thread, one at a time per view. Lives from the first start until the view is detached, applies
+         * lifecycle commands at the top of every loop and parks while stopped or without a surface
+         */
         @Override
         public void run() {
-            while (!this.stop) {
-                if (!pausePlotting) {
-                    processAmplitude();
+            framePacer.attach();
+            //Frame time of previous frame while frames are requested back to back, 0 after parking
+            long lastFrameNanos = 0;
+            long frameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+            while (true) {
+                //Wake-ups so far are covered by the checks below, later ones end the park
+                framePacer.clearWakeUps();
+                int lifecycleState = lifecycle.drain();
+                if (lifecycle.takeRestart()) {
+                    realtimeScroll.reset();
+                    lastFrameNanos = 0;
+                }
+                if (lifecycleState != PlottingLifecycle.PLOTTING) {
+                    plottingState.stop(System.nanoTime());
+                    //Nothing touches plotting state after a successful exit, a new thread may start right away
+                    if (lifecycleState == PlottingLifecycle.RELEASED && lifecycle.exitIfReleased()) {
+                        return;
+                    }
+                    //Park until the next lifecycle command
+                    framePacer.awaitWakeUp(0);
+                    lastFrameNanos = 0;
+                    continue;
+                }
+                int state = plottingState.update(pausePlotting, isSettled(), System.nanoTime());
+                if (state != PlottingState.RENDERING) {
+                    //No frames are requested while paused or idle. Park until resume or stop while paused, until a
+                    //sample arrives while idle, or look for one every IDLE_POLL_NANOS if the source can't tell
+                    long timeoutNanos = state == PlottingState.IDLE && !(pointList instanceof ObservableSampleSource)
+                            ? IDLE_POLL_NANOS : 0;
+                    int causes = framePacer.awaitWakeUp(timeoutNanos);
+                    if (!lifecycle.hasPending()) {
+                        stats.wokeUp(causes != 0 ? causes : GraphStats.WAKE_UP_POLL);
+                    }
+                    if (state == PlottingState.PAUSED) {
+                        realtimeScroll.reset();
+                    }
+                    lastFrameNanos = 0;
+                    continue;
                 }
+                framePacer.requestFrame();
+                //At most one frame in flight: the next one is only requested after this one is rendered
+                long frameTimeNanos = framePacer.awaitFrame();
+                if (frameTimeNanos == FramePacer.NO_FRAME || pausePlotting) {
+                    continue;
+                }
+                if (lastFrameNanos != 0) {
+                    //Count vsyncs passed between two back to back frames as dropped
+                    long interval = frameTimeNanos - lastFrameNanos;
+                    if (interval > 0 && interval < frameIntervalNanos) {
+                        frameIntervalNanos = interval;
+                    }
+                    long missed = (interval + frameIntervalNanos / 2) / frameIntervalNanos - 1;
+                    if (missed > 0) {
+                        stats.frameDropped(missed);
+                    }
+                }
+                lastFrameNanos = frameTimeNanos;
+                long readToken = sourceRetirement.enter();
+                try {
+                    realtimeSamples = pointList;
+                    renderRealtimeFrame(frameTimeNanos);
+                } finally {
+                    sourceRetirement.exit(readToken);
+                }
+                publishStats(System.nanoTime());
+            }
+        }
+
+        private void renderRealtimeFrame(long frameTimeNanos) {
+            //Snapshot sample count once, samples below it are safe to read while recording thread appends
+            int sampleCount = realtimeSamples.size();
+            //Render at most once per frame and only when a sample arrived or waves moved
+            boolean moved = realtimeScroll.update(realtimeSamples, sampleCount, frameTimeNanos, waveLength);
+            int scale = realtimeMaxAmplitude(sampleCount, frameTimeNanos);
+            boolean rescaled = scale != frameMaxAmplitude;
+            if (rescaled) {
+                //Waves already in the back buffer were drawn at the old scale
+                frameMaxAmplitude = scale;
+                invalidateFrame();
+            }
+            if (moved || redrawRequested || rescaled) {
+                redrawRequested = false;
+                listMasterSize = sampleCount;
+                processAmplitude(sampleCount, realtimeScroll.getRedrawCount());
+            } else {
+                stats.frameSkipped();
             }
         }
 
+        /**
+         * Switch away from a source and run an action once no frame reads it any more
+         *
+         * @param source     source to release, replaced by an empty one if plotted
+         * @param onReleased run on the thread of the last frame reading the source, or right away
+         */
+        public void releaseSource(SampleSource source, Runnable onReleased) {
+            if (pointList == source) {
+                setMasterList(new SampleStore());
+            }
+            sourceRetirement.retire(onReleased);
+        }
+
+        /**
+         * End plotting thread and stop full graph worker, a later surface or full graph request starts them again
+         */
+        public void release() {
+            postLifecycle(PlottingLifecycle.RELEASE);
+            fullGraphExecutor.stop();
+        }
+
         /**
          * Make surface view to fit it's width and height to the rendered horizontal scroll view
          */
@@ -685,20 +1646,4 @@ public class GraphView extends HorizontalScrollView {
             this.setLayoutParams(new LayoutParams(GraphView.this.getWidth(), GraphView.this.getHeight()));
         }
     }
-
-    /**
-     * Convert millisecond to mm:ss string
-     *
-     * @param currentSampleTime in millisecond
-     * @return formatted mm:ss string
-     */
-    private String formatTime(long currentSampleTime) {
-        int seconds = (int) (currentSampleTime / 1000) % 60;
-        int minutes = (int) (currentSampleTime / 60000);
-
-        return (minutes < 10 ? "0" + minutes : minutes) + ":" + (seconds < 10 ? "0" + seconds : seconds);
-    }
-
-
 }
-
@@ -0,0 +1,91 @@
+package com.anand.brose.graphviewlibrary;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.util.LruCache;
+
+/**
+ * LRU cache of time labels rendered once into small bitmaps, so drawing a label every frame is a blit instead of
+ * shaping and rasterizing its text again. Labels are keyed by their text, all bitmaps are dropped when color,
+ * size or typeface of the time paint change, e.g. after {@link GraphView#setTimeColor(int)}.
+ * Must be used from a single thread, each renderer owns its cache
+ */
+final class LabelBitmapCache {
+
+    static final int DEFAULT_MAX_LABELS = 64;
+    private static final int PADDING = 1;//Room for anti aliased glyph edges
+
+    private final LruCache<String, Bitmap> cache;
+    private final Canvas labelCanvas = new Canvas();
+    //Paint configuration the cached bitmaps were rendered with
+    private int color;
+    private float textSize = -1;
+    private Typeface typeface;
+    private float ascent;
+    private float descent;
+
+    LabelBitmapCache(int maxLabels) {
+        cache = new LruCache<String, Bitmap>(maxLabels) {
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                oldValue.recycle();
+            }
+        };
+    }
+
+    /**
+     * Drop cached labels if the paint changed since they were rendered, called once per frame before drawing labels
+     *
+     * @param paint time label paint
+     */
+    void validate(Paint paint) {
+        if (paint.getColor() != color || paint.getTextSize() != textSize || paint.getTypeface() != typeface) {
+            cache.evictAll();
+            color = paint.getColor();
+            textSize = paint.getTextSize();
+            typeface = paint.getTypeface();
+            ascent = paint.ascent();
+            descent = paint.descent();
+        }
+    }
+
+    /**
+     * Draw a label like {@link Canvas#drawText(String, float, float, Paint)} would, from its cached bitmap
+     *
+     * @param canvas   target canvas
+     * @param label    label text
+     * @param x        left of the text
+     * @param baseline y of the text baseline
+     * @param paint    time label paint passed to the last {@link #validate(Paint)}
+     */
+    void draw(Canvas canvas, String label, float x, float baseline, Paint paint) {
+        Bitmap bitmap = cache.get(label);
+        if (bitmap == null) {
+            bitmap = render(label, paint);
+            if (bitmap == null) {
+                canvas.drawText(label, x, baseline, paint);
+                return;
+            }
+            cache.put(label, bitmap);
+        }
+        canvas.drawBitmap(bitmap, x - PADDING, baseline + ascent - PADDING, null);
+    }
+
+    /**
+     * @return label rendered with its baseline at {@link #PADDING} - ascent, null if it has no size
+     */
+    private Bitmap render(String label, Paint paint) {
+        int width = (int) Math.ceil(paint.measureText(label)) + 2 * PADDING;
+        int height = (int) Math.ceil(descent - ascent) + 2 * PADDING;
+        if (width <= 2 * PADDING || height <= 2 * PADDING) {
+            return null;
+        }
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        labelCanvas.setBitmap(bitmap);
+        labelCanvas.drawText(label, PADDING, PADDING - ascent, paint);
+        labelCanvas.setBitmap(null);
+        return bitmap;
+    }
+}
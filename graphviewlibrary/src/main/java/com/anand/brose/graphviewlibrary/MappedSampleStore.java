@@ -0,0 +1,269 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File backed sample store for long recordings, used as data source for {@link GraphView}.
+ * Samples are appended as fixed width binary records (8 byte time, 4 byte amplitude) to a file and read back
+ * through memory mapped segments, so heap use stays near constant no matter how long the recording is.
+ * The OS pages the file in and out as the graph is scrolled
+ * <p>
+ * File layout is a 16 byte header (magic, record size, sample count) followed by the records, little endian.
+ * Sample count in the header is updated on each append, a file left behind by a killed process can be
+ * reopened with {@link #open(File)} with every sample appended before the kill.
+ * The file is grown one segment at a time, so it may be longer than its samples
+ * <p>
+ * Like {@link SampleStore} this is a single producer append log: one thread may call {@link #add(long, int)}
+ * while any no of threads read it without locks
+ */
+public class MappedSampleStore implements ObservableSampleSource, SampleSink, Closeable {
+
+    public static final String FILE_EXTENSION = ".samples";
+    static final int MAGIC = 0x53534741;//"AGSS"
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 12;
+    private static final int COUNT_OFFSET = 8;
+    private static final int SEGMENT_SHIFT = 16;
+    static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;//65536 samples, 768 KB mapped per segment
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final long SEGMENT_BYTES = (long) SEGMENT_SIZE * RECORD_BYTES;
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final boolean readOnly;
+    private final MappedByteBuffer header;
+    //Only the segment directory is on heap, replaced as a whole when it grows
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[4];
+    //Written only by the producer thread
+    private int writeIndex;
+    //Ordered publication of writeIndex to readers
+    private final AtomicInteger publishedSize = new AtomicInteger();
+    private List<WaveSample> listView;
+    private final SampleListeners listeners = new SampleListeners();
+
+    private MappedSampleStore(File file, boolean create, boolean readOnly) throws IOException {
+        this.file = file;
+        this.readOnly = readOnly;
+        randomAccessFile = new RandomAccessFile(file, readOnly ? "r" : "rw");
+        boolean success = false;
+        try {
+            if (create) {
+                randomAccessFile.setLength(0);
+            }
+            channel = randomAccessFile.getChannel();
+            long length = channel.size();
+            if (length == 0 && !readOnly) {
+                header = map(0, HEADER_BYTES);
+                header.putInt(0, MAGIC);
+                header.putInt(4, RECORD_BYTES);
+                header.putLong(COUNT_OFFSET, 0);
+            } else {
+                if (length < HEADER_BYTES) {
+                    throw new IOException("Not a sample file: " + file);
+                }
+                header = map(0, HEADER_BYTES);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != RECORD_BYTES) {
+                    throw new IOException("Not a sample file: " + file);
+                }
+                //Trust the header only as far as the file really holds records
+                long count = Math.min(header.getLong(COUNT_OFFSET), (length - HEADER_BYTES) / RECORD_BYTES);
+                writeIndex = (int) Math.min(count, Integer.MAX_VALUE);
+                for (int segment = 0; (long) segment * SEGMENT_SIZE < writeIndex; segment++) {
+                    //Writable segments are mapped whole so appends continue in the last one
+                    mapSegment(segment, readOnly ? length : Long.MAX_VALUE);
+                }
+                publishedSize.set(writeIndex);
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                randomAccessFile.close();
+            }
+        }
+    }
+
+    /**
+     * Create an empty store, an existing file is truncated
+     *
+     * @param file sample file
+     * @return store ready for {@link #add(long, int)}
+     * @throws IOException if file can not be created or mapped
+     */
+    public static MappedSampleStore create(File file) throws IOException {
+        return new MappedSampleStore(file, true, false);
+    }
+
+    /**
+     * Open an existing sample file, new samples are appended after the stored ones
+     *
+     * @param file sample file
+     * @return store holding the samples of the file
+     * @throws IOException if file can not be read or is not a sample file
+     */
+    public static MappedSampleStore open(File file) throws IOException {
+        return new MappedSampleStore(file, false, false);
+    }
+
+    /**
+     * Open an existing sample file for plotting only
+     *
+     * @param file sample file
+     * @return read only store holding the samples of the file
+     * @throws IOException if file can not be read or is not a sample file
+     */
+    public static MappedSampleStore openReadOnly(File file) throws IOException {
+        return new MappedSampleStore(file, false, true);
+    }
+
+    /**
+     * Returns sample file kept next to an audio file, e.g. recorder.samples for recorder.mp3
+     *
+     * @param audioFilePath path of the recorded audio file
+     * @return sample file in the same directory
+     */
+    public static File fileFor(String audioFilePath) {
+        return WaveformFile.siblingFile(audioFilePath, FILE_EXTENSION);
+    }
+
+    /**
+     * Append a sample at the end of the store, must be called from a single producer thread
+     *
+     * @param time      in millisecond
+     * @param amplitude sample amplitude
+     * @throws IllegalStateException if the store is read only or the file can not grow
+     */
+    public void add(long time, int amplitude) {
+        if (readOnly) {
+            throw new IllegalStateException("Read only sample store");
+        }
+        int index = writeIndex;
+        int segment = index >>> SEGMENT_SHIFT;
+        MappedByteBuffer buffer = segment < segments.length ? segments[segment] : null;
+        if (buffer == null) {
+            try {
+                buffer = mapSegment(segment, Long.MAX_VALUE);
+            } catch (IOException e) {
+                throw new IllegalStateException("Can not grow sample file " + file, e);
+            }
+        }
+        int offset = (index & SEGMENT_MASK) * RECORD_BYTES;
+        buffer.putLong(offset, time);
+        buffer.putInt(offset + 8, amplitude);
+        writeIndex = index + 1;
+        header.putLong(COUNT_OFFSET, writeIndex);
+        //Publish after the sample and segment directory writes, readers never see a half written sample
+        publishedSize.lazySet(writeIndex);
+        listeners.notifyChanged(this);
+    }
+
+    @Override
+    public void addSampleListener(SampleListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeSampleListener(SampleListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public int size() {
+        return publishedSize.get();
+    }
+
+    @Override
+    public long getTime(int index) {
+        checkIndex(index);
+        return segments[index >>> SEGMENT_SHIFT].getLong((index & SEGMENT_MASK) * RECORD_BYTES);
+    }
+
+    @Override
+    public int getAmplitude(int index) {
+        checkIndex(index);
+        return segments[index >>> SEGMENT_SHIFT].getInt((index & SEGMENT_MASK) * RECORD_BYTES + 8);
+    }
+
+    /**
+     * @return file holding the samples
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Write appended samples through to storage, mapped pages are otherwise written back by the OS at its own pace
+     */
+    public void flush() {
+        if (readOnly) {
+            return;
+        }
+        MappedByteBuffer[] mapped = segments;
+        for (int i = 0; i < mapped.length && mapped[i] != null; i++) {
+            mapped[i].force();
+        }
+        header.force();
+    }
+
+    /**
+     * Returns a read only {@link WaveSample} list backed by this store
+     *
+     * @return list view of the store
+     */
+    public List<WaveSample> asList() {
+        if (listView == null) {
+            listView = new SampleSourceList(this);
+        }
+        return listView;
+    }
+
+    /**
+     * Flush and close the file, store must not be plotted after this, see
+     * {@link GraphView#releaseSource(SampleSource, Runnable)}
+     *
+     * @throws IOException if file can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        publishedSize.set(0);
+        flush();
+        randomAccessFile.close();
+    }
+
+    private MappedByteBuffer mapSegment(int segment, long length) throws IOException {
+        long position = HEADER_BYTES + segment * SEGMENT_BYTES;
+        MappedByteBuffer buffer = map(position, Math.min(SEGMENT_BYTES, length - position));
+        MappedByteBuffer[] mapped = segments;
+        if (segment >= mapped.length) {
+            MappedByteBuffer[] grown = new MappedByteBuffer[Math.max(segment + 1, mapped.length * 2)];
+            System.arraycopy(mapped, 0, grown, 0, mapped.length);
+            mapped = grown;
+        }
+        mapped[segment] = buffer;
+        segments = mapped;
+        return buffer;
+    }
+
+    private MappedByteBuffer map(long position, long size) throws IOException {
+        //Read write mapping grows the file up to position + size
+        MappedByteBuffer buffer = channel.map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE,
+                position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private void checkIndex(int index) {
+        int size = publishedSize.get();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * {@link SampleSource} telling listeners when samples are appended or cleared.
+ * {@link GraphView} parks its plotting thread on such a source until a sample arrives instead of polling its size
+ */
+public interface ObservableSampleSource extends SampleSource {
+
+    /**
+     * @param listener called on every append or clear, adding the same listener twice has no effect
+     */
+    void addSampleListener(SampleListener listener);
+
+    /**
+     * @param listener listener added before
+     */
+    void removeSampleListener(SampleListener listener);
+}
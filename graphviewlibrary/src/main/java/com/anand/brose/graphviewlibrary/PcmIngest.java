@@ -0,0 +1,98 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.io.IOException;
+
+/**
+ * Reads raw PCM blocks from a {@link PcmSource} and reduces them to amplitude samples at a fixed rate,
+ * e.g. 50 - 200 per second, appended to a {@link SampleSink} plotted by {@link GraphView}.
+ * Unlike polling MediaRecorder.getMaxAmplitude() from a sleeping thread every sample covers its whole block,
+ * so short transients are not missed, and sample times come from the audio frame count without timer jitter.
+ * The read buffer is reused, nothing is allocated per block
+ * <pre>
+ * PcmIngest ingest = new PcmIngest(new AudioRecordSource(44100), store, 100);
+ * new Thread(ingest).start();
+ * ....
+ * ingest.stop();
+ * </pre>
+ */
+public class PcmIngest implements Runnable {
+
+    public static final int REDUCE_PEAK = 0;
+    public static final int REDUCE_RMS = 1;
+    public static final int DEFAULT_SAMPLES_PER_SECOND = 50;
+
+    private final PcmSource source;
+    private final PcmReducer reducer;
+    private final short[] buffer;
+    private volatile PcmSink pcmSink;
+    private volatile boolean stopped = false;
+
+    /**
+     * @param source           PCM to read, not closed by the ingest
+     * @param sink             receives reduced samples, time in millisecond from the first frame
+     * @param samplesPerSecond samples emitted per second, between 1 and the sample rate of source
+     */
+    public PcmIngest(PcmSource source, SampleSink sink, int samplesPerSecond) {
+        this.source = source;
+        int sampleRate = source.getSampleRate();
+        int channelCount = source.getChannelCount();
+        reducer = new PcmReducer(sink, sampleRate, channelCount, samplesPerSecond);
+        //One block per read keeps latency at one sample interval
+        int framesPerBlock = (sampleRate + samplesPerSecond - 1) / samplesPerSecond;
+        buffer = new short[framesPerBlock * channelCount];
+    }
+
+    /**
+     * @param reduction {@link #REDUCE_PEAK} (default) for the largest magnitude of each block, like
+     *                  MediaRecorder.getMaxAmplitude(), or {@link #REDUCE_RMS} for its loudness
+     */
+    public void setReduction(int reduction) {
+        reducer.setRms(reduction == REDUCE_RMS);
+    }
+
+    /**
+     * @param pcmSink receives every PCM block before it is reduced, e.g. a {@link WavFileWriter}, null for none
+     */
+    public void setPcmSink(PcmSink pcmSink) {
+        this.pcmSink = pcmSink;
+    }
+
+    /**
+     * Read and reduce until the source ends or {@link #stop()} is called, e.g. on a recording thread
+     */
+    @Override
+    public void run() {
+        try {
+            ingest();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Read and reduce until the source ends or {@link #stop()} is called
+     *
+     * @throws IOException if the source can not be read or the PCM sink can not be written
+     */
+    public void ingest() throws IOException {
+        while (!stopped) {
+            int count = source.read(buffer, 0, buffer.length);
+            if (count < 0) {
+                reducer.finish();
+                return;
+            }
+            PcmSink tap = pcmSink;
+            if (tap != null) {
+                tap.write(buffer, 0, count);
+            }
+            reducer.reduce(buffer, 0, count);
+        }
+    }
+
+    /**
+     * Stop reading after the block in progress, may be called from any thread
+     */
+    public void stop() {
+        stopped = true;
+    }
+}
@@ -0,0 +1,151 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Reduces a stream of interleaved 16 bit PCM to one peak or RMS amplitude per block, emitted at a fixed rate.
+ * Block boundaries are placed at exact fractions of the sample rate, so e.g. 44100 Hz at 200 per second alternates
+ * 220 and 221 frame blocks and sample times never drift. Times are derived from the frame count, not a clock.
+ * Blocks may span any no of {@link #reduce(short[], int, int)} calls, nothing is allocated per call
+ */
+final class PcmReducer {
+
+    private final SampleSink sink;
+    private final int sampleRate;
+    private final int channelCount;
+    private final int outputRate;
+    private boolean rms = false;
+    //Samples (frames * channels) reduced since start
+    private long position = 0;
+    private long blockIndex = 0;
+    private long blockStart = 0;
+    private long blockEnd;
+    private int peak = 0;
+    private long sumOfSquares = 0;
+
+    /**
+     * @param sink         receives one sample per block
+     * @param sampleRate   frames per second of the PCM
+     * @param channelCount interleaved channels per frame, a block is reduced over all of them
+     * @param outputRate   samples emitted per second
+     */
+    PcmReducer(SampleSink sink, int sampleRate, int channelCount, int outputRate) {
+        this(sink, sampleRate, channelCount, outputRate, 0);
+    }
+
+    /**
+     * Reducer starting at a block boundary inside the stream, e.g. one chunk of a file reduced in parallel.
+     * Blocks and times are the same as those of a reducer fed the whole stream
+     *
+     * @param firstBlock index of the first block, the first sample reduced is {@link #blockStart(long)} of it
+     */
+    PcmReducer(SampleSink sink, int sampleRate, int channelCount, int outputRate, long firstBlock) {
+        if (sampleRate < 1 || channelCount < 1) {
+            throw new IllegalArgumentException("Invalid format " + channelCount + " channels at " + sampleRate + " Hz");
+        }
+        if (outputRate < 1 || outputRate > sampleRate) {
+            throw new IllegalArgumentException("Output rate must be between 1 and " + sampleRate + ": " + outputRate);
+        }
+        this.sink = sink;
+        this.sampleRate = sampleRate;
+        this.channelCount = channelCount;
+        this.outputRate = outputRate;
+        blockIndex = firstBlock;
+        blockStart = boundary(firstBlock);
+        position = blockStart;
+        blockEnd = boundary(firstBlock + 1);
+    }
+
+    /**
+     * @param rms true to emit root mean square of each block, false for its peak
+     */
+    void setRms(boolean rms) {
+        this.rms = rms;
+    }
+
+    /**
+     * @return samples (frames * channels) at the end of block k, counted from start
+     */
+    private long boundary(long k) {
+        return k * sampleRate / outputRate * channelCount;
+    }
+
+    /**
+     * @return first frame of a block
+     */
+    long blockStart(long block) {
+        return block * sampleRate / outputRate;
+    }
+
+    /**
+     * Reduce the next samples, emitting every block completed by them
+     */
+    void reduce(short[] buffer, int offset, int length) {
+        int end = offset + length;
+        while (offset < end) {
+            int count = (int) Math.min(end - offset, blockEnd - position);
+            if (rms) {
+                sumOfSquares += sumOfSquares(buffer, offset, count);
+            } else {
+                peak = Math.max(peak, peak(buffer, offset, count));
+            }
+            offset += count;
+            position += count;
+            if (position == blockEnd) {
+                emit();
+                blockIndex++;
+                blockStart = blockEnd;
+                blockEnd = boundary(blockIndex + 1);
+            }
+        }
+    }
+
+    /**
+     * Emit the partially filled last block, e.g. at the end of a file
+     */
+    void finish() {
+        if (position > blockStart) {
+            emit();
+            blockStart = position;
+        }
+    }
+
+    private void emit() {
+        int amplitude;
+        if (rms) {
+            amplitude = (int) Math.round(Math.sqrt((double) sumOfSquares / (position - blockStart)));
+        } else {
+            amplitude = peak;
+        }
+        //Rounded to the nearest millisecond, so blocks of a fractional frame length keep exact times on average
+        sink.add((position / channelCount * 1000 + sampleRate / 2) / sampleRate, amplitude);
+        peak = 0;
+        sumOfSquares = 0;
+    }
+
+    /**
+     * Max and min as separate branch free reductions, which the JIT can vectorize, instead of abs per sample
+     *
+     * @return largest magnitude in the range, 32768 for a full scale negative sample
+     */
+    static int peak(short[] buffer, int offset, int length) {
+        int max = 0;
+        int min = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int sample = buffer[i];
+            max = Math.max(max, sample);
+            min = Math.min(min, sample);
+        }
+        return Math.max(max, -min);
+    }
+
+    /**
+     * @return sum of squared samples in the range
+     */
+    static long sumOfSquares(short[] buffer, int offset, int length) {
+        long sum = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int sample = buffer[i];
+            sum += sample * sample;
+        }
+        return sum;
+    }
+}
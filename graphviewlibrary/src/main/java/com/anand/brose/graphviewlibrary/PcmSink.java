@@ -0,0 +1,18 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.io.IOException;
+
+/**
+ * Receives raw PCM blocks read by {@link PcmIngest} before they are reduced, e.g. {@link WavFileWriter} to keep
+ * the audio of a recording
+ */
+public interface PcmSink {
+
+    /**
+     * @param buffer samples, only valid during the call
+     * @param offset index of the first sample in buffer
+     * @param length no of samples
+     * @throws IOException if the samples can not be written
+     */
+    void write(short[] buffer, int offset, int length) throws IOException;
+}
@@ -0,0 +1,32 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Source of raw 16 bit PCM audio read by {@link PcmIngest}, e.g. {@link AudioRecordSource} on device or
+ * {@link WavFileSource} for tests and saved recordings. Multi channel audio is read interleaved
+ */
+public interface PcmSource extends Closeable {
+
+    /**
+     * @return frames per second
+     */
+    int getSampleRate();
+
+    /**
+     * @return no of interleaved channels per frame
+     */
+    int getChannelCount();
+
+    /**
+     * Read the next samples, blocks until some are available
+     *
+     * @param buffer receives the samples
+     * @param offset index of the first sample in buffer
+     * @param length max no of samples to read
+     * @return no of samples read, -1 at the end of the source
+     * @throws IOException if the source can not be read
+     */
+    int read(short[] buffer, int offset, int length) throws IOException;
+}
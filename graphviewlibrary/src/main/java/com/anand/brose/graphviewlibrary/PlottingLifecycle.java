@@ -0,0 +1,220 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Lifecycle of the single long-lived plotting thread of a graph view, driven by commands the UI thread posts.
+ * Commands are queued and applied by the plotting thread in order at the top of its loop, so a surface is only
+ * drawn on in {@link #PLOTTING} and a new thread is only asked for after the previous one returned true from
+ * {@link #exitIfReleased()}, two plotting threads never overlap.
+ * {@link #STOPPED}: plotting is not started, the thread parks until it is.
+ * {@link #SUSPENDED}: started without a surface, e.g. app in background, plotting resumes when the surface is back.
+ * {@link #PLOTTING}: started with a surface, frames are rendered.
+ * {@link #RELEASED}: view detached, the thread ends.
+ * The queue is bounded: when it is full commands are folded to the latest start or stop and the latest surface
+ * command, applying those gives the same state as applying all of them
+ */
+final class PlottingLifecycle {
+
+    static final int STOPPED = 0;
+    static final int SUSPENDED = 1;
+    static final int PLOTTING = 2;
+    static final int RELEASED = 3;
+
+    static final int START = 0;
+    static final int STOP = 1;
+    static final int SURFACE_READY = 2;
+    static final int SURFACE_LOST = 3;
+    static final int RELEASE = 4;
+
+    static final int MAX_PENDING = 8;
+
+    private final int[] pending = new int[MAX_PENDING];
+    private int head = 0;
+    private int size = 0;
+    //State after all posted commands, decides if a thread is needed
+    private boolean postedStarted = false;
+    private int postedSurface = SURFACE_LOST;
+    //State after commands applied by the plotting thread
+    private boolean started = false;
+    private int surface = SURFACE_LOST;
+    private boolean restarted = false;
+    //Applied state is PLOTTING, read without the lock on every appended sample
+    private volatile boolean plotting = false;
+    private boolean threadRunning = false;
+    private long postedCount = 0;
+    private long foldedCount = 0;
+
+    /**
+     * Queue a command for the plotting thread
+     *
+     * @param command one of {@link #START}, {@link #STOP}, {@link #SURFACE_READY}, {@link #SURFACE_LOST} or
+     *                {@link #RELEASE}
+     * @return true if no plotting thread is running and the caller must start one
+     */
+    synchronized boolean post(int command) {
+        if (command < START || command > RELEASE) {
+            throw new IllegalArgumentException("Unknown command " + command);
+        }
+        if (size == MAX_PENDING) {
+            fold();
+        }
+        pending[(head + size) % MAX_PENDING] = command;
+        size++;
+        postedCount++;
+        if (command == START || command == STOP) {
+            postedStarted = command == START;
+        } else {
+            postedSurface = command;
+        }
+        if (!threadRunning && postedStarted && postedSurface != RELEASE) {
+            threadRunning = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Keep the latest start or stop and the latest surface command in posting order. Starts folded away are
+     * covered by the kept command: either a start that restarts plotting too or a stop
+     */
+    private void fold() {
+        int lastStart = -1;
+        int lastSurface = -1;
+        for (int i = 0; i < size; i++) {
+            int command = pending[(head + i) % MAX_PENDING];
+            if (command == START || command == STOP) {
+                lastStart = i;
+            } else {
+                lastSurface = i;
+            }
+        }
+        int[] kept = new int[2];
+        int keptCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == lastStart || i == lastSurface) {
+                kept[keptCount++] = pending[(head + i) % MAX_PENDING];
+            }
+        }
+        foldedCount += size - keptCount;
+        head = 0;
+        size = keptCount;
+        System.arraycopy(kept, 0, pending, 0, keptCount);
+    }
+
+    /**
+     * Apply queued commands, called by the plotting thread at the top of its loop
+     *
+     * @return state after the commands
+     */
+    synchronized int drain() {
+        while (size > 0) {
+            int command = pending[head];
+            head = (head + 1) % MAX_PENDING;
+            size--;
+            if (command == START) {
+                started = true;
+                restarted = true;
+            } else if (command == STOP) {
+                started = false;
+            } else {
+                surface = command;
+            }
+        }
+        notifyAll();
+        int state = getState();
+        plotting = state == PLOTTING;
+        return state;
+    }
+
+    /**
+     * @return true if the state applied by the plotting thread is {@link #PLOTTING}, does not lock
+     */
+    boolean isPlotting() {
+        return plotting;
+    }
+
+    /**
+     * @return true once after plotting was started since the last call, realtime state must start again
+     */
+    synchronized boolean takeRestart() {
+        boolean restart = restarted;
+        restarted = false;
+        return restart;
+    }
+
+    /**
+     * Called by the plotting thread as the last thing before it ends
+     *
+     * @return true if the thread must end, it is released and no command arrived since the last drain
+     */
+    synchronized boolean exitIfReleased() {
+        if (size > 0 || surface != RELEASE) {
+            return false;
+        }
+        threadRunning = false;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Wait until the plotting thread applied all queued commands or ended, e.g. so the surface is not drawn on
+     * after the UI thread returns from surface destroyed
+     *
+     * @param timeoutMillis max time to wait
+     * @return true if the commands were applied
+     */
+    synchronized boolean awaitApplied(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (size > 0 && threadRunning) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if commands wait for the plotting thread
+     */
+    synchronized boolean hasPending() {
+        return size > 0;
+    }
+
+    /**
+     * @return state after the commands applied so far
+     */
+    synchronized int getState() {
+        if (surface == RELEASE) {
+            return RELEASED;
+        }
+        if (!started) {
+            return STOPPED;
+        }
+        return surface == SURFACE_READY ? PLOTTING : SUSPENDED;
+    }
+
+    synchronized boolean isThreadRunning() {
+        return threadRunning;
+    }
+
+    synchronized int getPendingCount() {
+        return size;
+    }
+
+    synchronized long getPostedCount() {
+        return postedCount;
+    }
+
+    /**
+     * @return no of commands dropped by folding a full queue
+     */
+    synchronized long getFoldedCount() {
+        return foldedCount;
+    }
+}
@@ -0,0 +1,57 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Power state machine of the realtime plotting thread.
+ * {@link #RENDERING}: a frame is requested every vsync while waves move, samples arrive or a redraw is requested.
+ * {@link #IDLE}: waves settled on the latest sample, the thread parks until a wake-up, e.g. an appended sample.
+ * {@link #PAUSED}: plotting is paused, the thread parks until resume or stop.
+ * {@link #STOPPED}: plotting is stopped, without a surface or the thread ended, see {@link PlottingLifecycle}.
+ * Time spent in each parked state is recorded in {@link GraphStatsRecorder}
+ */
+final class PlottingState {
+
+    static final int RENDERING = 0;
+    static final int IDLE = 1;
+    static final int PAUSED = 2;
+    static final int STOPPED = 3;
+
+    private final GraphStatsRecorder stats;
+    private int state = STOPPED;
+
+    PlottingState(GraphStatsRecorder stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Move to the state for current conditions
+     *
+     * @param paused   true if plotting is paused
+     * @param settled  true if nothing changed since the last rendered frame
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return new state
+     */
+    int update(boolean paused, boolean settled, long nowNanos) {
+        return moveTo(paused ? PAUSED : settled ? IDLE : RENDERING, nowNanos);
+    }
+
+    /**
+     * Move to {@link #STOPPED} when the thread stops plotting
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     */
+    void stop(long nowNanos) {
+        moveTo(STOPPED, nowNanos);
+    }
+
+    private int moveTo(int next, long nowNanos) {
+        if (next != state) {
+            state = next;
+            stats.setPlottingState(next, nowNanos);
+        }
+        return state;
+    }
+
+    int getState() {
+        return state;
+    }
+}
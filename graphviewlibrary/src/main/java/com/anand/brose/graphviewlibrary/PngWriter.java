@@ -0,0 +1,84 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Minimal PNG encoder for ARGB pixel buffers, 8 bit RGBA without row filters.
+ * Depends only on java.util.zip, so it works the same on a device and on a plain JVM
+ */
+public final class PngWriter {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int COLOR_TYPE_RGBA = 6;
+
+    private PngWriter() {
+    }
+
+    /**
+     * @param argb   pixels row by row, one ARGB int per px
+     * @param width  image width in px
+     * @param height image height in px
+     * @param out    receives the PNG file, not closed
+     * @throws IOException if out can not be written
+     */
+    public static void write(int[] argb, int width, int height, OutputStream out) throws IOException {
+        if (argb.length < width * height) {
+            throw new IllegalArgumentException("Buffer holds " + argb.length + " px, " + width + "x" + height + " needed");
+        }
+        out.write(SIGNATURE);
+
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8;//bit depth
+        header[9] = COLOR_TYPE_RGBA;
+        writeChunk(out, "IHDR", header, header.length);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(width * height);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        DeflaterOutputStream deflaterStream = new DeflaterOutputStream(compressed, deflater);
+        byte[] row = new byte[1 + width * 4];
+        for (int y = 0; y < height; y++) {
+            row[0] = 0;//filter none
+            int offset = y * width;
+            for (int x = 0, i = 1; x < width; x++) {
+                int pixel = argb[offset + x];
+                row[i++] = (byte) (pixel >> 16);
+                row[i++] = (byte) (pixel >> 8);
+                row[i++] = (byte) pixel;
+                row[i++] = (byte) (pixel >>> 24);
+            }
+            deflaterStream.write(row);
+        }
+        deflaterStream.finish();
+        deflater.end();
+        writeChunk(out, "IDAT", compressed.toByteArray(), compressed.size());
+        writeChunk(out, "IEND", new byte[0], 0);
+    }
+
+    private static void writeChunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes("US-ASCII");
+        byte[] number = new byte[4];
+        putInt(number, 0, length);
+        out.write(number);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        putInt(number, 0, (int) crc.getValue());
+        out.write(number);
+    }
+
+    private static void putInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+}
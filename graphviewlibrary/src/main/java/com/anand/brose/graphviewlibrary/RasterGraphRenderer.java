@@ -0,0 +1,241 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.util.Arrays;
+
+/**
+ * Pure Java {@link GraphRenderer} drawing straight into an int[] ARGB pixel buffer, one int per px, row by row.
+ * Draws the same primitives as the Android backend without anti aliasing: half ellipse arcs for waves, 1 px lines
+ * for peaks and needle, a blended band for the marker and time labels from a built in 5x7 digit font.
+ * Lets frames be rendered off device, e.g. thumbnails on a server or golden image tests.
+ * In polyline mode waves are drawn from the {@link WaveLines} half sine table instead of exact arcs
+ */
+final class RasterGraphRenderer implements GraphRenderer {
+
+    private static final int GLYPH_WIDTH = 5;
+    private static final int GLYPH_HEIGHT = 7;
+    //Rows of 5 bit glyphs for 0-9 and ':', most significant bit left
+    private static final int[][] GLYPHS = {
+            {0x0E, 0x11, 0x13, 0x15, 0x19, 0x11, 0x0E},
+            {0x04, 0x0C, 0x04, 0x04, 0x04, 0x04, 0x0E},
+            {0x0E, 0x11, 0x01, 0x02, 0x04, 0x08, 0x1F},
+            {0x1F, 0x02, 0x04, 0x02, 0x01, 0x11, 0x0E},
+            {0x02, 0x06, 0x0A, 0x12, 0x1F, 0x02, 0x02},
+            {0x1F, 0x10, 0x1E, 0x01, 0x01, 0x11, 0x0E},
+            {0x06, 0x08, 0x10, 0x1E, 0x11, 0x11, 0x0E},
+            {0x1F, 0x01, 0x02, 0x04, 0x08, 0x08, 0x08},
+            {0x0E, 0x11, 0x11, 0x0E, 0x11, 0x11, 0x0E},
+            {0x0E, 0x11, 0x11, 0x0F, 0x01, 0x02, 0x0C},
+            {0x00, 0x0C, 0x0C, 0x00, 0x0C, 0x0C, 0x00}
+    };
+
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    private int canvasColor = 0xFF000000;
+    private int graphColor = 0xFFFFFFFF;
+    private int markerColor = 0xA01E1E1E;
+    private int timeColor = 0xFFFAFAFA;
+    private int needleColor = 0xFFFA0000;
+    private int textScale = 2;
+    private final WaveLines lines = new WaveLines();
+    private boolean polyline = false;
+    private int halfHeight;
+    private int waveLength;
+
+    RasterGraphRenderer(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid size " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        pixels = new int[width * height];
+    }
+
+    void setColors(int canvasColor, int graphColor, int markerColor, int timeColor, int needleColor) {
+        this.canvasColor = canvasColor;
+        this.graphColor = graphColor;
+        this.markerColor = markerColor;
+        this.timeColor = timeColor;
+        this.needleColor = needleColor;
+    }
+
+    /**
+     * @param polyline true to draw waves as half sine line segments instead of arcs
+     */
+    void setPolyline(boolean polyline) {
+        this.polyline = polyline;
+    }
+
+    /**
+     * @param textSize time label height in px, font is scaled by whole multiples of its 7 px glyphs
+     */
+    void setTextSize(int textSize) {
+        textScale = Math.max(1, Math.round(textSize / (float) GLYPH_HEIGHT));
+    }
+
+    /**
+     * @return width of a label in px
+     */
+    int getTextWidth(String text) {
+        return text.length() * (GLYPH_WIDTH + 1) * textScale;
+    }
+
+    int[] getPixels() {
+        return pixels;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void begin(int halfHeight, int waveLength) {
+        this.halfHeight = halfHeight;
+        this.waveLength = waveLength;
+        Arrays.fill(pixels, canvasColor);
+    }
+
+    @Override
+    public void addWave(int x, int amplitude) {
+        if (polyline) {
+            lines.rewind(halfHeight, waveLength);
+            lines.addWave(x, amplitude);
+            float[] points = lines.getPoints();
+            for (int i = 0; i < lines.size(); i += 4) {
+                drawLine(Math.round(points[i]), Math.round(points[i + 1]), Math.round(points[i + 2]),
+                        Math.round(points[i + 3]), graphColor);
+            }
+        } else if (amplitude > 0) {
+            //Upper half ellipse over first half of the wave, lower half ellipse over second half
+            int half = waveLength / 2;
+            drawHalfEllipse(x, x + half, amplitude, -1);
+            drawHalfEllipse(x + half, x + waveLength, amplitude, 1);
+        } else {
+            drawLine(x, halfHeight, x + waveLength, halfHeight, graphColor);
+        }
+    }
+
+    @Override
+    public void addPeak(int x, int amplitude) {
+        drawLine(x, halfHeight - amplitude, x, halfHeight + amplitude, graphColor);
+    }
+
+    @Override
+    public void addTimeLabel(String label, int x) {
+        int top = TIME_LABEL_BASELINE - GLYPH_HEIGHT * textScale;
+        int advance = (GLYPH_WIDTH + 1) * textScale;
+        for (int c = 0; c < label.length(); c++) {
+            char ch = label.charAt(c);
+            int glyph = ch == ':' ? 10 : ch - '0';
+            if (glyph >= 0 && glyph < GLYPHS.length) {
+                drawGlyph(GLYPHS[glyph], x + c * advance, top);
+            }
+        }
+    }
+
+    @Override
+    public void addMarker(int x, int strokeWidth) {
+        int left = x - strokeWidth / 2;
+        fillRect(left, 0, left + strokeWidth, height, markerColor);
+    }
+
+    @Override
+    public void addNeedle(int fromX, int toX, int y) {
+        drawLine(fromX, y, toX, y, needleColor);
+    }
+
+    /**
+     * Half ellipse between x0 and x1 with radius ry in y, direction -1 above the center line and 1 below.
+     * Joins one point per column with lines, so steep ends stay connected
+     */
+    private void drawHalfEllipse(int x0, int x1, int ry, int direction) {
+        double rx = (x1 - x0) / 2.0;
+        double cx = x0 + rx;
+        int previousX = x0;
+        int previousY = halfHeight;
+        for (int px = x0 + 1; px <= x1; px++) {
+            double dx = rx == 0 ? 0 : (px - cx) / rx;
+            int y = halfHeight + direction * (int) Math.round(ry * Math.sqrt(Math.max(0, 1 - dx * dx)));
+            drawLine(previousX, previousY, px, y, graphColor);
+            previousX = px;
+            previousY = y;
+        }
+    }
+
+    private void drawGlyph(int[] rows, int left, int top) {
+        for (int row = 0; row < GLYPH_HEIGHT; row++) {
+            int bits = rows[row];
+            for (int column = 0; column < GLYPH_WIDTH; column++) {
+                if ((bits & (1 << (GLYPH_WIDTH - 1 - column))) != 0) {
+                    int x = left + column * textScale;
+                    int y = top + row * textScale;
+                    fillRect(x, y, x + textScale, y + textScale, timeColor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Bresenham line including both end points
+     */
+    private void drawLine(int x0, int y0, int x1, int y1, int color) {
+        int dx = Math.abs(x1 - x0);
+        int dy = -Math.abs(y1 - y0);
+        int stepX = x0 < x1 ? 1 : -1;
+        int stepY = y0 < y1 ? 1 : -1;
+        int error = dx + dy;
+        while (true) {
+            blend(x0, y0, color);
+            if (x0 == x1 && y0 == y1) {
+                return;
+            }
+            int error2 = 2 * error;
+            if (error2 >= dy) {
+                error += dy;
+                x0 += stepX;
+            }
+            if (error2 <= dx) {
+                error += dx;
+                y0 += stepY;
+            }
+        }
+    }
+
+    private void fillRect(int left, int top, int right, int bottom, int color) {
+        left = Math.max(0, left);
+        top = Math.max(0, top);
+        right = Math.min(width, right);
+        bottom = Math.min(height, bottom);
+        for (int y = top; y < bottom; y++) {
+            for (int x = left; x < right; x++) {
+                blend(x, y, color);
+            }
+        }
+    }
+
+    /**
+     * Source over blend of color on one px, px outside the buffer are clipped
+     */
+    private void blend(int x, int y, int color) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return;
+        }
+        int index = y * width + x;
+        int alpha = color >>> 24;
+        if (alpha == 0xFF) {
+            pixels[index] = color;
+            return;
+        }
+        int destination = pixels[index];
+        int inverse = 0xFF - alpha;
+        int r = (((color >> 16) & 0xFF) * alpha + ((destination >> 16) & 0xFF) * inverse) / 0xFF;
+        int g = (((color >> 8) & 0xFF) * alpha + ((destination >> 8) & 0xFF) * inverse) / 0xFF;
+        int b = ((color & 0xFF) * alpha + (destination & 0xFF) * inverse) / 0xFF;
+        int a = alpha + ((destination >>> 24) * inverse) / 0xFF;
+        pixels[index] = (a << 24) | (r << 16) | (g << 8) | b;
+    }
+}
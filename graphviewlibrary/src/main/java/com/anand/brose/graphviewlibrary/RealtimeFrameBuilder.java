@@ -0,0 +1,228 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Calculates time to x and amplitude to y mapping of the latest samples for a realtime frame.
+ * Builder state is reused across frames, so laying out a frame does not allocate once warmed up
+ */
+final class RealtimeFrameBuilder {
+
+    final TimeMarkers timeMarkers = new TimeMarkers();
+    private final TimeMarkerIndex markerIndex;
+    private boolean hasNeedle;
+    private int needleAmplitude;
+
+    RealtimeFrameBuilder(TimeLabels timeLabels) {
+        markerIndex = new TimeMarkerIndex(timeLabels);
+    }
+
+    /**
+     * Lay out last 'n' samples from startX towards 0 - waveLength.
+     * Each sample is passed to the sink as a wave with waveLength as width
+     *
+     * @param samples      source to read
+     * @param sampleCount  size snapshot of the source for this frame
+     * @param startX       x position of the latest sample
+     * @param waveLength   width of each wave in px
+     * @param redrawCount  px the waves are moved left since the latest sample arrived
+     * @param timeScale    time marker interval in millisecond
+     * @param halfHeight   half of the surface height in px
+     * @param maxAmplitude amplitude mapped to halfHeight
+     * @param sink         receives each wave
+     */
+    void build(SampleSource samples, int sampleCount, int startX, int waveLength, int redrawCount,
+               int timeScale, int halfHeight, int maxAmplitude, WaveSink sink) {
+        timeMarkers.clear();
+        hasNeedle = false;
+        int newest = sampleCount - 2;
+        if (startX >= -waveLength && newest >= 0) {
+            //Markers of the visible samples, newest first
+            markerIndex.update(samples, sampleCount, timeScale);
+            int oldest = Math.max(0, newest - (startX + waveLength) / waveLength);
+            int first = markerIndex.firstAtOrAfter(oldest);
+            for (int m = markerIndex.firstAtOrAfter(newest + 1) - 1; m >= first; m--) {
+                int x = startX - (newest - markerIndex.getSampleIndex(m)) * waveLength;
+                timeMarkers.add(x - redrawCount, markerIndex.getLabel(m));
+            }
+        }
+        int x = startX;
+        for (int i = newest; x >= 0 - waveLength; x = x - waveLength) {
+            if (i >= 0) {
+                /* Calculate no y pixels for sine wave magnitude from amplitude */
+                int amplitude = halfHeight * samples.getAmplitude(i) / maxAmplitude;
+                /*  If current sample is the latest then move needle to show current amplitude    */
+                if (x == startX) {
+                    hasNeedle = true;
+                    needleAmplitude = amplitude;
+                }
+                sink.addWave(x - redrawCount, amplitude);
+            }
+            i--;
+        }
+    }
+
+    /**
+     * Lay out only waves and time labels reaching into a strip of the frame laid out by
+     * {@link #build(SampleSource, int, int, int, int, int, int, int, WaveSink)}, at the same positions.
+     * Needle is always taken from the latest sample
+     *
+     * @param samples      source to read
+     * @param sampleCount  size snapshot of the source for this frame
+     * @param startX       x position of the latest sample
+     * @param waveLength   width of each wave in px
+     * @param redrawCount  px the waves are moved left since the latest sample arrived
+     * @param timeScale    time marker interval in millisecond
+     * @param halfHeight   half of the surface height in px
+     * @param maxAmplitude amplitude mapped to halfHeight
+     * @param fromX        first x of the strip
+     * @param toX          x after the strip, nothing is laid out if not above fromX
+     * @param labelWidth   room a time label takes right of its marker in px
+     * @param sink         receives each wave
+     */
+    void buildStrip(SampleSource samples, int sampleCount, int startX, int waveLength, int redrawCount,
+                    int timeScale, int halfHeight, int maxAmplitude, int fromX, int toX, int labelWidth, WaveSink sink) {
+        timeMarkers.clear();
+        hasNeedle = false;
+        int newest = sampleCount - 2;
+        if (newest < 0) {
+            return;
+        }
+        hasNeedle = true;
+        needleAmplitude = halfHeight * samples.getAmplitude(newest) / maxAmplitude;
+        if (toX <= fromX) {
+            return;
+        }
+        int newestX = startX - redrawCount;
+        //Waves left of toX, counted back from the newest
+        int skip = newestX >= toX ? (newestX - toX) / waveLength + 1 : 0;
+        int waveReach = newestX + waveLength - fromX;
+        int labelReach = newestX + labelWidth - fromX;
+        if (labelReach >= 0) {
+            markerIndex.update(samples, sampleCount, timeScale);
+            int oldest = Math.max(0, newest - labelReach / waveLength);
+            int first = markerIndex.firstAtOrAfter(oldest);
+            for (int m = markerIndex.firstAtOrAfter(newest - skip + 1) - 1; m >= first; m--) {
+                int x = newestX - (newest - markerIndex.getSampleIndex(m)) * waveLength;
+                timeMarkers.add(x, markerIndex.getLabel(m));
+            }
+        }
+        if (waveReach >= 0) {
+            int last = Math.min(newest, waveReach / waveLength);
+            for (int k = skip; k <= last; k++) {
+                int i = newest - k;
+                sink.addWave(newestX - k * waveLength, halfHeight * samples.getAmplitude(i) / maxAmplitude);
+            }
+        }
+    }
+
+    /**
+     * Lay out a complete realtime frame: waves, time labels, right side marker band and needle
+     *
+     * @param samples      source to read
+     * @param sampleCount  size snapshot of the source for this frame
+     * @param width        surface width in px
+     * @param height       surface height in px
+     * @param graphXOffset fraction of width where the latest sample is plotted
+     * @param waveLength   width of each wave in px
+     * @param redrawCount  px the waves are moved left since the latest sample arrived
+     * @param timeScale    time marker interval in millisecond
+     * @param maxAmplitude amplitude mapped to half of height
+     * @param renderer     drawing backend
+     */
+    void render(SampleSource samples, int sampleCount, int width, int height, double graphXOffset, int waveLength,
+                int redrawCount, int timeScale, int maxAmplitude, GraphRenderer renderer) {
+        int halfHeight = height / 2;
+        //Initialize start position for wave path
+        int x = (int) (width * graphXOffset);
+        renderer.begin(halfHeight, waveLength);
+        /*
+        Draw sine waves for last 'n' no of samples.
+        'n' is calculated from no x - direction pixels available in surface view from width * 3/4 to 0 - wavelength.
+        Each sample will be drawn as a sine wave with waveLength as width
+        */
+        build(samples, sampleCount, x, waveLength, redrawCount, timeScale, halfHeight, maxAmplitude, renderer);
+        for (int i = 0; i < timeMarkers.size(); i++) {
+            renderer.addTimeLabel(timeMarkers.getLabel(i), timeMarkers.getPosition(i));
+        }
+        renderer.addMarker(x + (width / 8), (int) (width - (width * graphXOffset)));
+        //Needle to show current amplitude
+        if (hasNeedle) {
+            renderer.addNeedle(x, width, halfHeight - needleAmplitude);
+        }
+    }
+
+    /**
+     * Lay out a strip of a realtime frame with the right side marker band and needle, see
+     * {@link #buildStrip(SampleSource, int, int, int, int, int, int, int, int, int, int, WaveSink)}
+     *
+     * @param samples      source to read
+     * @param sampleCount  size snapshot of the source for this frame
+     * @param width        surface width in px
+     * @param height       surface height in px
+     * @param graphXOffset fraction of width where the latest sample is plotted
+     * @param waveLength   width of each wave in px
+     * @param redrawCount  px the waves are moved left since the latest sample arrived
+     * @param timeScale    time marker interval in millisecond
+     * @param maxAmplitude amplitude mapped to half of height
+     * @param fromX        first x of the strip
+     * @param toX          x after the strip
+     * @param labelWidth   room a time label takes right of its marker in px
+     * @param renderer     drawing backend
+     */
+    void renderStrip(SampleSource samples, int sampleCount, int width, int height, double graphXOffset, int waveLength,
+                     int redrawCount, int timeScale, int maxAmplitude, int fromX, int toX, int labelWidth,
+                     GraphRenderer renderer) {
+        int halfHeight = height / 2;
+        int x = (int) (width * graphXOffset);
+        renderer.begin(halfHeight, waveLength);
+        buildStrip(samples, sampleCount, x, waveLength, redrawCount, timeScale, halfHeight, maxAmplitude, fromX, toX,
+                labelWidth, renderer);
+        for (int i = 0; i < timeMarkers.size(); i++) {
+            renderer.addTimeLabel(timeMarkers.getLabel(i), timeMarkers.getPosition(i));
+        }
+        renderer.addMarker(x + (width / 8), (int) (width - (width * graphXOffset)));
+        if (hasNeedle) {
+            renderer.addNeedle(x, width, halfHeight - needleAmplitude);
+        }
+    }
+
+    /**
+     * Lay out waves and optional needle of an additional series over a frame laid out by
+     * {@link #render(SampleSource, int, int, int, double, int, int, int, int, GraphRenderer)}, without labels and marker
+     *
+     * @param samples      source of the series
+     * @param sampleCount  size snapshot of the source for this frame
+     * @param width        surface width in px
+     * @param height       surface height in px
+     * @param graphXOffset fraction of width where the latest sample is plotted
+     * @param waveLength   width of each wave in px
+     * @param redrawCount  px the waves are moved left since the latest sample arrived
+     * @param timeScale    time marker interval in millisecond
+     * @param maxAmplitude amplitude of the series mapped to half of height
+     * @param needle       true to add a needle at the latest sample
+     * @param renderer     drawing backend of the series
+     */
+    void renderSeries(SampleSource samples, int sampleCount, int width, int height, double graphXOffset, int waveLength,
+                      int redrawCount, int timeScale, int maxAmplitude, boolean needle, GraphRenderer renderer) {
+        int halfHeight = height / 2;
+        int x = (int) (width * graphXOffset);
+        renderer.begin(halfHeight, waveLength);
+        build(samples, sampleCount, x, waveLength, redrawCount, timeScale, halfHeight, maxAmplitude, renderer);
+        if (needle && hasNeedle) {
+            renderer.addNeedle(x, width, halfHeight - needleAmplitude);
+        }
+    }
+
+    /**
+     * @return true if last built frame has a sample at the needle position
+     */
+    boolean hasNeedle() {
+        return hasNeedle;
+    }
+
+    /**
+     * @return amplitude in px of the sample at the needle position
+     */
+    int getNeedleAmplitude() {
+        return needleAmplitude;
+    }
+}
@@ -0,0 +1,76 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Moves realtime waves to the left between samples using frame time.
+ * The latest wave moves by waveLength over one sample interval, so the graph scrolls at sample rate
+ * independent of frame rate and settles once it moved a full wave without a new sample
+ */
+final class RealtimeScroll {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private int sampleCount = -1;
+    private long sampleFrameNanos;
+    private long sampleIntervalMillis;
+    private int redrawCount;
+    private int framesWithoutInterval;
+
+    /**
+     * Start over, next update always reports a change
+     */
+    void reset() {
+        sampleCount = -1;
+        redrawCount = 0;
+    }
+
+    /**
+     * Update scroll position for a frame
+     *
+     * @param samples        source being plotted
+     * @param sampleCount    size snapshot of the source for this frame
+     * @param frameTimeNanos frame time from {@link FrameScheduler}
+     * @param waveLength     width of each wave in px
+     * @return true if frame differs from the last one and has to be rendered
+     */
+    boolean update(SampleSource samples, int sampleCount, long frameTimeNanos, int waveLength) {
+        if (sampleCount != this.sampleCount) {//new sample found since last frame
+            this.sampleCount = sampleCount;
+            sampleFrameNanos = frameTimeNanos;
+            sampleIntervalMillis = sampleCount >= 2 ? samples.getTime(sampleCount - 1) - samples.getTime(sampleCount - 2) : 0;
+            framesWithoutInterval = 0;
+            redrawCount = 0;
+            return true;
+        }
+        if (redrawCount >= waveLength) {//Moved a full wave, nothing to redraw until next sample
+            redrawCount = waveLength;
+            return false;
+        }
+        int newRedrawCount;
+        if (sampleIntervalMillis > 0) {
+            long elapsedMillis = (frameTimeNanos - sampleFrameNanos) / NANOS_PER_MILLI;
+            newRedrawCount = (int) Math.min(waveLength, waveLength * elapsedMillis / sampleIntervalMillis);
+        } else {//Interval not known yet, move one px per frame
+            framesWithoutInterval++;
+            newRedrawCount = Math.min(waveLength, framesWithoutInterval);
+        }
+        if (newRedrawCount == redrawCount) {
+            return false;
+        }
+        redrawCount = newRedrawCount;
+        return true;
+    }
+
+    /**
+     * @return px the waves are moved left since the latest sample arrived
+     */
+    int getRedrawCount() {
+        return redrawCount;
+    }
+
+    /**
+     * @return true if waves moved a full wave length and wait for the next sample
+     */
+    boolean isSettled(int waveLength) {
+        return sampleCount >= 0 && redrawCount >= waveLength;
+    }
+}
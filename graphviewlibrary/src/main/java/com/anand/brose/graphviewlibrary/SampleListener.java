@@ -0,0 +1,13 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Receives size changes of an {@link ObservableSampleSource}.
+ * Called on the appending thread right after the new size is published, so it must return quickly and never block
+ */
+public interface SampleListener {
+
+    /**
+     * @param source source whose size changed
+     */
+    void onSamplesChanged(SampleSource source);
+}
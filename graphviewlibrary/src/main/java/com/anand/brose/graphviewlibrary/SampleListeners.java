@@ -0,0 +1,45 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Listener list of an {@link ObservableSampleSource}.
+ * The array is replaced as a whole on add and remove, notifying reads it once without locks or allocation
+ */
+final class SampleListeners {
+
+    private static final SampleListener[] EMPTY = new SampleListener[0];
+
+    private volatile SampleListener[] listeners = EMPTY;
+
+    synchronized void add(SampleListener listener) {
+        SampleListener[] current = listeners;
+        for (SampleListener item : current) {
+            if (item == listener) {
+                return;
+            }
+        }
+        SampleListener[] added = new SampleListener[current.length + 1];
+        System.arraycopy(current, 0, added, 0, current.length);
+        added[current.length] = listener;
+        listeners = added;
+    }
+
+    synchronized void remove(SampleListener listener) {
+        SampleListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                SampleListener[] removed = new SampleListener[current.length - 1];
+                System.arraycopy(current, 0, removed, 0, i);
+                System.arraycopy(current, i + 1, removed, i, current.length - i - 1);
+                listeners = removed;
+                return;
+            }
+        }
+    }
+
+    void notifyChanged(SampleSource source) {
+        SampleListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onSamplesChanged(source);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Write side of a sample series, implemented by the stores {@link GraphView} plots from.
+ * Samples are appended from a single producer thread, e.g. {@link PcmIngest}
+ */
+public interface SampleSink {
+
+    /**
+     * Append a sample at the end of the series
+     *
+     * @param time      in millisecond
+     * @param amplitude sample amplitude
+     */
+    void add(long time, int amplitude);
+}
@@ -0,0 +1,26 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Read side of a sample series plotted by {@link GraphView}.
+ * Samples are addressed by index, time in milliseconds is plotted in x and amplitude in y.
+ * Plotting thread reads {@link #size()} once per frame and only reads indices below it
+ */
+public interface SampleSource {
+
+    /**
+     * @return no of samples currently available
+     */
+    int size();
+
+    /**
+     * @param index sample index from 0 to {@link #size()} - 1
+     * @return sample time in millisecond
+     */
+    long getTime(int index);
+
+    /**
+     * @param index sample index from 0 to {@link #size()} - 1
+     * @return sample amplitude
+     */
+    int getAmplitude(int index);
+}
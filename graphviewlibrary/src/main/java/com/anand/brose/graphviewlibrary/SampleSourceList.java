@@ -0,0 +1,29 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.util.AbstractList;
+
+/**
+ * Read only {@link WaveSample} list view over a {@link SampleSource}, {@link WaveSample} objects are created only on get
+ */
+class SampleSourceList extends AbstractList<WaveSample> {
+
+    private final SampleSource source;
+
+    SampleSourceList(SampleSource source) {
+        this.source = source;
+    }
+
+    SampleSource getSource() {
+        return source;
+    }
+
+    @Override
+    public WaveSample get(int index) {
+        return new WaveSample(source.getTime(index), source.getAmplitude(index));
+    }
+
+    @Override
+    public int size() {
+        return source.size();
+    }
+}
@@ -0,0 +1,167 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Growable primitive sample store used as data source for {@link GraphView}.
+ * Time and amplitude are kept in parallel long[] and int[] columns split in fixed size chunks,
+ * so appending never copies already stored samples and no object is created per sample.
+ * Use {@link #asList()} where a {@link WaveSample} list is expected
+ * <p>
+ * The store is a single producer append log: one thread (e.g. recording thread) may call {@link #add(long, int)}
+ * while any no of threads (e.g. plotting thread) read it without locks. A sample is written before the size
+ * counter is published with an ordered store, so every index below a {@link #size()} read is fully visible.
+ * {@link SampleListener}s are told of each append on the producer thread after the size is published
+ */
+public class SampleStore implements ObservableSampleSource, SampleSink {
+
+    private static final int CHUNK_SHIFT = 12;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;//4096 samples per chunk
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private long[][] timeChunks = new long[4][];
+    private int[][] amplitudeChunks = new int[4][];
+    //Written only by the producer thread
+    private int writeIndex = 0;
+    //Ordered publication of writeIndex to readers
+    private final AtomicInteger publishedSize = new AtomicInteger();
+    private List<WaveSample> listView;
+    private final SampleListeners listeners = new SampleListeners();
+
+    public SampleStore() {
+    }
+
+    /**
+     * Append a sample at the end of the store, must be called from a single producer thread
+     *
+     * @param time      in millisecond
+     * @param amplitude sample amplitude
+     */
+    public void add(long time, int amplitude) {
+        int index = writeIndex;
+        int chunk = index >>> CHUNK_SHIFT;
+        if (chunk == timeChunks.length) {
+            //Only the chunk directory grows, chunks holding samples are never copied
+            long[][] newTimeChunks = new long[chunk * 2][];
+            int[][] newAmplitudeChunks = new int[chunk * 2][];
+            System.arraycopy(timeChunks, 0, newTimeChunks, 0, chunk);
+            System.arraycopy(amplitudeChunks, 0, newAmplitudeChunks, 0, chunk);
+            timeChunks = newTimeChunks;
+            amplitudeChunks = newAmplitudeChunks;
+        }
+        if (timeChunks[chunk] == null) {
+            timeChunks[chunk] = new long[CHUNK_SIZE];
+            amplitudeChunks[chunk] = new int[CHUNK_SIZE];
+        }
+        timeChunks[chunk][index & CHUNK_MASK] = time;
+        amplitudeChunks[chunk][index & CHUNK_MASK] = amplitude;
+        writeIndex = index + 1;
+        //Publish after the sample and chunk directory writes, readers never see a half written sample
+        publishedSize.lazySet(writeIndex);
+        listeners.notifyChanged(this);
+    }
+
+    /**
+     * Append all samples of the list
+     *
+     * @param waveSamples {@link WaveSample} list
+     */
+    public void addAll(List<WaveSample> waveSamples) {
+        for (int i = 0; i < waveSamples.size(); i++) {
+            WaveSample sample = waveSamples.get(i);
+            add(sample.getTime(), (int) sample.getAmplitude());
+        }
+    }
+
+    @Override
+    public int size() {
+        return publishedSize.get();
+    }
+
+    @Override
+    public long getTime(int index) {
+        checkIndex(index);
+        return timeChunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    @Override
+    public int getAmplitude(int index) {
+        checkIndex(index);
+        return amplitudeChunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * Remove all samples, allocated chunks are kept for reuse.
+     * Should be called from the producer thread while no reader is plotting the store
+     */
+    public void clear() {
+        writeIndex = 0;
+        publishedSize.set(0);
+        listeners.notifyChanged(this);
+    }
+
+    @Override
+    public void addSampleListener(SampleListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeSampleListener(SampleListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns a {@link WaveSample} list backed by this store.
+     * Adding to the list appends to the store, {@link WaveSample} objects are created only on get
+     *
+     * @return list view of the store
+     */
+    public List<WaveSample> asList() {
+        if (listView == null) {
+            listView = new ListView();
+        }
+        return listView;
+    }
+
+    private void checkIndex(int index) {
+        int size = publishedSize.get();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * {@link WaveSample} list view over the store columns
+     */
+    class ListView extends AbstractList<WaveSample> {
+
+        SampleStore getStore() {
+            return SampleStore.this;
+        }
+
+        @Override
+        public WaveSample get(int index) {
+            return new WaveSample(getTime(index), getAmplitude(index));
+        }
+
+        @Override
+        public boolean add(WaveSample sample) {
+            SampleStore.this.add(sample.getTime(), (int) sample.getAmplitude());
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            SampleStore.this.clear();
+            modCount++;
+        }
+
+        @Override
+        public int size() {
+            return SampleStore.this.size();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Stage of a {@link TransformedSampleSource} chain mapping each amplitude as it is appended, e.g. smoothing or
+ * log scaling. Stages see every sample once and in order, so they may keep state from previous samples.
+ * Built in stages are created by {@link SampleTransforms}
+ */
+public interface SampleTransform {
+
+    /**
+     * Called once per sample in index order, should be O(1) and must not allocate
+     *
+     * @param time      sample time in millisecond
+     * @param amplitude output of the previous stage
+     * @return transformed amplitude
+     */
+    int apply(long time, int amplitude);
+
+    /**
+     * Forget state of previous samples, called before the chain starts again from the first sample
+     */
+    void reset();
+}
@@ -0,0 +1,172 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Built in {@link SampleTransform} stages. Every stage is O(1) per sample and keeps its state in primitive fields,
+ * a stage instance belongs to one chain
+ */
+public final class SampleTransforms {
+
+    private SampleTransforms() {
+    }
+
+    /**
+     * Exponential moving average, each output moves a fraction of the way to the new amplitude
+     *
+     * @param alpha weight of the new amplitude from 0 (never moves) to 1 (no smoothing)
+     * @return smoothing stage
+     */
+    public static SampleTransform ema(float alpha) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("Invalid alpha " + alpha);
+        }
+        return new Ema(alpha);
+    }
+
+    /**
+     * Log scale so quiet passages stay visible next to loud ones.
+     * Amplitudes are mapped linearly in dB from floorDb below the reference (drawn as 0) up to the reference
+     * (drawn as the reference), so the graph max amplitude keeps its meaning
+     *
+     * @param reference amplitude at 0 dB, e.g. the graph max amplitude
+     * @param floorDb   negative level in dB drawn as 0, e.g. -60
+     * @return dB stage
+     */
+    public static SampleTransform decibels(int reference, float floorDb) {
+        if (reference <= 0 || floorDb >= 0) {
+            throw new IllegalArgumentException("Invalid reference " + reference + " or floor " + floorDb + " dB");
+        }
+        return new Decibels(reference, floorDb);
+    }
+
+    /**
+     * Peak meter, holds the highest amplitude for a while and then lets it fall at a constant rate
+     *
+     * @param holdMillis     sample time a peak is held before falling
+     * @param decayPerSecond amplitude a held peak falls per second of sample time
+     * @return peak hold stage
+     */
+    public static SampleTransform peakHold(long holdMillis, float decayPerSecond) {
+        if (holdMillis < 0 || decayPerSecond < 0) {
+            throw new IllegalArgumentException("Invalid hold " + holdMillis + " ms or decay " + decayPerSecond);
+        }
+        return new PeakHold(holdMillis, decayPerSecond / 1000);
+    }
+
+    /**
+     * Draw background noise as silence
+     *
+     * @param threshold amplitudes below it become 0
+     * @return noise gate stage
+     */
+    public static SampleTransform noiseGate(int threshold) {
+        return new NoiseGate(threshold);
+    }
+
+    private static final class Ema implements SampleTransform {
+
+        private final float alpha;
+        private float average;
+        private boolean started = false;
+
+        Ema(float alpha) {
+            this.alpha = alpha;
+        }
+
+        @Override
+        public int apply(long time, int amplitude) {
+            if (started) {
+                average += alpha * (amplitude - average);
+            } else {
+                average = amplitude;
+                started = true;
+            }
+            return Math.round(average);
+        }
+
+        @Override
+        public void reset() {
+            started = false;
+        }
+    }
+
+    private static final class Decibels implements SampleTransform {
+
+        private final int reference;
+        private final float floorDb;
+
+        Decibels(int reference, float floorDb) {
+            this.reference = reference;
+            this.floorDb = floorDb;
+        }
+
+        @Override
+        public int apply(long time, int amplitude) {
+            int magnitude = Math.abs(amplitude);
+            if (magnitude == 0) {
+                return 0;
+            }
+            double db = 20 * Math.log10((double) magnitude / reference);
+            if (db <= floorDb) {
+                return 0;
+            }
+            return (int) Math.round(reference * (1 - Math.min(db, 0) / floorDb));
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+
+    private static final class PeakHold implements SampleTransform {
+
+        private final long holdMillis;
+        private final float decayPerMilli;
+        private float peak;
+        private long heldUntil;
+        private long lastTime;
+        private boolean started = false;
+
+        PeakHold(long holdMillis, float decayPerMilli) {
+            this.holdMillis = holdMillis;
+            this.decayPerMilli = decayPerMilli;
+        }
+
+        @Override
+        public int apply(long time, int amplitude) {
+            if (!started || amplitude >= peak) {
+                peak = amplitude;
+                heldUntil = time + holdMillis;
+                started = true;
+            } else if (time > heldUntil) {
+                //Fall only for the part of the step after the hold ended
+                long falling = time - Math.max(lastTime, heldUntil);
+                peak = Math.max(amplitude, peak - decayPerMilli * falling);
+            }
+            lastTime = time;
+            return Math.round(peak);
+        }
+
+        @Override
+        public void reset() {
+            started = false;
+        }
+    }
+
+    private static final class NoiseGate implements SampleTransform {
+
+        private final int threshold;
+
+        NoiseGate(int threshold) {
+            this.threshold = threshold;
+        }
+
+        @Override
+        public int apply(long time, int amplitude) {
+            return Math.abs(amplitude) < threshold ? 0 : amplitude;
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Plans partial redraw of realtime frames into a horizontally wrapping back buffer (ring) of scrolling content.
+ * Content x is the screen x of a frame plus its origin, so waves and labels keep their content x while they scroll
+ * and stay valid in the ring until it wraps. A frame only redraws the content strip of samples that arrived since
+ * the previous frame and clears ring columns about to scroll into view, scrolling only copies the visible window.
+ * Everything is redrawn after a configuration change, when the source shrinks or scrolls back, or when the
+ * strip would be wider than the screen
+ */
+final class ScrollDamage {
+
+    //Anti aliased strokes bleed about a px beyond their geometry
+    static final int MARGIN = 2;
+
+    private boolean valid = false;
+    private int configuration;
+    private int ringWidth;
+    private int width;
+    private long lastOrigin;
+    private int lastSampleCount;
+    //Ring columns from here on hold stale content of an earlier wrap
+    private long clearedTo;
+    //Plan of the last frame
+    private boolean full;
+    private boolean scrolled;
+    private long clearFrom;
+    private long clearTo;
+    private long stripFrom;
+    private long stripTo;
+
+    /**
+     * Redraw everything on next frame
+     */
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Plan a frame
+     *
+     * @param origin        content x shown at screen x 0
+     * @param sampleCount   size snapshot of the source, waves up to sampleCount - 2 are drawn
+     * @param waveLength    width of each wave in px
+     * @param labelWidth    room a time label takes right of its marker in px
+     * @param width         screen width in px
+     * @param configuration changes whenever anything else drawn in the content changes, e.g. a color
+     */
+    void plan(long origin, int sampleCount, int waveLength, int labelWidth, int width, int configuration) {
+        //Newly drawn waves start at the old content edge, labels of the newest wave reach past the new one
+        long stripStart = (long) (lastSampleCount - 1) * waveLength - MARGIN;
+        long stripEnd = (long) (sampleCount - 1) * waveLength + Math.max(waveLength, labelWidth) + MARGIN;
+        full = !valid || configuration != this.configuration || width != this.width
+                || sampleCount < lastSampleCount || origin < lastOrigin
+                || (sampleCount > lastSampleCount && stripEnd - stripStart > width);
+        if (full) {
+            valid = true;
+            this.configuration = configuration;
+            this.width = width;
+            //Room for the screen, a strip past its right side and a margin so strips never alias visible columns
+            ringWidth = width + 2 * (Math.max(waveLength, labelWidth) + waveLength + 2 * MARGIN);
+            scrolled = true;
+            clearFrom = origin;
+            clearTo = origin;
+            stripFrom = origin;
+            stripTo = origin + width;
+        } else {
+            scrolled = origin != lastOrigin;
+            clearFrom = clearedTo;
+            clearTo = Math.max(clearedTo, origin + width);
+            if (sampleCount > lastSampleCount) {
+                stripFrom = stripStart;
+                stripTo = stripEnd;
+            } else {
+                stripFrom = origin;
+                stripTo = origin;
+            }
+        }
+        clearedTo = Math.max(clearTo, stripTo);
+        lastOrigin = origin;
+        lastSampleCount = sampleCount;
+    }
+
+    /**
+     * @return true if the whole ring has to be cleared and the visible content redrawn
+     */
+    boolean isFull() {
+        return full;
+    }
+
+    /**
+     * @return true if the screen moved since last frame, all of it has to be copied from the ring
+     */
+    boolean isScrolled() {
+        return scrolled;
+    }
+
+    /**
+     * @return ring width in px, changes only on full frames
+     */
+    int getRingWidth() {
+        return ringWidth;
+    }
+
+    /**
+     * @return first content x to clear ahead of the screen
+     */
+    long getClearFrom() {
+        return clearFrom;
+    }
+
+    /**
+     * @return content x after the range to clear ahead of the screen
+     */
+    long getClearTo() {
+        return clearTo;
+    }
+
+    /**
+     * @return first content x to redraw
+     */
+    long getStripFrom() {
+        return stripFrom;
+    }
+
+    /**
+     * @return content x after the range to redraw, equal to {@link #getStripFrom()} if nothing has to be redrawn
+     */
+    long getStripTo() {
+        return stripTo;
+    }
+
+    /**
+     * @return ring column holding a content x
+     */
+    static int ringX(long contentX, int ringWidth) {
+        long x = contentX % ringWidth;
+        return (int) (x < 0 ? x + ringWidth : x);
+    }
+}
@@ -0,0 +1,88 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Maximum amplitude of samples within a time window before the newest sample.
+ * Kept as a monotonic deque: candidates are stored in a ring in decreasing amplitude order, an appended sample
+ * drops every older candidate it is not smaller than and samples leaving the window drop off the front.
+ * Each sample is added and removed at most once, so both add and max are amortized O(1)
+ */
+final class SlidingWindowMax {
+
+    private long windowMillis;
+    private long[] times = new long[64];
+    private int[] amplitudes = new int[64];
+    private int head = 0;
+    private int size = 0;
+
+    /**
+     * @param windowMillis samples older than this before the newest one are not counted
+     */
+    SlidingWindowMax(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    long getWindow() {
+        return windowMillis;
+    }
+
+    /**
+     * Change the window and forget all samples
+     */
+    void setWindow(long windowMillis) {
+        this.windowMillis = windowMillis;
+        clear();
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Append a sample, times must not decrease
+     *
+     * @param time      sample time in millisecond
+     * @param amplitude sample amplitude
+     */
+    void add(long time, int amplitude) {
+        int mask = times.length - 1;
+        //Older candidates not above the new sample can never be the max again
+        while (size > 0 && amplitudes[(head + size - 1) & mask] <= amplitude) {
+            size--;
+        }
+        if (size == times.length) {
+            grow();
+            mask = times.length - 1;
+        }
+        int tail = (head + size) & mask;
+        times[tail] = time;
+        amplitudes[tail] = amplitude;
+        size++;
+        //Drop candidates that left the window of the new sample
+        long oldest = time - windowMillis;
+        while (times[head] < oldest) {
+            head = (head + 1) & mask;
+            size--;
+        }
+    }
+
+    /**
+     * @return max amplitude within the window before the newest sample, 0 when no sample was added
+     */
+    int max() {
+        return size == 0 ? 0 : amplitudes[head];
+    }
+
+    private void grow() {
+        int capacity = times.length;
+        long[] grownTimes = new long[capacity * 2];
+        int[] grownAmplitudes = new int[capacity * 2];
+        for (int i = 0; i < size; i++) {
+            grownTimes[i] = times[(head + i) & (capacity - 1)];
+            grownAmplitudes[i] = amplitudes[(head + i) & (capacity - 1)];
+        }
+        times = grownTimes;
+        amplitudes = grownAmplitudes;
+        head = 0;
+    }
+}
@@ -0,0 +1,96 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.util.ArrayList;
+
+/**
+ * Defers releasing a sample source, e.g. closing a {@link MappedSampleStore}, until frames that may still read it
+ * are done. Each frame is bracketed by {@link #enter()} and {@link #exit(long)} and reads the plotted source after
+ * entering. {@link #retire(Runnable)} is called after the graph switched to another source, its action runs once
+ * every frame entered before it has exited. Frames entered later read the new source and are not waited for
+ */
+final class SourceRetirement {
+
+    private long epoch = 0;
+    //Entry epochs of frames in progress, one per reader thread
+    private long[] active = new long[4];
+    private int activeCount = 0;
+    private final ArrayList<Runnable> retired = new ArrayList<>();
+    private final ArrayList<Long> retiredEpochs = new ArrayList<>();
+
+    /**
+     * Start a frame, call before reading the plotted source
+     *
+     * @return token to pass to {@link #exit(long)}
+     */
+    synchronized long enter() {
+        if (activeCount == active.length) {
+            long[] grown = new long[active.length * 2];
+            System.arraycopy(active, 0, grown, 0, activeCount);
+            active = grown;
+        }
+        active[activeCount++] = epoch;
+        return epoch;
+    }
+
+    /**
+     * End a frame and run actions of sources retired while it was the last frame reading them, on this thread
+     *
+     * @param token value returned by {@link #enter()}
+     */
+    void exit(long token) {
+        ArrayList<Runnable> ready = null;
+        synchronized (this) {
+            for (int i = 0; i < activeCount; i++) {
+                if (active[i] == token) {
+                    active[i] = active[--activeCount];
+                    break;
+                }
+            }
+            long oldest = oldestActive();
+            while (!retiredEpochs.isEmpty() && retiredEpochs.get(0) <= oldest) {
+                if (ready == null) {
+                    ready = new ArrayList<>();
+                }
+                retiredEpochs.remove(0);
+                ready.add(retired.remove(0));
+            }
+        }
+        if (ready != null) {
+            for (Runnable action : ready) {
+                action.run();
+            }
+        }
+    }
+
+    /**
+     * Run an action once frames in progress finished, right away on this thread if there are none
+     *
+     * @param action e.g. closing a source the graph no longer plots
+     */
+    void retire(Runnable action) {
+        synchronized (this) {
+            epoch++;
+            if (oldestActive() < epoch) {
+                retiredEpochs.add(epoch);
+                retired.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    /**
+     * @return no of retired actions waiting for frames to finish
+     */
+    synchronized int getPendingCount() {
+        return retired.size();
+    }
+
+    private long oldestActive() {
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0; i < activeCount; i++) {
+            oldest = Math.min(oldest, active[i]);
+        }
+        return oldest;
+    }
+}
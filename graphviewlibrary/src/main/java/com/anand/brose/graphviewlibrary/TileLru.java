@@ -0,0 +1,123 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU of tiles keyed by tile index and bounded by a tile count, with a pinned range of tiles that are never
+ * evicted, e.g. the tiles of the frame being built. While more tiles are pinned than fit the capacity the cache
+ * holds them all and trims back to the capacity once they are unpinned.
+ * Removed tiles are handed to {@link #entryRemoved(int, Object)} like {@code LruCache} does, so their storage can
+ * be reused. Must be used from a single thread
+ *
+ * @param <T> tile storage, e.g. a bitmap
+ */
+class TileLru<T> {
+
+    private final LinkedHashMap<Integer, T> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    private int capacity;
+    private int pinnedFirst = 0;
+    private int pinnedLast = -1;
+
+    /**
+     * @param capacity max no of unpinned tiles held
+     */
+    TileLru(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Change the capacity, least recently used unpinned tiles above it are removed
+     */
+    void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        trim();
+    }
+
+    /**
+     * @return tile or null if it is not cached, a found tile becomes the most recently used
+     */
+    T get(int tile) {
+        return tiles.get(tile);
+    }
+
+    /**
+     * Cache a tile as most recently used, may remove least recently used unpinned tiles
+     */
+    void put(int tile, T value) {
+        T old = tiles.put(tile, value);
+        if (old != null && old != value) {
+            entryRemoved(tile, old);
+        }
+        trim();
+    }
+
+    /**
+     * Keep tiles first to last cached until {@link #unpin()}, however many there are
+     */
+    void pin(int first, int last) {
+        pinnedFirst = first;
+        pinnedLast = last;
+    }
+
+    /**
+     * Release pinned tiles and trim back to the capacity
+     */
+    void unpin() {
+        pinnedFirst = 0;
+        pinnedLast = -1;
+        trim();
+    }
+
+    boolean isPinned(int tile) {
+        return tile >= pinnedFirst && tile <= pinnedLast;
+    }
+
+    /**
+     * Remove all tiles, pinned ones too
+     */
+    void clear() {
+        Iterator<Map.Entry<Integer, T>> iterator = tiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, T> entry = iterator.next();
+            iterator.remove();
+            entryRemoved(entry.getKey(), entry.getValue());
+        }
+    }
+
+    int size() {
+        return tiles.size();
+    }
+
+    /**
+     * Called for every tile removed by eviction, replacement or {@link #clear()}
+     *
+     * @param tile  tile index
+     * @param value removed tile storage, no longer referenced by the cache
+     */
+    protected void entryRemoved(int tile, T value) {
+    }
+
+    private void trim() {
+        int excess = tiles.size() - capacity;
+        if (excess <= 0) {
+            return;
+        }
+        //Least recently used first, pinned tiles are skipped
+        Iterator<Map.Entry<Integer, T>> iterator = tiles.entrySet().iterator();
+        while (excess > 0 && iterator.hasNext()) {
+            Map.Entry<Integer, T> entry = iterator.next();
+            if (isPinned(entry.getKey())) {
+                continue;
+            }
+            iterator.remove();
+            excess--;
+            entryRemoved(entry.getKey(), entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.util.ArrayList;
+
+/**
+ * Small pool of evicted tile storage of one tile height, so rasterizing a new tile reuses the storage of an
+ * evicted one instead of allocating. Pooled tiles of another height are recycled when the height changes and
+ * never handed out, e.g. after a rotation or resize of the surface. Must be used from a single thread
+ *
+ * @param <T> tile storage, e.g. a bitmap
+ */
+abstract class TilePool<T> {
+
+    private final ArrayList<T> pool = new ArrayList<>();
+    private final int maxSize;
+    private int tileHeight = 0;
+
+    /**
+     * @param maxSize max no of pooled tiles
+     */
+    TilePool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Change the height of tiles handed out, pooled tiles of the old height are recycled
+     */
+    void setTileHeight(int height) {
+        if (height == tileHeight) {
+            return;
+        }
+        tileHeight = height;
+        for (T value : pool) {
+            recycle(value);
+        }
+        pool.clear();
+    }
+
+    int getTileHeight() {
+        return tileHeight;
+    }
+
+    /**
+     * @return pooled tile of the current height, or a new one if there is none
+     */
+    T obtain() {
+        while (!pool.isEmpty()) {
+            T value = pool.remove(pool.size() - 1);
+            if (heightOf(value) == tileHeight) {
+                return value;
+            }
+            recycle(value);
+        }
+        return create(tileHeight);
+    }
+
+    /**
+     * Hand back a tile no longer referenced, it is pooled if it has the current height and there is room
+     */
+    void release(T value) {
+        if (heightOf(value) != tileHeight) {
+            recycle(value);
+        } else if (pool.size() < maxSize) {
+            pool.add(value);
+        }
+    }
+
+    int size() {
+        return pool.size();
+    }
+
+    /**
+     * @return new tile storage of a height
+     */
+    protected abstract T create(int height);
+
+    protected abstract int heightOf(T value);
+
+    /**
+     * Free storage of a tile of another height, it is not used again
+     */
+    protected abstract void recycle(T value);
+}
@@ -0,0 +1,63 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Cache of mm:ss time marker labels indexed by whole seconds, times before 0 are labelled -mm:ss.
+ * Each label String is created once, so drawing time markers every frame does not allocate
+ */
+final class TimeLabels {
+
+    private String[] labels = new String[10 * 60];
+    private String[] negativeLabels = new String[60];
+
+    /**
+     * Convert millisecond to mm:ss string
+     *
+     * @param millis in millisecond
+     * @return cached formatted mm:ss string
+     */
+    String format(long millis) {
+        int second = (int) (millis / 1000);
+        if (second < 0) {
+            //Before the first marker or an offset origin
+            String[] table = grow(negativeLabels, -second);
+            negativeLabels = table;
+            String label = table[-second];
+            if (label == null) {
+                label = "-" + create(-second);
+                table[-second] = label;
+            }
+            return label;
+        }
+        String[] table = grow(labels, second);
+        labels = table;
+        String label = table[second];
+        if (label == null) {
+            label = create(second);
+            table[second] = label;
+        }
+        return label;
+    }
+
+    /**
+     * @return table holding index, grown if needed. A concurrent reader may still fill the old table which only
+     * costs a duplicate label
+     */
+    private static String[] grow(String[] table, int index) {
+        if (index < table.length) {
+            return table;
+        }
+        int length = table.length;
+        while (index >= length) {
+            length = length * 2;
+        }
+        String[] newTable = new String[length];
+        System.arraycopy(table, 0, newTable, 0, table.length);
+        return newTable;
+    }
+
+    private static String create(int second) {
+        int seconds = second % 60;
+        int minutes = second / 60;
+        return (minutes < 10 ? "0" + minutes : minutes) + ":" + (seconds < 10 ? "0" + seconds : seconds);
+    }
+}
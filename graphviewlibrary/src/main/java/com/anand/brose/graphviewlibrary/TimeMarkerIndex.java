@@ -0,0 +1,131 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Sample indices where the plotted time passes a time scale boundary, with a pre-formatted label per marker.
+ * Extended incrementally as samples are appended, each sample time is read once. Rebuilt only when the time scale
+ * or source changes or the source was cleared, maybe refilled since. A frame finds its visible markers with a binary search instead of
+ * testing every visible sample.
+ * Not thread safe, each render thread keeps its own index
+ */
+final class TimeMarkerIndex {
+
+    private final TimeLabels timeLabels;
+    private SampleSource source;
+    private int timeScale = -1;
+    private int built = 0;
+    private long lastBuiltTime;
+    private long lastSlot;
+    //Sample index of each marker, ascending
+    private int[] indices = new int[64];
+    //Boundary time each marker stands for in millisecond
+    private long[] times = new long[64];
+    private String[] labels = new String[64];
+    private int count = 0;
+
+    TimeMarkerIndex(TimeLabels timeLabels) {
+        this.timeLabels = timeLabels;
+    }
+
+    /**
+     * Add markers of samples appended since last update
+     *
+     * @param samples     source being plotted
+     * @param sampleCount size snapshot of the source
+     * @param timeScale   time marker interval in millisecond
+     */
+    void update(SampleSource samples, int sampleCount, int timeScale) {
+        if (samples != source || timeScale != this.timeScale || sampleCount < built
+                || (built > 0 && samples.getTime(built - 1) != lastBuiltTime)) {
+            //Another source or scale, or the source was cleared, maybe refilled since
+            source = samples;
+            this.timeScale = timeScale;
+            built = 0;
+            count = 0;
+        }
+        if (sampleCount == built) {
+            return;
+        }
+        int i = built;
+        if (i == 0) {
+            //Time 00:00 at the first sample
+            add(0, 0);
+            lastSlot = samples.getTime(0) / timeScale;
+            i = 1;
+        }
+        long slot = lastSlot;
+        for (; i < sampleCount; i++) {
+            long next = samples.getTime(i) / timeScale;
+            if (next != slot) {
+                add(i, next * timeScale);
+                slot = next;
+            }
+        }
+        lastSlot = slot;
+        built = sampleCount;
+        lastBuiltTime = samples.getTime(sampleCount - 1);
+    }
+
+    private void add(int index, long time) {
+        if (count == indices.length) {
+            int[] newIndices = new int[count * 2];
+            long[] newTimes = new long[count * 2];
+            String[] newLabels = new String[count * 2];
+            System.arraycopy(indices, 0, newIndices, 0, count);
+            System.arraycopy(times, 0, newTimes, 0, count);
+            System.arraycopy(labels, 0, newLabels, 0, count);
+            indices = newIndices;
+            times = newTimes;
+            labels = newLabels;
+        }
+        indices[count] = index;
+        times[count] = time;
+        labels[count] = timeLabels.format(time);
+        count++;
+    }
+
+    /**
+     * @param sampleIndex sample index
+     * @return position of the first marker at or after sampleIndex, {@link #size()} if there is none
+     */
+    int firstAtOrAfter(int sampleIndex) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (indices[middle] < sampleIndex) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return no of markers
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * @return sample index of a marker
+     */
+    int getSampleIndex(int marker) {
+        return indices[marker];
+    }
+
+    /**
+     * @return boundary time of a marker in millisecond, 0 for the first sample
+     */
+    long getTime(int marker) {
+        return times[marker];
+    }
+
+    /**
+     * @return mm:ss label of a marker
+     */
+    String getLabel(int marker) {
+        return labels[marker];
+    }
+}
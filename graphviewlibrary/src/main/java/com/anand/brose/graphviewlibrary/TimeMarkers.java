@@ -0,0 +1,46 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Time marker positions and labels of one frame held in primitive arrays.
+ * Reused across frames, arrays grow only when a frame has more markers than any earlier frame
+ */
+final class TimeMarkers {
+
+    private int[] positions = new int[16];
+    private String[] labels = new String[16];
+    private int count = 0;
+
+    void clear() {
+        count = 0;
+    }
+
+    /**
+     * @param x     position of the marker in px
+     * @param label text to draw at the marker
+     */
+    void add(int x, String label) {
+        if (count == positions.length) {
+            int[] newPositions = new int[count * 2];
+            String[] newLabels = new String[count * 2];
+            System.arraycopy(positions, 0, newPositions, 0, count);
+            System.arraycopy(labels, 0, newLabels, 0, count);
+            positions = newPositions;
+            labels = newLabels;
+        }
+        positions[count] = x;
+        labels[count] = label;
+        count++;
+    }
+
+    int size() {
+        return count;
+    }
+
+    int getPosition(int index) {
+        return positions[index];
+    }
+
+    String getLabel(int index) {
+        return labels[index];
+    }
+}
@@ -0,0 +1,111 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * {@link SampleSource} plotting the amplitudes of another source through a chain of {@link SampleTransform}s,
+ * e.g. smoothed and in dB: {@code new TransformedSampleSource(store, SampleTransforms.ema(0.3f), SampleTransforms.decibels(35000, -60))}.
+ * Each appended sample runs through the chain once and its output is cached, so frames only read cached amplitudes
+ * and never transform the visible window again.
+ * <p>
+ * On an {@link ObservableSampleSource} new samples are transformed on the producer thread as they are appended,
+ * other sources are caught up on {@link #size()}. When the source shrinks or the time of the last transformed sample
+ * changed, e.g. it was cleared and maybe refilled since, the chain is reset and the source is transformed again
+ * from its first sample. Listeners of the source are kept registered
+ * until {@link #release()}
+ */
+public class TransformedSampleSource implements ObservableSampleSource, SampleListener {
+
+    private final SampleSource source;
+    private final SampleTransform[] transforms;
+    //Transformed amplitudes with the times of the source, appended only under this lock
+    private final SampleStore output = new SampleStore();
+    private final SampleListeners listeners = new SampleListeners();
+
+    /**
+     * @param source     samples to transform
+     * @param transforms stages applied in order, each instance should only be used by one source
+     */
+    public TransformedSampleSource(SampleSource source, SampleTransform... transforms) {
+        if (source == null) {
+            throw new IllegalArgumentException("Source is null");
+        }
+        this.source = source;
+        this.transforms = transforms.clone();
+        if (source instanceof ObservableSampleSource) {
+            ((ObservableSampleSource) source).addSampleListener(this);
+        }
+        update();
+    }
+
+    /**
+     * @return untransformed samples
+     */
+    public SampleSource getSource() {
+        return source;
+    }
+
+    /**
+     * Stop following an {@link ObservableSampleSource}, later samples are only transformed on {@link #size()}
+     */
+    public void release() {
+        if (source instanceof ObservableSampleSource) {
+            ((ObservableSampleSource) source).removeSampleListener(this);
+        }
+    }
+
+    @Override
+    public int size() {
+        update();
+        return output.size();
+    }
+
+    @Override
+    public long getTime(int index) {
+        return output.getTime(index);
+    }
+
+    @Override
+    public int getAmplitude(int index) {
+        return output.getAmplitude(index);
+    }
+
+    @Override
+    public void onSamplesChanged(SampleSource changed) {
+        update();
+        listeners.notifyChanged(this);
+    }
+
+    @Override
+    public void addSampleListener(SampleListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeSampleListener(SampleListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Transform samples appended to the source since the last update
+     */
+    private synchronized void update() {
+        int sourceSize = source.size();
+        int transformed = output.size();
+        if (sourceSize < transformed
+                || (transformed > 0 && source.getTime(transformed - 1) != output.getTime(transformed - 1))) {
+            //Cleared, maybe refilled since
+            output.clear();
+            for (SampleTransform transform : transforms) {
+                transform.reset();
+            }
+            transformed = 0;
+        }
+        for (int i = transformed; i < sourceSize; i++) {
+            long time = source.getTime(i);
+            int amplitude = source.getAmplitude(i);
+            for (SampleTransform transform : transforms) {
+                amplitude = transform.apply(time, amplitude);
+            }
+            output.add(time, amplitude);
+        }
+    }
+}
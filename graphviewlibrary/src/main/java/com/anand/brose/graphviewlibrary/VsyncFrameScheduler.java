@@ -0,0 +1,101 @@
+package com.anand.brose.graphviewlibrary;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * {@link FrameScheduler} driven by display vsync through {@link Choreographer} on the main thread.
+ * Below Jelly Bean Choreographer is not public, a main thread handler ticking at 60 fps is used instead
+ */
+final class VsyncFrameScheduler implements FrameScheduler {
+
+    private static final long FALLBACK_FRAME_MILLIS = 16;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ChoreographerPoster choreographerPoster;
+    private volatile FrameCallback callback;
+
+    //Runs on main thread to hand the pending callback to Choreographer or the fallback tick
+    private final Runnable postRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (callback == null) {
+                return;
+            }
+            if (choreographerPoster != null) {
+                choreographerPoster.post();
+            } else {
+                mainHandler.postDelayed(fallbackFrame, FALLBACK_FRAME_MILLIS);
+            }
+        }
+    };
+
+    private final Runnable fallbackFrame = new Runnable() {
+        @Override
+        public void run() {
+            dispatch(System.nanoTime());
+        }
+    };
+
+    VsyncFrameScheduler() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            choreographerPoster = new ChoreographerPoster();
+        } else {
+            choreographerPoster = null;
+        }
+    }
+
+    @Override
+    public void postFrameCallback(FrameCallback callback) {
+        this.callback = callback;
+        mainHandler.post(postRunnable);
+    }
+
+    @Override
+    public void removeFrameCallback(FrameCallback callback) {
+        if (this.callback == callback) {
+            this.callback = null;
+        }
+        mainHandler.removeCallbacks(postRunnable);
+        mainHandler.removeCallbacks(fallbackFrame);
+        if (choreographerPoster != null) {
+            choreographerPoster.remove();
+        }
+    }
+
+    private void dispatch(long frameTimeNanos) {
+        FrameCallback current = callback;
+        callback = null;
+        if (current != null) {
+            current.doFrame(frameTimeNanos);
+        }
+    }
+
+    /**
+     * Keeps Choreographer references out of the outer class so it loads on API 15
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private class ChoreographerPoster implements Choreographer.FrameCallback {
+
+        void post() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void remove() {
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    Choreographer.getInstance().removeFrameCallback(ChoreographerPoster.this);
+                }
+            });
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            dispatch(frameTimeNanos);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * {@link PcmSource} reading a 16 bit PCM WAV file, e.g. one written by {@link WavFileWriter}.
+ * Chunks other than fmt and data are skipped. Samples are converted from a reused byte buffer,
+ * nothing is allocated per read once the buffer fits the requested length
+ */
+public class WavFileSource implements PcmSource {
+
+    static final int RIFF = 0x46464952;//"RIFF" little endian
+    static final int WAVE = 0x45564157;//"WAVE"
+    static final int FMT = 0x20746D66;//"fmt "
+    static final int DATA = 0x61746164;//"data"
+    static final int FORMAT_PCM = 1;
+    static final int FORMAT_EXTENSIBLE = 0xFFFE;
+    private static final long UNKNOWN_LENGTH = Long.MAX_VALUE;
+
+    private final InputStream in;
+    private final int sampleRate;
+    private final int channelCount;
+    private final long dataBytes;
+    //Stream offset of the first sample
+    private long dataOffset = 0;
+    private long remainingBytes;
+    private byte[] bytes = new byte[4096];
+
+    /**
+     * @param file WAV file
+     * @throws IOException if file can not be read or is not 16 bit PCM WAV
+     */
+    public WavFileSource(File file) throws IOException {
+        this(new BufferedInputStream(new FileInputStream(file)));
+    }
+
+    /**
+     * @param in stream positioned at the start of a WAV file, closed by {@link #close()}
+     * @throws IOException if stream can not be read or is not 16 bit PCM WAV
+     */
+    public WavFileSource(InputStream in) throws IOException {
+        this.in = in;
+        try {
+            ByteBuffer header = readHeader(12);
+            int riff = header.getInt();
+            header.getInt();//RIFF size
+            if (riff != RIFF || header.getInt() != WAVE) {
+                throw new IOException("Not a WAV file");
+            }
+            int rate = 0;
+            int channels = 0;
+            long length;
+            while (true) {
+                ByteBuffer chunk = readHeader(8);
+                int id = chunk.getInt();
+                long size = chunk.getInt() & 0xFFFFFFFFL;
+                if (id == FMT) {
+                    if (size < 16) {
+                        throw new IOException("Invalid fmt chunk");
+                    }
+                    ByteBuffer format = readHeader(16);
+                    int audioFormat = format.getShort() & 0xFFFF;
+                    channels = format.getShort() & 0xFFFF;
+                    rate = format.getInt();
+                    format.getInt();//byte rate
+                    format.getShort();//block align
+                    int bits = format.getShort() & 0xFFFF;
+                    if ((audioFormat != FORMAT_PCM && audioFormat != FORMAT_EXTENSIBLE) || bits != 16) {
+                        throw new IOException("Only 16 bit PCM is supported, format " + audioFormat + " bits " + bits);
+                    }
+                    if (channels < 1 || rate < 1) {
+                        throw new IOException("Invalid format " + channels + " channels at " + rate + " Hz");
+                    }
+                    skip(size - 16 + (size & 1));
+                } else if (id == DATA) {
+                    if (channels == 0) {
+                        throw new IOException("data chunk before fmt chunk");
+                    }
+                    //Size is left 0 or all ones by writers that were not closed, read to end of stream then
+                    length = size == 0 || size == 0xFFFFFFFFL ? UNKNOWN_LENGTH : size;
+                    break;
+                } else {
+                    skip(size + (size & 1));
+                }
+            }
+            sampleRate = rate;
+            channelCount = channels;
+            dataBytes = length;
+            remainingBytes = length;
+        } catch (EOFException e) {
+            in.close();
+            throw new IOException("Not a WAV file");
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private ByteBuffer readHeader(int length) throws IOException {
+        readFully(bytes, length);
+        dataOffset += length;
+        return ByteBuffer.wrap(bytes, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void readFully(byte[] target, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int count = in.read(target, read, length - read);
+            if (count < 0) {
+                throw new EOFException();
+            }
+            read += count;
+        }
+    }
+
+    private void skip(long length) throws IOException {
+        while (length > 0) {
+            long skipped = in.skip(length);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            length -= skipped;
+            dataOffset += skipped;
+        }
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+    /**
+     * @return no of frames in the file, -1 if the data length was not written
+     */
+    public long getFrameCount() {
+        return dataBytes == UNKNOWN_LENGTH ? -1 : dataBytes / (2L * channelCount);
+    }
+
+    /**
+     * @return file offset of the first sample
+     */
+    long getDataOffset() {
+        return dataOffset;
+    }
+
+    /**
+     * @return no of data bytes given in the header, {@link Long#MAX_VALUE} if it was not written
+     */
+    long getDataBytes() {
+        return dataBytes;
+    }
+
+    @Override
+    public int read(short[] buffer, int offset, int length) throws IOException {
+        int byteCount = (int) Math.min(2L * length, remainingBytes & ~1L);
+        if (byteCount == 0) {
+            return length == 0 ? 0 : -1;
+        }
+        if (bytes.length < byteCount) {
+            bytes = new byte[byteCount];
+        }
+        byte[] source = bytes;
+        int read = 0;
+        //Read whole samples only, a sample split over two stream reads is completed before returning
+        while (read == 0 || (read & 1) != 0) {
+            int count = in.read(source, read, byteCount - read);
+            if (count < 0) {
+                remainingBytes = 0;
+                read &= ~1;
+                if (read == 0) {
+                    return -1;
+                }
+                break;
+            }
+            read += count;
+        }
+        if (remainingBytes != UNKNOWN_LENGTH) {
+            remainingBytes -= read;
+        }
+        int samples = read >> 1;
+        toShorts(source, buffer, offset, samples);
+        return samples;
+    }
+
+    /**
+     * Convert little endian 16 bit samples
+     *
+     * @param bytes  2 bytes per sample from index 0
+     * @param target receives the samples
+     * @param offset index of the first sample in target
+     * @param count  no of samples
+     */
+    static void toShorts(byte[] bytes, short[] target, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            target[offset + i] = (short) ((bytes[2 * i] & 0xFF) | (bytes[2 * i + 1] << 8));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,102 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streaming writer of a 16 bit PCM WAV file, readable by {@link WavFileSource}.
+ * Samples are converted into a reused buffer, chunk sizes are completed on {@link #close()}.
+ * A file that was not closed has zero chunk sizes and is read to its end
+ */
+public class WavFileWriter implements PcmSink, Closeable {
+
+    static final int HEADER_BYTES = 44;
+    private static final int RIFF_SIZE_OFFSET = 4;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final FileOutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private long dataBytes = 0;
+    private boolean closed = false;
+
+    /**
+     * @param file         WAV file, replaced if it exists
+     * @param sampleRate   frames per second
+     * @param channelCount no of interleaved channels per frame
+     * @throws IOException if file can not be created
+     */
+    public WavFileWriter(File file, int sampleRate, int channelCount) throws IOException {
+        if (sampleRate < 1 || channelCount < 1) {
+            throw new IllegalArgumentException("Invalid format " + channelCount + " channels at " + sampleRate + " Hz");
+        }
+        out = new FileOutputStream(file);
+        ByteBuffer header = ByteBuffer.wrap(buffer, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(WavFileSource.RIFF);
+        header.putInt(0);
+        header.putInt(WavFileSource.WAVE);
+        header.putInt(WavFileSource.FMT);
+        header.putInt(16);
+        header.putShort((short) WavFileSource.FORMAT_PCM);
+        header.putShort((short) channelCount);
+        header.putInt(sampleRate);
+        header.putInt(sampleRate * channelCount * 2);
+        header.putShort((short) (channelCount * 2));
+        header.putShort((short) 16);
+        header.putInt(WavFileSource.DATA);
+        header.putInt(0);
+        out.write(buffer, 0, HEADER_BYTES);
+    }
+
+    @Override
+    public void write(short[] samples, int offset, int length) throws IOException {
+        byte[] target = buffer;
+        while (length > 0) {
+            int count = Math.min(length, BUFFER_SIZE / 2);
+            for (int i = 0; i < count; i++) {
+                short sample = samples[offset + i];
+                target[2 * i] = (byte) sample;
+                target[2 * i + 1] = (byte) (sample >> 8);
+            }
+            out.write(target, 0, 2 * count);
+            dataBytes += 2 * count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * @return no of sample bytes written
+     */
+    public long getDataBytes() {
+        return dataBytes;
+    }
+
+    /**
+     * Complete the chunk sizes in the header
+     *
+     * @throws IOException if file can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long riffSize = Math.min(0xFFFFFFFFL, HEADER_BYTES - 8 + dataBytes);
+            long dataSize = Math.min(0xFFFFFFFFL - (HEADER_BYTES - 8), dataBytes);
+            ByteBuffer patch = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            patch.putInt((int) riffSize).flip();
+            out.getChannel().write(patch, RIFF_SIZE_OFFSET);
+            patch.clear();
+            patch.putInt((int) dataSize).flip();
+            out.getChannel().write(patch, HEADER_BYTES - 4);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * {@link WaveSink} emitting each wave as a half sine polyline into one reusable float[] of line segments
+ * (x0, y0, x1, y1 per segment), drawn with a single drawLines call instead of two arcs per sample.
+ * The unit wave shape is computed once per wave length into a lookup table, each sample only scales it
+ */
+final class WaveLines implements WaveSink {
+
+    private float[] points = new float[1024];
+    private int size = 0;
+    private int halfHeight;
+    private int waveLength;
+    //Unit wave for current wave length, x in px from wave start and y from -1 (up) to 1 (down)
+    private int tableWaveLength = -1;
+    private float[] tableX;
+    private float[] tableY;
+
+    /**
+     * Clear the segments keeping their storage for the next frame
+     *
+     * @param halfHeight center line y position in px
+     * @param waveLength width of each wave in px
+     */
+    void rewind(int halfHeight, int waveLength) {
+        size = 0;
+        this.halfHeight = halfHeight;
+        this.waveLength = waveLength;
+        if (waveLength != tableWaveLength) {
+            buildTable(waveLength);
+        }
+    }
+
+    /**
+     * One segment per px, at least 4 per wave, even so crest and trough halves get the same no of segments.
+     * Sine up over the first half and down over the second, like the upper and lower arcs of the exact mode
+     */
+    private void buildTable(int waveLength) {
+        int segments = Math.max(4, waveLength + (waveLength & 1));
+        tableX = new float[segments + 1];
+        tableY = new float[segments + 1];
+        for (int k = 0; k <= segments; k++) {
+            float t = (float) k / segments;
+            tableX[k] = t * waveLength;
+            tableY[k] = (float) -Math.sin(2 * Math.PI * t);
+        }
+        //Exact zero crossings so neighbouring waves join on the center line
+        tableY[0] = 0;
+        tableY[segments / 2] = 0;
+        tableY[segments] = 0;
+        tableWaveLength = waveLength;
+    }
+
+    @Override
+    public void addWave(int x, int amplitude) {
+        if (amplitude > 0) {
+            int segments = tableX.length - 1;
+            ensureCapacity(segments * 4);
+            float[] target = points;
+            int index = size;
+            float previousX = x;
+            float previousY = halfHeight;
+            for (int k = 1; k <= segments; k++) {
+                float nextX = x + tableX[k];
+                float nextY = halfHeight + amplitude * tableY[k];
+                target[index++] = previousX;
+                target[index++] = previousY;
+                target[index++] = nextX;
+                target[index++] = nextY;
+                previousX = nextX;
+                previousY = nextY;
+            }
+            size = index;
+        } else {
+            /*  Draw simple line to represent 0 */
+            addSegment(x, halfHeight, x + waveLength, halfHeight);
+        }
+    }
+
+    @Override
+    public void addPeak(int x, int amplitude) {
+        addSegment(x, halfHeight - amplitude, x, halfHeight + amplitude + 1);
+    }
+
+    private void addSegment(float x0, float y0, float x1, float y1) {
+        ensureCapacity(4);
+        points[size++] = x0;
+        points[size++] = y0;
+        points[size++] = x1;
+        points[size++] = y1;
+    }
+
+    private void ensureCapacity(int floats) {
+        if (size + floats > points.length) {
+            float[] grown = new float[Math.max(points.length * 2, size + floats)];
+            System.arraycopy(points, 0, grown, 0, size);
+            points = grown;
+        }
+    }
+
+    /**
+     * @return segment end points, valid up to {@link #size()}
+     */
+    float[] getPoints() {
+        return points;
+    }
+
+    /**
+     * @return no of floats used in {@link #getPoints()}, 4 per segment
+     */
+    int size() {
+        return size;
+    }
+}
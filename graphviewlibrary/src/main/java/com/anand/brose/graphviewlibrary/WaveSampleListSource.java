@@ -0,0 +1,51 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.util.List;
+
+/**
+ * Adapter to plot a plain {@link WaveSample} list through {@link SampleSource}.
+ * Keeps {@link GraphView#setMasterList(List)} working for callers still filling a list
+ */
+class WaveSampleListSource implements SampleSource {
+
+    private final List<WaveSample> list;
+
+    WaveSampleListSource(List<WaveSample> list) {
+        this.list = list;
+    }
+
+    /**
+     * Wrap the list, a list obtained from {@link SampleStore#asList()} or {@link MappedSampleStore#asList()}
+     * is unwrapped to its store
+     *
+     * @param list {@link WaveSample} list
+     * @return source reading the list
+     */
+    static SampleSource of(List<WaveSample> list) {
+        if (list == null) {
+            return null;
+        }
+        if (list instanceof SampleStore.ListView) {
+            return ((SampleStore.ListView) list).getStore();
+        }
+        if (list instanceof SampleSourceList) {
+            return ((SampleSourceList) list).getSource();
+        }
+        return new WaveSampleListSource(list);
+    }
+
+    @Override
+    public int size() {
+        return list.size();
+    }
+
+    @Override
+    public long getTime(int index) {
+        return list.get(index).getTime();
+    }
+
+    @Override
+    public int getAmplitude(int index) {
+        return (int) list.get(index).getAmplitude();
+    }
+}
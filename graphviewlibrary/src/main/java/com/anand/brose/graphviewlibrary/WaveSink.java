@@ -0,0 +1,21 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Receives the waves of a frame as they are laid out, e.g. to add them to a drawing path
+ */
+interface WaveSink {
+
+    /**
+     * @param x         left position of the wave in px
+     * @param amplitude wave magnitude in px from the center line, 0 for a flat line
+     */
+    void addWave(int x, int amplitude);
+
+    /**
+     * Add a vertical peak line for a pixel column covering several samples
+     *
+     * @param x         column position in px
+     * @param amplitude peak magnitude in px from the center line
+     */
+    void addPeak(int x, int amplitude);
+}
@@ -0,0 +1,306 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Builds the waveform of an existing 16 bit PCM WAV file without replaying it, e.g. to show the full graph of an
+ * old recording. The audio is split into chunks of whole output blocks that worker threads read with positional
+ * reads and reduce in parallel, chunks are appended to the {@link SampleSink} in order on the calling thread.
+ * Samples are identical to those of a {@link PcmIngest} fed the same file.
+ * Memory is bounded by the no of chunks in flight, never by file length
+ * <pre>
+ * WaveformExtractor extractor = new WaveformExtractor();
+ * SampleStore samples = new SampleStore();
+ * extractor.extract(wavFile, samples, 100);
+ * graphView.showFullGraph(samples);
+ * </pre>
+ * Runs one extraction at a time per instance
+ */
+public class WaveformExtractor implements Closeable {
+
+    //About 6 s of 44.1 kHz audio per chunk
+    static final int CHUNK_FRAMES = 1 << 18;
+    private static final int READ_BYTES = 64 * 1024;
+
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private final int parallelism;
+    private volatile ExtractionListener listener;
+    private volatile boolean cancelled = false;
+    private int reduction = PcmIngest.REDUCE_PEAK;
+    private int chunkFrames = CHUNK_FRAMES;
+
+    /**
+     * Extractor with one worker per available processor
+     */
+    public WaveformExtractor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threadCount no of worker threads, shut down by {@link #close()}
+     */
+    public WaveformExtractor(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threadCount);
+        }
+        executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "WaveformExtractor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        ownExecutor = true;
+        parallelism = threadCount;
+    }
+
+    /**
+     * @param executor    runs the chunks, not shut down by {@link #close()}
+     * @param parallelism no of chunks run at the same time
+     */
+    public WaveformExtractor(ExecutorService executor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.executor = executor;
+        ownExecutor = false;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param listener notified after each merged chunk, null for none
+     */
+    public void setExtractionListener(ExtractionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @param reduction {@link PcmIngest#REDUCE_PEAK} (default) or {@link PcmIngest#REDUCE_RMS}
+     */
+    public void setReduction(int reduction) {
+        this.reduction = reduction;
+    }
+
+    void setChunkFrames(int chunkFrames) {
+        this.chunkFrames = chunkFrames;
+    }
+
+    /**
+     * Stop the extraction in progress, {@link #extract(File, SampleSink, int)} returns false once running chunks
+     * have stopped. May be called from any thread, e.g. the progress listener
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Reduce a WAV file to amplitude samples, blocks until done. Interrupting the calling thread cancels too
+     *
+     * @param wavFile          16 bit PCM WAV file
+     * @param sink             receives samples in time order on the calling thread, holds the samples up to the
+     *                         point of cancellation if cancelled
+     * @param samplesPerSecond samples per second of audio, between 1 and the sample rate of the file
+     * @return true if the whole file was extracted, false if cancelled
+     * @throws IOException          if file can not be read or is not 16 bit PCM WAV
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public boolean extract(File wavFile, SampleSink sink, int samplesPerSecond)
+            throws IOException, InterruptedException {
+        cancelled = false;
+        long dataOffset;
+        long dataBytes;
+        int sampleRate;
+        int channelCount;
+        WavFileSource header = new WavFileSource(wavFile);
+        try {
+            dataOffset = header.getDataOffset();
+            dataBytes = header.getDataBytes();
+            sampleRate = header.getSampleRate();
+            channelCount = header.getChannelCount();
+        } finally {
+            header.close();
+        }
+        RandomAccessFile file = new RandomAccessFile(wavFile, "r");
+        try {
+            //Header sizes of files that were not closed are unknown, use what is on disk
+            long frameBytes = 2L * channelCount;
+            long totalFrames = Math.min(dataBytes, file.length() - dataOffset) / frameBytes;
+            FileChannel channel = file.getChannel();
+            Chunks chunks = new Chunks(channel, dataOffset, totalFrames, sampleRate, channelCount, samplesPerSecond);
+            return run(chunks, sink, totalFrames);
+        } finally {
+            file.close();
+        }
+    }
+
+    private boolean run(Chunks chunks, SampleSink sink, long totalFrames) throws IOException, InterruptedException {
+        ArrayDeque<Future<ChunkResult>> inFlight = new ArrayDeque<Future<ChunkResult>>();
+        int nextChunk = 0;
+        int window = 2 * parallelism;
+        try {
+            while (true) {
+                while (inFlight.size() < window && nextChunk < chunks.count && !cancelled) {
+                    inFlight.add(executor.submit(chunks.task(nextChunk++)));
+                }
+                Future<ChunkResult> head = inFlight.poll();
+                if (head == null || cancelled) {
+                    return !cancelled;
+                }
+                ChunkResult result;
+                try {
+                    result = head.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw new IOException(cause);
+                }
+                if (result == null) {//Chunk saw the cancel
+                    return false;
+                }
+                for (int i = 0; i < result.size; i++) {
+                    sink.add(result.times[i], result.amplitudes[i]);
+                }
+                ExtractionListener progress = listener;
+                if (progress != null) {
+                    progress.onProgress(result.endFrame, totalFrames);
+                }
+            }
+        } finally {
+            if (!inFlight.isEmpty()) {
+                //Not interrupting, an interrupt during a read would close the channel under the other chunks
+                cancelled = true;
+                for (Future<ChunkResult> future : inFlight) {
+                    future.cancel(false);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        cancelled = true;
+        if (ownExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reduced samples of one chunk, kept until the chunks before it are merged
+     */
+    private static final class ChunkResult implements SampleSink {
+        final long[] times;
+        final int[] amplitudes;
+        final long endFrame;
+        int size = 0;
+
+        ChunkResult(int capacity, long endFrame) {
+            times = new long[capacity];
+            amplitudes = new int[capacity];
+            this.endFrame = endFrame;
+        }
+
+        @Override
+        public void add(long time, int amplitude) {
+            times[size] = time;
+            amplitudes[size] = amplitude;
+            size++;
+        }
+    }
+
+    /**
+     * Splits the data chunk at output block boundaries, so each chunk reduces the same blocks a sequential pass would
+     */
+    private final class Chunks {
+        final FileChannel channel;
+        final long dataOffset;
+        final long totalFrames;
+        final int sampleRate;
+        final int channelCount;
+        final int outputRate;
+        final long blocksPerChunk;
+        final int count;
+        final boolean rms;
+
+        Chunks(FileChannel channel, long dataOffset, long totalFrames, int sampleRate, int channelCount,
+               int outputRate) {
+            if (outputRate < 1 || outputRate > sampleRate) {
+                throw new IllegalArgumentException("Output rate must be between 1 and " + sampleRate + ": "
+                        + outputRate);
+            }
+            this.channel = channel;
+            this.dataOffset = dataOffset;
+            this.totalFrames = totalFrames;
+            this.sampleRate = sampleRate;
+            this.channelCount = channelCount;
+            this.outputRate = outputRate;
+            blocksPerChunk = Math.max(1, (long) chunkFrames * outputRate / sampleRate);
+            //Blocks covering all frames, the last one may be partial
+            long blocks = (totalFrames * outputRate + sampleRate - 1) / sampleRate;
+            count = (int) ((blocks + blocksPerChunk - 1) / blocksPerChunk);
+            rms = reduction == PcmIngest.REDUCE_RMS;
+        }
+
+        long frameOf(long block) {
+            return Math.min(totalFrames, block * sampleRate / outputRate);
+        }
+
+        Callable<ChunkResult> task(final int chunk) {
+            return new Callable<ChunkResult>() {
+                @Override
+                public ChunkResult call() throws IOException {
+                    return reduce(chunk);
+                }
+            };
+        }
+
+        ChunkResult reduce(int chunk) throws IOException {
+            long firstBlock = chunk * blocksPerChunk;
+            long startFrame = frameOf(firstBlock);
+            long endFrame = frameOf(firstBlock + blocksPerChunk);
+            ChunkResult result = new ChunkResult((int) blocksPerChunk, endFrame);
+            PcmReducer reducer = new PcmReducer(result, sampleRate, channelCount, outputRate, firstBlock);
+            reducer.setRms(rms);
+            ByteBuffer bytes = ByteBuffer.allocate(READ_BYTES);
+            short[] samples = new short[READ_BYTES / 2];
+            long position = dataOffset + startFrame * 2 * channelCount;
+            long end = dataOffset + endFrame * 2 * channelCount;
+            while (position < end) {
+                if (cancelled) {
+                    return null;
+                }
+                bytes.clear();
+                bytes.limit((int) Math.min(READ_BYTES, end - position));
+                while (bytes.hasRemaining()) {
+                    int read = channel.read(bytes, position + bytes.position());
+                    if (read < 0) {
+                        throw new IOException("Unexpected end of file");
+                    }
+                }
+                int count = bytes.position() / 2;
+                WavFileSource.toShorts(bytes.array(), samples, 0, count);
+                reducer.reduce(samples, 0, count);
+                position += bytes.position();
+            }
+            if (endFrame == totalFrames) {
+                reducer.finish();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Compact versioned binary waveform file, used to save a recording's samples and restore its graph
+ * without decoding the audio. Written by {@link WaveformWriter} and read by {@link WaveformReader}
+ * <p>
+ * Layout, multi byte header fields little endian:
+ * <pre>
+ * 0   int   magic "AGWF"
+ * 4   short version
+ * 6   short flags, 0
+ * 8   int   amplitude quantization step
+ * 12  int   samples per peak summary bucket
+ * 16  long  sample count, -1 while the writer is open
+ * 24  long  offset of the peak summary block, 0 while the writer is open
+ * 32  samples: zigzag varint time delta from previous sample, zigzag varint quantized amplitude
+ * ... peak summary: varint bucket count, then per bucket zigzag varint time delta from previous bucket
+ *     and zigzag varint quantized peak (the bucket sample farthest from 0)
+ * </pre>
+ * A file left open by a killed process has no count and summary, its samples are read up to the last complete one
+ */
+public final class WaveformFile {
+
+    public static final String FILE_EXTENSION = ".waveform";
+    static final int MAGIC = 0x46574741;//"AGWF"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int SAMPLE_COUNT_OFFSET = 16;
+    static final int SUMMARY_OFFSET_OFFSET = 24;
+    static final int DEFAULT_SUMMARY_BUCKET_SIZE = 256;
+    static final long UNFINISHED = -1;
+
+    private WaveformFile() {
+    }
+
+    /**
+     * Returns waveform file kept next to an audio file, e.g. recorder.waveform for recorder.mp3
+     *
+     * @param audioFilePath path of the recorded audio file
+     * @return waveform file in the same directory
+     */
+    public static File fileFor(String audioFilePath) {
+        return siblingFile(audioFilePath, FILE_EXTENSION);
+    }
+
+    /**
+     * Save all samples of the source
+     *
+     * @param samples          samples to save
+     * @param file             waveform file, replaced if it exists
+     * @param quantizationStep amplitudes are stored as multiples of this, 1 keeps them exact
+     * @throws IOException if file can not be written
+     */
+    public static void write(SampleSource samples, File file, int quantizationStep) throws IOException {
+        WaveformWriter writer = new WaveformWriter(file, quantizationStep);
+        try {
+            int size = samples.size();
+            for (int i = 0; i < size; i++) {
+                writer.write(samples.getTime(i), samples.getAmplitude(i));
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Read all samples of a waveform file
+     *
+     * @param file  waveform file
+     * @param store samples are appended to this store
+     * @return the store
+     * @throws IOException if file can not be read or is not a waveform file
+     */
+    public static SampleStore read(File file, SampleStore store) throws IOException {
+        WaveformReader reader = new WaveformReader(new FileInputStream(file));
+        try {
+            while (reader.next()) {
+                store.add(reader.getTime(), reader.getAmplitude());
+            }
+        } finally {
+            reader.close();
+        }
+        return store;
+    }
+
+    /**
+     * Read only the peak summary block, one sample per bucket of the recording. Plotting the summary restores an
+     * overview of a long recording without reading its samples
+     *
+     * @param file  waveform file
+     * @param store bucket start time and peak are appended to this store
+     * @return the store, left empty if the file was not closed by its writer
+     * @throws IOException if file can not be read or is not a waveform file
+     */
+    public static SampleStore readSummary(File file, SampleStore store) throws IOException {
+        WaveformReader reader = new WaveformReader(new FileInputStream(file));
+        try {
+            reader.readSummary(store);
+        } finally {
+            reader.close();
+        }
+        return store;
+    }
+
+    static File siblingFile(String path, String extension) {
+        File file = new File(path);
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+        return new File(file.getParentFile(), name + extension);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,185 @@
+package com.anand.brose.graphviewlibrary;
+
+/**
+ * Multi resolution min/max/RMS summary of sample amplitudes for zoomed out full graph.
+ * Level L holds one bucket per 2^L samples, buckets are added incrementally as samples arrive.
+ * Levels below {@link #BASE_LEVEL} are not stored, a few raw samples are cheaper to read than to keep.
+ * Rebuilt when the source changes or was cleared, maybe refilled since, so only the render thread touches it
+ */
+final class WaveformPyramid {
+
+    static final int BASE_LEVEL = 3;//8 samples per bucket
+    private static final int BASE_BUCKET_SIZE = 1 << BASE_LEVEL;
+
+    private Level[] levels = new Level[8];
+    private int topLevel = BASE_LEVEL - 1;
+    private SampleSource source;
+    private int built = 0;
+    private long lastBuiltTime;
+    //Base bucket being filled
+    private int partialMin;
+    private int partialMax;
+    private double partialSumSquares;
+    private int partialCount = 0;
+
+    /**
+     * Add samples appended to the source since last update
+     *
+     * @param source      source being plotted
+     * @param sampleCount size snapshot of the source
+     */
+    synchronized void update(SampleSource source, int sampleCount) {
+        if (source != this.source || sampleCount < built || (built > 0 && source.getTime(built - 1) != lastBuiltTime)) {
+            //Another source or it was cleared, maybe refilled since
+            this.source = source;
+            clear();
+        }
+        if (sampleCount == built) {
+            return;
+        }
+        for (int i = built; i < sampleCount; i++) {
+            int amplitude = source.getAmplitude(i);
+            if (partialCount == 0) {
+                partialMin = amplitude;
+                partialMax = amplitude;
+                partialSumSquares = 0;
+            } else {
+                partialMin = Math.min(partialMin, amplitude);
+                partialMax = Math.max(partialMax, amplitude);
+            }
+            partialSumSquares += (double) amplitude * amplitude;
+            partialCount++;
+            if (partialCount == BASE_BUCKET_SIZE) {
+                push(BASE_LEVEL, partialMin, partialMax, (float) (partialSumSquares / BASE_BUCKET_SIZE));
+                partialCount = 0;
+            }
+        }
+        built = sampleCount;
+        lastBuiltTime = source.getTime(sampleCount - 1);
+    }
+
+    /**
+     * Drop all buckets
+     */
+    private void clear() {
+        for (int level = BASE_LEVEL; level <= topLevel; level++) {
+            levels[level].count = 0;
+        }
+        built = 0;
+        partialCount = 0;
+    }
+
+    /**
+     * @return no of samples summarized so far
+     */
+    synchronized int size() {
+        return built;
+    }
+
+    /**
+     * Reduce amplitudes of samples from index to index - 1.
+     * Range is covered with the largest complete buckets aligned inside it, so a range of n samples
+     * reads buckets of the level matching n and only raw samples at unaligned edges
+     *
+     * @param source source being plotted, used for raw edge samples
+     * @param from   first sample index
+     * @param to     sample index after the last one, at most {@link #size()}
+     * @param out    receives min, max and RMS of the range
+     */
+    synchronized void reduce(SampleSource source, int from, int to, Bucket out) {
+        out.clear();
+        int index = from;
+        while (index < to) {
+            int level = index == 0 ? topLevel : Math.min(topLevel, Integer.numberOfTrailingZeros(index));
+            while (level >= BASE_LEVEL && (index + (1 << level) > to || (index >>> level) >= levels[level].count)) {
+                level--;
+            }
+            if (level >= BASE_LEVEL) {
+                Level bucketLevel = levels[level];
+                int bucket = index >>> level;
+                out.add(bucketLevel.min[bucket], bucketLevel.max[bucket], bucketLevel.meanSquare[bucket], 1 << level);
+                index += 1 << level;
+            } else {
+                int amplitude = source.getAmplitude(index);
+                out.add(amplitude, amplitude, (float) amplitude * amplitude, 1);
+                index++;
+            }
+        }
+    }
+
+    private void push(int level, int min, int max, float meanSquare) {
+        if (level > topLevel) {
+            if (level == levels.length) {
+                Level[] newLevels = new Level[levels.length * 2];
+                System.arraycopy(levels, 0, newLevels, 0, levels.length);
+                levels = newLevels;
+            }
+            if (levels[level] == null) {
+                levels[level] = new Level();
+            }
+            topLevel = level;
+        }
+        Level bucketLevel = levels[level];
+        int bucket = bucketLevel.add(min, max, meanSquare);
+        if ((bucket & 1) == 1) {//Completed a pair, merge it into the level above
+            push(level + 1, Math.min(bucketLevel.min[bucket - 1], min), Math.max(bucketLevel.max[bucket - 1], max),
+                    (bucketLevel.meanSquare[bucket - 1] + meanSquare) / 2);
+        }
+    }
+
+    /**
+     * Buckets of one level
+     */
+    private static final class Level {
+        int[] min = new int[64];
+        int[] max = new int[64];
+        float[] meanSquare = new float[64];
+        int count = 0;
+
+        int add(int bucketMin, int bucketMax, float bucketMeanSquare) {
+            if (count == min.length) {
+                int[] newMin = new int[count * 2];
+                int[] newMax = new int[count * 2];
+                float[] newMeanSquare = new float[count * 2];
+                System.arraycopy(min, 0, newMin, 0, count);
+                System.arraycopy(max, 0, newMax, 0, count);
+                System.arraycopy(meanSquare, 0, newMeanSquare, 0, count);
+                min = newMin;
+                max = newMax;
+                meanSquare = newMeanSquare;
+            }
+            min[count] = bucketMin;
+            max[count] = bucketMax;
+            meanSquare[count] = bucketMeanSquare;
+            return count++;
+        }
+    }
+
+    /**
+     * Reusable result of {@link #reduce(SampleSource, int, int, Bucket)}
+     */
+    static final class Bucket {
+        int min;
+        int max;
+        int count;
+        private double sumSquares;
+
+        void clear() {
+            min = Integer.MAX_VALUE;
+            max = Integer.MIN_VALUE;
+            sumSquares = 0;
+            count = 0;
+        }
+
+        void add(int bucketMin, int bucketMax, float meanSquare, int samples) {
+            min = Math.min(min, bucketMin);
+            max = Math.max(max, bucketMax);
+            sumSquares += (double) meanSquare * samples;
+            count += samples;
+        }
+
+        int rms() {
+            return count == 0 ? 0 : (int) Math.sqrt(sumSquares / count);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streaming reader of a {@link WaveformFile}. Header is read on construction, samples are decoded one by one with
+ * {@link #next()} from a reused buffer, nothing is allocated per sample
+ */
+public class WaveformReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    //Stream offset of buffer[0]
+    private long bufferOffset = 0;
+    private final int version;
+    private final int quantizationStep;
+    private final int summaryBucketSize;
+    private final long sampleCount;
+    private final long summaryOffset;
+    private long readCount = 0;
+    private long time = 0;
+    private int amplitude = 0;
+
+    /**
+     * @param in stream positioned at the start of a waveform file, closed by {@link #close()}
+     * @throws IOException if stream can not be read or is not a waveform file
+     */
+    public WaveformReader(InputStream in) throws IOException {
+        this.in = in;
+        try {
+            fill(WaveformFile.HEADER_BYTES);
+        } catch (EOFException e) {
+            throw new IOException("Not a waveform file");
+        }
+        ByteBuffer header = ByteBuffer.wrap(buffer, 0, WaveformFile.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt() != WaveformFile.MAGIC) {
+            throw new IOException("Not a waveform file");
+        }
+        version = header.getShort();
+        if (version > WaveformFile.VERSION) {
+            throw new IOException("Unsupported waveform file version " + version);
+        }
+        header.getShort();//flags
+        quantizationStep = header.getInt();
+        summaryBucketSize = header.getInt();
+        sampleCount = header.getLong();
+        summaryOffset = header.getLong();
+        if (quantizationStep < 1) {
+            throw new IOException("Invalid quantization step " + quantizationStep);
+        }
+        position = WaveformFile.HEADER_BYTES;
+    }
+
+    /**
+     * Decode the next sample
+     *
+     * @return false after the last sample, for a file not closed by its writer after the last complete sample
+     * @throws IOException if stream can not be read or ends before the sample count in the header
+     */
+    public boolean next() throws IOException {
+        if (sampleCount != WaveformFile.UNFINISHED && readCount == sampleCount) {
+            return false;
+        }
+        try {
+            long nextTime = time + WaveformFile.unzigzag(readVarint());
+            amplitude = (int) WaveformFile.unzigzag(readVarint()) * quantizationStep;
+            time = nextTime;
+        } catch (EOFException e) {
+            if (sampleCount == WaveformFile.UNFINISHED) {
+                //Writer was killed, a partly written last sample is dropped
+                return false;
+            }
+            throw e;
+        }
+        readCount++;
+        return true;
+    }
+
+    /**
+     * @return time of the sample decoded by last {@link #next()}, in millisecond
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return amplitude of the sample decoded by last {@link #next()}
+     */
+    public int getAmplitude() {
+        return amplitude;
+    }
+
+    /**
+     * @return format version of the file
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return amplitudes are multiples of this
+     */
+    public int getQuantizationStep() {
+        return quantizationStep;
+    }
+
+    /**
+     * @return samples per peak summary bucket
+     */
+    public int getSummaryBucketSize() {
+        return summaryBucketSize;
+    }
+
+    /**
+     * @return no of samples in the file, -1 if the file was not closed by its writer
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return true if the file has a peak summary block
+     */
+    public boolean hasSummary() {
+        return summaryOffset != 0;
+    }
+
+    /**
+     * Skip remaining samples and read the peak summary block, one sample per bucket holding bucket start time and
+     * the bucket sample farthest from 0
+     *
+     * @param store summary samples are appended to this store, nothing is added if the file has no summary
+     * @throws IOException if stream can not be read
+     */
+    public void readSummary(SampleStore store) throws IOException {
+        if (!hasSummary()) {
+            return;
+        }
+        seek(summaryOffset);
+        long bucketCount = readVarint();
+        long bucketTime = 0;
+        for (long i = 0; i < bucketCount; i++) {
+            bucketTime += WaveformFile.unzigzag(readVarint());
+            store.add(bucketTime, (int) WaveformFile.unzigzag(readVarint()) * quantizationStep);
+        }
+        readCount = sampleCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position == limit) {
+                fill(1);
+            }
+            byte b = buffer[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Refill buffer keeping unread bytes, until at least minBytes are available
+     */
+    private void fill(int minBytes) throws IOException {
+        int remaining = limit - position;
+        System.arraycopy(buffer, position, buffer, 0, remaining);
+        bufferOffset += position;
+        position = 0;
+        limit = remaining;
+        while (limit < minBytes) {
+            int read = in.read(buffer, limit, BUFFER_SIZE - limit);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            limit += read;
+        }
+    }
+
+    private void seek(long offset) throws IOException {
+        long bufferEnd = bufferOffset + limit;
+        if (offset >= bufferOffset && offset <= bufferEnd) {
+            position = (int) (offset - bufferOffset);
+            return;
+        }
+        if (offset < bufferOffset) {
+            throw new IOException("Can not seek back to " + offset);
+        }
+        long toSkip = offset - bufferEnd;
+        while (toSkip > 0) {
+            long skipped = in.skip(toSkip);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            toSkip -= skipped;
+        }
+        bufferOffset = offset;
+        position = 0;
+        limit = 0;
+    }
+}
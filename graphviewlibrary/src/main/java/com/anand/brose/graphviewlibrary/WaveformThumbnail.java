@@ -0,0 +1,129 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Renders a whole recording as a fixed size full graph image without Android, using the same layout code as
+ * {@link GraphView#showFullGraph(SampleSource)} and a pure Java rasterizer. Can be used to produce PNG thumbnails
+ * in bulk, e.g. on a server from saved {@link WaveformFile}s.
+ * An instance reuses its pixel buffer and pyramid, render one image at a time per instance
+ */
+public class WaveformThumbnail {
+
+    private final RasterGraphRenderer renderer;
+    private final TimeLabels timeLabels = new TimeLabels();
+    private final FullGraphLayout layout = new FullGraphLayout(timeLabels);
+    private final TimeMarkers timeMarkers = new TimeMarkers();
+    private int canvasColor = 0xFF000000;
+    private int graphColor = 0xFFFFFFFF;
+    private int timeColor = 0xFFFAFAFA;
+    private int maxAmplitude = 35000;
+    private int timeScale = 5 * 1000;
+    private int waveLength = 8;
+
+    /**
+     * @param width  image width in px
+     * @param height image height in px
+     */
+    public WaveformThumbnail(int width, int height) {
+        renderer = new RasterGraphRenderer(width, height);
+        renderer.setTextSize(14);
+    }
+
+    /**
+     * @param canvasColor background ARGB color
+     */
+    public void setCanvasColor(int canvasColor) {
+        this.canvasColor = canvasColor;
+    }
+
+    /**
+     * @param graphColor wave ARGB color
+     */
+    public void setGraphColor(int graphColor) {
+        this.graphColor = graphColor;
+    }
+
+    /**
+     * @param timeColor time label ARGB color
+     */
+    public void setTimeColor(int timeColor) {
+        this.timeColor = timeColor;
+    }
+
+    /**
+     * @param textSize time label height in px
+     */
+    public void setTextSize(int textSize) {
+        renderer.setTextSize(textSize);
+    }
+
+    /**
+     * @param maxAmplitude amplitude drawn at full half height
+     */
+    public void setMaxAmplitude(int maxAmplitude) {
+        this.maxAmplitude = maxAmplitude;
+    }
+
+    /**
+     * @param timeScale time marker interval in millisecond
+     */
+    public void setTimeScale(int timeScale) {
+        this.timeScale = timeScale;
+    }
+
+    /**
+     * @param waveLength wave width in px used while all samples fit in the image width
+     */
+    public void setWaveLength(int waveLength) {
+        this.waveLength = waveLength;
+    }
+
+    /**
+     * Render all samples fitted into the image width, one peak per px column when samples don't fit as waves
+     *
+     * @param samples source to render
+     * @return ARGB pixels row by row, the buffer is reused by the next render
+     */
+    public int[] render(SampleSource samples) {
+        int width = renderer.getWidth();
+        int sampleCount = samples.size();
+        float samplesPerPixel = (long) sampleCount * waveLength > width ? (float) sampleCount / width : 0;
+        renderer.setColors(canvasColor, graphColor, 0, timeColor, 0);
+        layout.configure(waveLength, samplesPerPixel, timeScale, renderer.getHeight() / 2, maxAmplitude,
+                renderer.getTextWidth("00:00") + 4);
+        layout.render(samples, sampleCount, 0, width, timeMarkers, renderer);
+        return renderer.getPixels();
+    }
+
+    /**
+     * Render samples and encode the image as PNG
+     *
+     * @param samples source to render
+     * @param out     receives the PNG, not closed
+     * @throws IOException if out can not be written
+     */
+    public void writePng(SampleSource samples, OutputStream out) throws IOException {
+        PngWriter.write(render(samples), renderer.getWidth(), renderer.getHeight(), out);
+    }
+
+    /**
+     * Render samples into a PNG file
+     *
+     * @param samples source to render
+     * @param file    PNG file, replaced if it exists
+     * @throws IOException if file can not be written
+     */
+    public void writePng(SampleSource samples, File file) throws IOException {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            writePng(samples, out);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streaming writer of a {@link WaveformFile}. Samples are encoded into a reused buffer, nothing is allocated per
+ * sample. Peak summary is built while writing and appended on {@link #close()}, which also completes the header.
+ * Samples written before {@link #flush()} survive a process killed before close
+ */
+public class WaveformWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_SAMPLE_BYTES = 20;//Two 10 byte varints
+
+    private final FileOutputStream out;
+    private final int quantizationStep;
+    private final int summaryBucketSize;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+    //Bytes already handed to the stream
+    private long fileOffset = 0;
+    private long sampleCount = 0;
+    private long previousTime = 0;
+    //Peak summary, encoded as it grows
+    private byte[] summary = new byte[256];
+    private int summaryLength = 0;
+    private int bucketCount = 0;
+    private int bucketSamples = 0;
+    private long bucketTime = 0;
+    private int bucketPeak = 0;
+    private long previousBucketTime = 0;
+    private boolean closed = false;
+
+    /**
+     * @param file waveform file, replaced if it exists, amplitudes are kept exact
+     * @throws IOException if file can not be created
+     */
+    public WaveformWriter(File file) throws IOException {
+        this(file, 1);
+    }
+
+    /**
+     * @param file             waveform file, replaced if it exists
+     * @param quantizationStep amplitudes are stored as nearest multiple of this, 1 keeps them exact
+     * @throws IOException if file can not be created
+     */
+    public WaveformWriter(File file, int quantizationStep) throws IOException {
+        this(file, quantizationStep, WaveformFile.DEFAULT_SUMMARY_BUCKET_SIZE);
+    }
+
+    WaveformWriter(File file, int quantizationStep, int summaryBucketSize) throws IOException {
+        if (quantizationStep < 1) {
+            throw new IllegalArgumentException("Quantization step must be positive: " + quantizationStep);
+        }
+        this.quantizationStep = quantizationStep;
+        this.summaryBucketSize = summaryBucketSize;
+        out = new FileOutputStream(file);
+        ByteBuffer header = ByteBuffer.wrap(buffer, 0, WaveformFile.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(WaveformFile.MAGIC);
+        header.putShort((short) WaveformFile.VERSION);
+        header.putShort((short) 0);
+        header.putInt(quantizationStep);
+        header.putInt(summaryBucketSize);
+        header.putLong(WaveformFile.UNFINISHED);
+        header.putLong(0);
+        position = WaveformFile.HEADER_BYTES;
+    }
+
+    /**
+     * Append a sample, times are expected in recording order
+     *
+     * @param time      in millisecond
+     * @param amplitude sample amplitude
+     * @throws IOException if file can not be written
+     */
+    public void write(long time, int amplitude) throws IOException {
+        if (position > BUFFER_SIZE - MAX_SAMPLE_BYTES) {
+            drain();
+        }
+        int quantized = quantize(amplitude);
+        position = putVarint(buffer, position, WaveformFile.zigzag(time - previousTime));
+        position = putVarint(buffer, position, WaveformFile.zigzag(quantized));
+        previousTime = time;
+        sampleCount++;
+
+        if (bucketSamples == 0) {
+            bucketTime = time;
+            bucketPeak = quantized;
+        } else if (Math.abs((long) quantized) > Math.abs((long) bucketPeak)) {
+            bucketPeak = quantized;
+        }
+        if (++bucketSamples == summaryBucketSize) {
+            closeBucket();
+        }
+    }
+
+    /**
+     * Hand buffered samples to the file, they are readable after a crash from here on
+     *
+     * @throws IOException if file can not be written
+     */
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    /**
+     * @return no of samples written
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Write peak summary and complete the header
+     *
+     * @throws IOException if file can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (bucketSamples > 0) {
+                closeBucket();
+            }
+            drain();
+            long summaryOffset = fileOffset;
+            position = putVarint(buffer, 0, bucketCount);
+            drain();
+            out.write(summary, 0, summaryLength);
+            ByteBuffer patch = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+            patch.putLong(sampleCount);
+            patch.putLong(summaryOffset);
+            patch.flip();
+            out.getChannel().write(patch, WaveformFile.SAMPLE_COUNT_OFFSET);
+        } finally {
+            out.close();
+        }
+    }
+
+    private int quantize(int amplitude) {
+        if (quantizationStep == 1) {
+            return amplitude;
+        }
+        int half = quantizationStep / 2;
+        return (amplitude >= 0 ? amplitude + half : amplitude - half) / quantizationStep;
+    }
+
+    private void closeBucket() {
+        if (summaryLength > summary.length - MAX_SAMPLE_BYTES) {
+            byte[] grown = new byte[summary.length * 2];
+            System.arraycopy(summary, 0, grown, 0, summaryLength);
+            summary = grown;
+        }
+        summaryLength = putVarint(summary, summaryLength, WaveformFile.zigzag(bucketTime - previousBucketTime));
+        summaryLength = putVarint(summary, summaryLength, WaveformFile.zigzag(bucketPeak));
+        previousBucketTime = bucketTime;
+        bucketCount++;
+        bucketSamples = 0;
+    }
+
+    private void drain() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            fileOffset += position;
+            position = 0;
+        }
+    }
+
+    static int putVarint(byte[] target, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            target[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[offset++] = (byte) value;
+        return offset;
+    }
+}
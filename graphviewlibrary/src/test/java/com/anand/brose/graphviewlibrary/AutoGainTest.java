@@ -0,0 +1,74 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AutoGain} attack, release, floor and source changes
+ */
+public class AutoGainTest {
+
+    private static final long FRAME = 16666667L;
+
+    @Test
+    public void followsWindowedMaxSmoothly() throws Exception {
+        SampleStore store = new SampleStore();
+        AutoGain gain = new AutoGain(2000);
+        store.add(0, 1000);
+        long now = FRAME;
+        assertEquals(Math.round(1000 * AutoGain.HEADROOM), gain.update(store, store.size(), 10, now));
+        assertTrue(gain.isSettled());
+
+        //Louder sample is reached within a few attack time constants
+        store.add(100, 10000);
+        int previous = 1100;
+        int frames = 0;
+        while (true) {
+            now += FRAME;
+            int scale = gain.update(store, store.size(), 10, now);
+            assertTrue("grows", scale >= previous);
+            previous = scale;
+            frames++;
+            if (gain.isSettled()) {
+                break;
+            }
+        }
+        assertEquals(11000, previous);
+        assertTrue("attack took " + frames + " frames", frames * FRAME < 6 * AutoGain.ATTACK_NANOS);
+
+        //Loud sample leaves the window, scale shrinks slower than it grew
+        for (int i = 1; i <= 30; i++) {
+            store.add(100 + i * 100, 500);
+        }
+        now += FRAME;
+        int scale = gain.update(store, store.size(), 10, now);
+        assertTrue(scale < 11000 && scale > 10000);
+        now += AutoGain.RELEASE_NANOS * 10;
+        assertEquals(550, gain.update(store, store.size(), 10, now));
+
+        //Silence is not scaled past the floor
+        for (int i = 31; i <= 60; i++) {
+            store.add(100 + i * 100, 0);
+        }
+        now += AutoGain.RELEASE_NANOS * 10;
+        assertEquals(350, gain.update(store, store.size(), 350, now));
+    }
+
+    @Test
+    public void clearedSourceStartsAgain() throws Exception {
+        SampleStore store = new SampleStore();
+        AutoGain gain = new AutoGain(1000);
+        store.add(0, 20000);
+        gain.update(store, store.size(), 1, FRAME);
+        //Cleared and refilled between two updates
+        store.clear();
+        store.add(5, 100);
+        //Old max is forgotten, scale still moves there smoothly
+        int scale = gain.update(store, store.size(), 1, 2 * FRAME);
+        assertTrue(scale < 22000 && scale > 110);
+        assertFalse(gain.isSettled());
+        gain.reset();
+        assertEquals(110, gain.update(store, store.size(), 1, 3 * FRAME));
+    }
+}
@@ -0,0 +1,132 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CoalescingExecutor} latest request wins behaviour
+ */
+public class CoalescingExecutorTest {
+
+    @Test(timeout = 10000)
+    public void burstRunsOnlyLatestTask() throws Exception {
+        CoalescingExecutor executor = new CoalescingExecutor("test");
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger lastRun = new AtomicInteger(-1);
+        final CountDownLatch latestDone = new CountDownLatch(1);
+
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        assertFalse(executor.hasPending());
+        //Burst while the first task blocks the worker
+        for (int i = 0; i < 100; i++) {
+            final int request = i;
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    lastRun.set(request);
+                    if (request == 99) {
+                        latestDone.countDown();
+                    }
+                }
+            });
+        }
+        assertTrue(executor.hasPending());
+        release.countDown();
+        assertTrue(latestDone.await(5, TimeUnit.SECONDS));
+        Thread.sleep(20);
+        assertEquals(99, lastRun.get());
+        assertEquals(101, executor.getReceivedCount());
+        assertEquals(2, executor.getExecutedCount());
+        executor.stop();
+    }
+
+    @Test(timeout = 10000)
+    public void restartsAfterStop() throws Exception {
+        CoalescingExecutor executor = new CoalescingExecutor("test");
+        final CountDownLatch done = new CountDownLatch(2);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        };
+        executor.submit(task);
+        Thread.sleep(20);
+        executor.stop();
+        executor.submit(task);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.stop();
+    }
+
+    @Test(timeout = 10000)
+    public void submitAfterStopWaitsForRunningTask() throws Exception {
+        final CoalescingExecutor executor = new CoalescingExecutor("test");
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                enter(active, maxActive);
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                active.decrementAndGet();
+            }
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        //Surface destroyed and created again while the worker is still busy
+        for (int i = 0; i < 10; i++) {
+            final boolean last = i == 9;
+            executor.stop();
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    enter(active, maxActive);
+                    active.decrementAndGet();
+                    if (last) {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        Thread.sleep(50);
+        //Only the blocked task runs, the latest submit waits for it
+        assertEquals(1, active.get());
+        assertEquals(0, executor.getExecutedCount());
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, maxActive.get());
+        executor.stop();
+    }
+
+    private static void enter(AtomicInteger active, AtomicInteger maxActive) {
+        int count = active.incrementAndGet();
+        int max;
+        while ((max = maxActive.get()) < count && !maxActive.compareAndSet(max, count)) {
+        }
+    }
+}
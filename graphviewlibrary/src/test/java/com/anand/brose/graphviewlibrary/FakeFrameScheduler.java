@@ -0,0 +1,59 @@
+package com.anand.brose.graphviewlibrary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link FrameScheduler} with a fake clock, frames are produced only by {@link #nextFrame()}
+ */
+class FakeFrameScheduler implements FrameScheduler {
+
+    static final long FRAME_NANOS = 16666667L;
+
+    private final List<FrameCallback> callbacks = new ArrayList<>();
+    private long frameTimeNanos = 0;
+    private int posted = 0;
+
+    @Override
+    public synchronized void postFrameCallback(FrameCallback callback) {
+        callbacks.add(callback);
+        posted++;
+    }
+
+    @Override
+    public synchronized void removeFrameCallback(FrameCallback callback) {
+        callbacks.remove(callback);
+    }
+
+    /**
+     * Advance the clock by one frame and call all posted callbacks
+     *
+     * @return no of callbacks called
+     */
+    int nextFrame() {
+        List<FrameCallback> current;
+        long time;
+        synchronized (this) {
+            frameTimeNanos += FRAME_NANOS;
+            time = frameTimeNanos;
+            current = new ArrayList<>(callbacks);
+            callbacks.clear();
+        }
+        for (FrameCallback callback : current) {
+            callback.doFrame(time);
+        }
+        return current.size();
+    }
+
+    synchronized long getFrameTimeNanos() {
+        return frameTimeNanos;
+    }
+
+    synchronized int getPendingCount() {
+        return callbacks.size();
+    }
+
+    synchronized int getPostedCount() {
+        return posted;
+    }
+}
@@ -0,0 +1,81 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link FlingTrajectory} deceleration, bounds and tile prediction
+ */
+public class FlingTrajectoryTest {
+
+    private static final long MS = 1000000L;
+    private static final int TILE_WIDTH = 256;
+    private static final int VIEW_WIDTH = 1080;
+
+    @Test
+    public void deceleratesToFinalPosition() throws Exception {
+        FlingTrajectory fling = new FlingTrajectory(0, -4000, -1000000, 0, 0);
+        //Free path: v * tau * (1 - vmin / v)
+        float expected = (float) (-4000 * FlingTrajectory.TIME_CONSTANT * (1 - FlingTrajectory.MIN_VELOCITY / 4000));
+        assertEquals(expected, fling.getFinalPosition(), 0.5f);
+        assertEquals(FlingTrajectory.TIME_CONSTANT * Math.log(4000 / FlingTrajectory.MIN_VELOCITY),
+                fling.getDurationNanos() / 1e9, 1e-6);
+
+        float previous = 0;
+        float previousStep = Float.MAX_VALUE;
+        for (long t = 16 * MS; !fling.isFinished(t); t += 16 * MS) {
+            float position = fling.positionAt(t);
+            float step = previous - position;
+            assertTrue("moves left at " + t, step > 0);
+            assertTrue("slows down at " + t, step <= previousStep);
+            assertTrue(Math.abs(fling.velocityAt(t)) < 4000);
+            previous = position;
+            previousStep = step;
+        }
+        assertEquals(fling.getFinalPosition(), fling.positionAt(fling.getDurationNanos() + MS), 0);
+        assertEquals(0, fling.velocityAt(fling.getDurationNanos()), 0);
+    }
+
+    @Test
+    public void stopsAtBound() throws Exception {
+        FlingTrajectory fling = new FlingTrajectory(-100, 8000, -1000000, 0, 0);
+        assertEquals(0, fling.getFinalPosition(), 0);
+        FlingTrajectory free = new FlingTrajectory(-100, 8000, -1000000, 1000000, 0);
+        assertTrue(fling.getDurationNanos() < free.getDurationNanos());
+        assertEquals(0, fling.positionAt(fling.getDurationNanos() / 2 * 3), 0);
+        assertTrue(fling.positionAt(fling.getDurationNanos() / 2) < 0);
+
+        //Slower than the stop velocity does not move
+        FlingTrajectory slow = new FlingTrajectory(-100, 10, -1000, 0, 0);
+        assertTrue(slow.isFinished(0));
+        assertEquals(-100, slow.getFinalPosition(), 0);
+    }
+
+    @Test
+    public void predictsTilesNearestFirst() throws Exception {
+        int[] tiles = new int[16];
+        //Moving into the recording, offset grows
+        FlingTrajectory forward = new FlingTrajectory(-1000, -6000, -1000000, 0, 0);
+        int count = forward.predictTiles(0, 300 * MS, VIEW_WIDTH, TILE_WIDTH, tiles);
+        int lastVisible = (1000 + VIEW_WIDTH) / TILE_WIDTH;
+        int aheadOffset = (int) -forward.positionAt(300 * MS);
+        assertEquals((aheadOffset + VIEW_WIDTH) / TILE_WIDTH - lastVisible, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(lastVisible + 1 + i, tiles[i]);
+        }
+
+        //Moving back to the start stops at tile 0
+        FlingTrajectory back = new FlingTrajectory(-1000, 6000, -1000000, 0, 0);
+        count = back.predictTiles(0, 300 * MS, VIEW_WIDTH, TILE_WIDTH, tiles);
+        assertEquals(1000 / TILE_WIDTH, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(1000 / TILE_WIDTH - 1 - i, tiles[i]);
+        }
+
+        //Finished fling predicts nothing, output is bounded by the array
+        assertEquals(0, back.predictTiles(back.getDurationNanos(), 300 * MS, VIEW_WIDTH, TILE_WIDTH, tiles));
+        FlingTrajectory fast = new FlingTrajectory(0, -30000, -10000000, 0, 0);
+        assertEquals(2, fast.predictTiles(0, 300 * MS, VIEW_WIDTH, TILE_WIDTH, new int[2]));
+    }
+}
@@ -0,0 +1,211 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link FramePacer} and {@link RealtimeScroll} driven by {@link FakeFrameScheduler}
+ */
+public class FramePacerTest {
+
+    @Test
+    public void requestsAreCoalescedToOneFrame() throws Exception {
+        FakeFrameScheduler scheduler = new FakeFrameScheduler();
+        FramePacer pacer = new FramePacer(scheduler);
+        pacer.attach();
+        pacer.requestFrame();
+        pacer.requestFrame();
+        pacer.requestFrame();
+        assertEquals(1, scheduler.getPendingCount());
+        assertEquals(1, scheduler.nextFrame());
+        assertEquals(scheduler.getFrameTimeNanos(), pacer.awaitFrame());
+
+        //No request, no callback
+        assertEquals(0, scheduler.nextFrame());
+        pacer.requestFrame();
+        assertEquals(2, scheduler.getPostedCount());
+    }
+
+    @Test(timeout = 10000)
+    public void renderThreadParksUntilFrame() throws Exception {
+        final FakeFrameScheduler scheduler = new FakeFrameScheduler();
+        final FramePacer pacer = new FramePacer(scheduler);
+        final CountDownLatch attached = new CountDownLatch(1);
+        final AtomicLong rendered = new AtomicLong(-1);
+        Thread renderThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                pacer.attach();
+                pacer.requestFrame();
+                attached.countDown();
+                rendered.set(pacer.awaitFrame());
+            }
+        });
+        renderThread.start();
+        assertTrue(attached.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(-1, rendered.get());
+        scheduler.nextFrame();
+        renderThread.join();
+        assertEquals(FakeFrameScheduler.FRAME_NANOS, rendered.get());
+    }
+
+    @Test(timeout = 10000)
+    public void pausedThreadParksUntilWakeUpOrStop() throws Exception {
+        final FakeFrameScheduler scheduler = new FakeFrameScheduler();
+        final FramePacer pacer = new FramePacer(scheduler);
+        final CountDownLatch attached = new CountDownLatch(1);
+        final CountDownLatch woken = new CountDownLatch(2);
+        Thread renderThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                pacer.attach();
+                attached.countDown();
+                pacer.awaitWakeUp(0);
+                woken.countDown();
+                pacer.awaitWakeUp(0);
+                woken.countDown();
+            }
+        });
+        renderThread.start();
+        assertTrue(attached.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(2, woken.getCount());
+        //Parked thread does not ask for frames
+        assertEquals(0, scheduler.getPostedCount());
+        pacer.wakeUp();
+        Thread.sleep(50);
+        assertEquals(1, woken.getCount());
+        pacer.stop();
+        renderThread.join();
+        assertTrue(pacer.isStopped());
+    }
+
+    @Test(timeout = 10000)
+    public void cancelledFrameReleasesThread() throws Exception {
+        final FakeFrameScheduler scheduler = new FakeFrameScheduler();
+        final FramePacer pacer = new FramePacer(scheduler);
+        final CountDownLatch attached = new CountDownLatch(1);
+        final AtomicLong rendered = new AtomicLong(-1);
+        Thread renderThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                pacer.attach();
+                pacer.requestFrame();
+                attached.countDown();
+                rendered.set(pacer.awaitFrame());
+            }
+        });
+        renderThread.start();
+        assertTrue(attached.await(5, TimeUnit.SECONDS));
+        pacer.cancelFrame();
+        renderThread.join();
+        assertEquals(FramePacer.NO_FRAME, rendered.get());
+        assertEquals(0, scheduler.getPendingCount());
+        assertFalse(pacer.isStopped());
+
+        //Pacer keeps running, the next request gets a frame
+        pacer.attach();
+        pacer.requestFrame();
+        assertEquals(1, scheduler.getPendingCount());
+        scheduler.nextFrame();
+        assertEquals(scheduler.getFrameTimeNanos(), pacer.awaitFrame());
+    }
+
+    @Test
+    public void idleWakeUpTimesOut() throws Exception {
+        FramePacer pacer = new FramePacer(new FakeFrameScheduler());
+        pacer.attach();
+        long start = System.nanoTime();
+        pacer.awaitWakeUp(TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    public void wakeUpCausesAreMergedAndCleared() throws Exception {
+        FramePacer pacer = new FramePacer(new FakeFrameScheduler());
+        pacer.attach();
+        pacer.wakeUp(GraphStats.WAKE_UP_SCROLL);
+        pacer.wakeUp(GraphStats.WAKE_UP_REDRAW);
+        pacer.wakeUp(GraphStats.WAKE_UP_SCROLL);
+        assertEquals(GraphStats.WAKE_UP_SCROLL | GraphStats.WAKE_UP_REDRAW, pacer.awaitWakeUp(0));
+
+        //Wake-ups of rendered changes are dropped before parking, the park then times out
+        pacer.wakeUp(GraphStats.WAKE_UP_SAMPLES);
+        assertEquals(GraphStats.WAKE_UP_SAMPLES, pacer.clearWakeUps());
+        assertEquals(0, pacer.awaitWakeUp(TimeUnit.MILLISECONDS.toNanos(5)));
+    }
+
+    @Test(timeout = 10000)
+    public void appendedSampleWakesIdleThread() throws Exception {
+        final FramePacer pacer = new FramePacer(new FakeFrameScheduler());
+        final SampleStore store = new SampleStore();
+        store.addSampleListener(new SampleListener() {
+            @Override
+            public void onSamplesChanged(SampleSource source) {
+                pacer.wakeUp(GraphStats.WAKE_UP_SAMPLES);
+            }
+        });
+        final CountDownLatch attached = new CountDownLatch(1);
+        final AtomicLong woken = new AtomicLong(-1);
+        final AtomicLong seenSize = new AtomicLong(-1);
+        Thread renderThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                pacer.attach();
+                pacer.clearWakeUps();
+                attached.countDown();
+                //Park without timeout like an idle thread plotting an observable source
+                woken.set(pacer.awaitWakeUp(0));
+                seenSize.set(store.size());
+            }
+        });
+        renderThread.start();
+        assertTrue(attached.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(-1, woken.get());
+        store.add(0, 100);
+        renderThread.join();
+        assertEquals(GraphStats.WAKE_UP_SAMPLES, woken.get());
+        assertEquals(1, seenSize.get());
+    }
+
+    @Test
+    public void scrollFollowsSampleInterval() throws Exception {
+        FakeFrameScheduler scheduler = new FakeFrameScheduler();
+        SampleStore store = new SampleStore();
+        store.add(0, 100);
+        store.add(150, 100);
+        RealtimeScroll scroll = new RealtimeScroll();
+        int waveLength = 9;
+
+        assertTrue(scroll.update(store, store.size(), scheduler.getFrameTimeNanos(), waveLength));
+        assertEquals(0, scroll.getRedrawCount());
+        int rendered = 0;
+        int lastRedraw = 0;
+        //150 ms between samples is 9 frames at 60 fps
+        for (int frame = 0; frame < 20; frame++) {
+            scheduler.nextFrame();
+            if (scroll.update(store, store.size(), scheduler.getFrameTimeNanos(), waveLength)) {
+                rendered++;
+                assertTrue(scroll.getRedrawCount() > lastRedraw);
+                lastRedraw = scroll.getRedrawCount();
+            }
+        }
+        assertEquals(waveLength, scroll.getRedrawCount());
+        assertTrue(scroll.isSettled(waveLength));
+        assertTrue(rendered <= 9);
+
+        //New sample restarts from 0
+        store.add(300, 100);
+        scheduler.nextFrame();
+        assertTrue(scroll.update(store, store.size(), scheduler.getFrameTimeNanos(), waveLength));
+        assertEquals(0, scroll.getRedrawCount());
+        assertFalse(scroll.isSettled(waveLength));
+    }
+}
@@ -0,0 +1,70 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link FullGraphZoom} limits, raster scale selection and focus anchoring
+ */
+public class FullGraphZoomTest {
+
+    private static final int VIEW_WIDTH = 1080;
+    //Two hours of samples at 25 per second
+    private static final int LONG_RECORDING = 2 * 60 * 60 * 25;
+
+    @Test
+    public void clampsToLongestWaveAndWholeRecording() throws Exception {
+        assertEquals(1f / FullGraphZoom.MAX_WAVE_LENGTH, FullGraphZoom.clamp(0.001f, LONG_RECORDING, VIEW_WIDTH), 0);
+        float whole = (float) LONG_RECORDING / VIEW_WIDTH;
+        assertEquals(whole, FullGraphZoom.clamp(1e6f, LONG_RECORDING, VIEW_WIDTH), 0);
+        assertEquals(3.5f, FullGraphZoom.clamp(3.5f, LONG_RECORDING, VIEW_WIDTH), 0);
+        //Fewer samples than px can not be zoomed out past the longest wave
+        assertEquals(1f / FullGraphZoom.MAX_WAVE_LENGTH, FullGraphZoom.clamp(2, 10, VIEW_WIDTH), 0);
+        assertEquals(VIEW_WIDTH, FullGraphZoom.contentWidth(LONG_RECORDING, whole) - 50, 1);
+    }
+
+    @Test
+    public void rasterScaleIsWholeWaveOrPeaks() throws Exception {
+        assertEquals(7.25f, FullGraphZoom.rasterScale(7.25f), 0);
+        assertEquals(1, FullGraphZoom.rasterScale(0.8f), 0);
+        assertEquals(0.5f, FullGraphZoom.rasterScale(0.6f), 0);
+        assertEquals(1f / 4, FullGraphZoom.rasterScale(1f / 4.3f), 0);
+        assertEquals(1f / FullGraphZoom.MAX_WAVE_LENGTH, FullGraphZoom.rasterScale(0.01f), 0);
+        for (int waveLength = FullGraphZoom.MIN_WAVE_LENGTH; waveLength <= FullGraphZoom.MAX_WAVE_LENGTH; waveLength++) {
+            float scale = FullGraphZoom.rasterScale(1f / waveLength);
+            assertEquals(1f / waveLength, scale, 0);
+            assertEquals(waveLength, FullGraphZoom.waveLength(scale));
+            //Same width as laid out by one wave per sample
+            assertEquals(FullGraphLayout.contentWidth(1000, waveLength, 0), FullGraphZoom.contentWidth(1000, scale));
+        }
+        assertEquals(FullGraphLayout.contentWidth(LONG_RECORDING, 2, 40), FullGraphZoom.contentWidth(LONG_RECORDING, 40));
+    }
+
+    @Test
+    public void stretchesUpToTwice() throws Exception {
+        assertTrue(FullGraphZoom.canStretch(10, 10));
+        assertTrue(FullGraphZoom.canStretch(10, 5));
+        assertTrue(FullGraphZoom.canStretch(10, 20));
+        assertFalse(FullGraphZoom.canStretch(10, 4.9f));
+        assertFalse(FullGraphZoom.canStretch(10, 20.1f));
+    }
+
+    @Test
+    public void focusKeepsItsSample() throws Exception {
+        float move = -5000;
+        float focusX = 300;
+        float scale = 4;
+        float sample = (focusX - move) * scale;
+        //Zoom in and out again about the same focus
+        for (float factor : new float[]{1.1f, 1.7f, 0.5f, 0.9f}) {
+            float next = FullGraphZoom.clamp(scale / factor, LONG_RECORDING, VIEW_WIDTH);
+            move = FullGraphZoom.anchor(move, focusX, focusX, scale, next);
+            scale = next;
+            assertEquals(sample, (focusX - move) * scale, 0.5);
+        }
+        //Moving focus drags the sample along
+        move = FullGraphZoom.anchor(move, focusX, focusX + 40, scale, scale);
+        assertEquals(sample, (focusX + 40 - move) * scale, 0.5);
+    }
+}
@@ -0,0 +1,159 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link FrameTimeHistogram} percentiles and {@link GraphStatsRecorder} snapshots
+ */
+public class GraphStatsRecorderTest {
+
+    @Test
+    public void smallValuesAreExact() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10, histogram.getCount());
+        assertEquals(5, histogram.getValueAtPercentile(50));
+        assertEquals(10, histogram.getValueAtPercentile(100));
+        assertEquals(10, histogram.getMax());
+        assertEquals(5, histogram.getMean());
+    }
+
+    @Test
+    public void percentileWithinBucketPrecision() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+        for (int i = 1; i <= 100000; i++) {
+            histogram.record(i);
+        }
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue("p99 " + p99, p99 >= 99000 && p99 <= 99000 * 107 / 100);
+        long p50 = histogram.getValueAtPercentile(50);
+        assertTrue("p50 " + p50, p50 >= 50000 && p50 <= 50000 * 107 / 100);
+        assertEquals(100000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void bucketIndexIsMonotonic() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 20; value += 7) {
+            int index = FrameTimeHistogram.indexOf(value);
+            assertTrue(index >= previous);
+            assertTrue(FrameTimeHistogram.highestValueOf(index) >= value);
+            previous = index;
+        }
+    }
+
+    @Test
+    public void snapshotReportsRateAndLag() {
+        GraphStatsRecorder recorder = new GraphStatsRecorder();
+        GraphStatsRecorder.record(recorder.frameTime, 0, 8000000L);
+        GraphStatsRecorder.record(recorder.frameTime, 0, 16000000L);
+        recorder.frameDropped(2);
+        recorder.frameSkipped();
+        //Frames render 100 samples at 1 s and 190 samples at 1.9 s
+        recorder.setRenderedSampleCount(100, 1000000000L);
+        recorder.setRenderedSampleCount(190, 1900000000L);
+
+        GraphStats stats = recorder.snapshot(300, 2000000000L);
+        assertEquals(2, stats.getFrameCount());
+        assertEquals(2, stats.getDroppedFrames());
+        assertEquals(1, stats.getSkippedFrames());
+        assertEquals(200f, stats.getSamplesPerSecond(), 0.01f);
+        assertEquals(110, stats.getRenderLag());
+
+        recorder.reset();
+        stats = recorder.snapshot(300, 3000000000L);
+        assertEquals(0, stats.getFrameCount());
+        assertEquals(0, stats.getDroppedFrames());
+    }
+
+    @Test
+    public void rateWindowIsNotShortenedBySnapshots() {
+        GraphStatsRecorder recorder = new GraphStatsRecorder();
+        long ms = 1000000L;
+        //100 samples per second, snapshots of getStats and the stats listener interleave at any time
+        recorder.snapshot(0, 1000 * ms);
+        assertEquals(100f, recorder.snapshot(100, 2000 * ms).getSamplesPerSecond(), 0.01f);
+        //A millisecond later without a new sample the rate is still measured over the window
+        assertEquals(100f, recorder.snapshot(100, 2001 * ms).getSamplesPerSecond(), 0.2f);
+        for (int t = 2100; t <= 4000; t += 100) {
+            float rate = recorder.snapshot(t / 10 - 100, t * ms).getSamplesPerSecond();
+            assertEquals("rate at " + t, 100f, rate, 0.5f);
+        }
+    }
+
+    @Test
+    public void rateWindowIsRolledByFrames() {
+        GraphStatsRecorder recorder = new GraphStatsRecorder();
+        long ms = 1000000L;
+        //100 samples per second for 8 s then 300 per second, a frame every 100 ms
+        int sampleCount = 0;
+        for (int t = 100; t <= 10000; t += 100) {
+            sampleCount += t <= 8000 ? 10 : 30;
+            recorder.setRenderedSampleCount(sampleCount, t * ms);
+        }
+        //A caller polling every 10 s sees the recent rate, not the average since its last poll
+        assertEquals(300f, recorder.snapshot(sampleCount, 10000 * ms).getSamplesPerSecond(), 0.5f);
+    }
+
+    @Test(timeout = 10000)
+    public void histogramMaxUnderContention() throws Exception {
+        final FrameTimeHistogram histogram = new FrameTimeHistogram();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final int offset = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int value = offset; value < 100000; value += 4) {
+                        histogram.record(value);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(99999, histogram.getMax());
+        assertEquals(100000, histogram.getCount());
+    }
+
+    @Test
+    public void plottingStateRecordsParkedTimeAndWakeUps() {
+        GraphStatsRecorder recorder = new GraphStatsRecorder();
+        PlottingState state = new PlottingState(recorder);
+        long ms = 1000000L;
+        assertEquals(PlottingState.RENDERING, state.update(false, false, 0));
+        assertEquals(PlottingState.IDLE, state.update(false, true, 100 * ms));
+        assertEquals(PlottingState.IDLE, state.update(false, true, 150 * ms));
+        assertEquals(PlottingState.RENDERING, state.update(false, false, 300 * ms));
+        //Pause wins over settled
+        assertEquals(PlottingState.PAUSED, state.update(true, true, 400 * ms));
+        recorder.wokeUp(GraphStats.WAKE_UP_SAMPLES | GraphStats.WAKE_UP_SCROLL);
+        recorder.wokeUp(GraphStats.WAKE_UP_POLL);
+
+        //Ongoing pause is included up to the snapshot
+        GraphStats stats = recorder.snapshot(0, 1000 * ms);
+        assertEquals(200000, stats.getIdleTime());
+        assertEquals(600000, stats.getPausedTime());
+        assertEquals(2, stats.getWakeUpCount());
+        assertEquals(1, stats.getWakeUpCount(GraphStats.WAKE_UP_SAMPLES));
+        assertEquals(1, stats.getWakeUpCount(GraphStats.WAKE_UP_SCROLL));
+        assertEquals(1, stats.getWakeUpCount(GraphStats.WAKE_UP_POLL));
+        assertEquals(0, stats.getWakeUpCount(GraphStats.WAKE_UP_PLAYBACK));
+
+        state.stop(1500 * ms);
+        assertEquals(PlottingState.STOPPED, state.getState());
+        stats = recorder.snapshot(0, 5000 * ms);
+        assertEquals(1100000, stats.getPausedTime());
+        try {
+            stats.getWakeUpCount(GraphStats.WAKE_UP_SAMPLES | GraphStats.WAKE_UP_POLL);
+            fail("Combined causes accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
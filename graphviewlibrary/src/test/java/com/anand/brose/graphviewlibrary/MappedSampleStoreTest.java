@@ -0,0 +1,113 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link MappedSampleStore} append, reopen and file validation
+ */
+public class MappedSampleStoreTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("graph", MappedSampleStore.FILE_EXTENSION);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void appendAcrossSegments() throws IOException {
+        MappedSampleStore store = MappedSampleStore.create(file);
+        int count = MappedSampleStore.SEGMENT_SIZE * 2 + 100;
+        for (int i = 0; i < count; i++) {
+            store.add(i * 150L, i % 32768);
+        }
+        assertEquals(count, store.size());
+        for (int i = 0; i < count; i += 997) {
+            assertEquals(i * 150L, store.getTime(i));
+            assertEquals(i % 32768, store.getAmplitude(i));
+        }
+        assertEquals((count - 1) * 150L, store.getTime(count - 1));
+        store.close();
+    }
+
+    @Test
+    public void reopenKeepsSamplesAndAppends() throws IOException {
+        MappedSampleStore store = MappedSampleStore.create(file);
+        int count = MappedSampleStore.SEGMENT_SIZE + 10;
+        for (int i = 0; i < count; i++) {
+            store.add(i, -i);
+        }
+        //Not closed, like a process killed while recording
+        store.flush();
+
+        MappedSampleStore reopened = MappedSampleStore.open(file);
+        assertEquals(count, reopened.size());
+        assertEquals(-(count - 1), reopened.getAmplitude(count - 1));
+        reopened.add(count, -count);
+        assertEquals(count + 1, reopened.size());
+        reopened.close();
+        store.close();
+
+        MappedSampleStore readOnly = MappedSampleStore.openReadOnly(file);
+        assertEquals(count + 1, readOnly.size());
+        assertEquals(count, readOnly.getTime(count));
+        assertEquals(count, readOnly.asList().get(count).getTime());
+        readOnly.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void readOnlyRejectsAdd() throws IOException {
+        MappedSampleStore.create(file).close();
+        MappedSampleStore store = MappedSampleStore.openReadOnly(file);
+        try {
+            store.add(0, 0);
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFile() throws IOException {
+        RandomAccessFile foreign = new RandomAccessFile(file, "rw");
+        foreign.write(new byte[64]);
+        foreign.close();
+        MappedSampleStore.open(file);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void readBeyondSizeThrows() throws IOException {
+        MappedSampleStore store = MappedSampleStore.create(file);
+        try {
+            store.add(1, 1);
+            store.getTime(1);
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void sampleFileNextToAudio() {
+        File samples = MappedSampleStore.fileFor("/sdcard/VoiceRecorder/recorder.mp3");
+        assertEquals(new File("/sdcard/VoiceRecorder/recorder.samples"), samples);
+    }
+
+    @Test
+    public void listViewUnwrapsToStore() throws IOException {
+        MappedSampleStore store = MappedSampleStore.create(file);
+        assertSame(store, WaveSampleListSource.of(store.asList()));
+        store.close();
+    }
+}
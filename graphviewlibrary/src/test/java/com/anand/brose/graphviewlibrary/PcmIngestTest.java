@@ -0,0 +1,283 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Block reduction, rate and WAV round trip tests for {@link PcmIngest}
+ */
+public class PcmIngestTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("pcm", ".wav");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Source handing out a fixed buffer in reads of a given size
+     */
+    private static class ArraySource implements PcmSource {
+        private final short[] samples;
+        private final int sampleRate;
+        private final int channelCount;
+        private final int chunk;
+        private int position = 0;
+
+        ArraySource(short[] samples, int sampleRate, int channelCount, int chunk) {
+            this.samples = samples;
+            this.sampleRate = sampleRate;
+            this.channelCount = channelCount;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        @Override
+        public int getChannelCount() {
+            return channelCount;
+        }
+
+        @Override
+        public int read(short[] buffer, int offset, int length) {
+            if (position == samples.length) {
+                return -1;
+            }
+            int count = Math.min(Math.min(length, chunk), samples.length - position);
+            System.arraycopy(samples, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void peakCatchesSingleSampleTransient() throws IOException {
+        short[] pcm = new short[8000];
+        pcm[1234] = -20000;
+        pcm[5000] = 12345;
+        SampleStore samples = new SampleStore();
+        new PcmIngest(new ArraySource(pcm, 8000, 1, 333), samples, 50).ingest();
+        assertEquals(50, samples.size());
+        for (int i = 0; i < samples.size(); i++) {
+            assertEquals((i + 1) * 20, samples.getTime(i));
+            int expected = i == 1234 / 160 ? 20000 : i == 5000 / 160 ? 12345 : 0;
+            assertEquals("block " + i, expected, samples.getAmplitude(i));
+        }
+    }
+
+    @Test
+    public void fullScaleNegativePeak() {
+        short[] pcm = {0, Short.MIN_VALUE, Short.MAX_VALUE};
+        assertEquals(32768, PcmReducer.peak(pcm, 0, 3));
+        assertEquals(32767, PcmReducer.peak(pcm, 2, 1));
+    }
+
+    @Test
+    public void rmsOfSquareWave() throws IOException {
+        short[] pcm = new short[4410];
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (short) ((i & 1) == 0 ? 1000 : -1000);
+        }
+        SampleStore samples = new SampleStore();
+        PcmIngest ingest = new PcmIngest(new ArraySource(pcm, 44100, 1, 1000), samples, 100);
+        ingest.setReduction(PcmIngest.REDUCE_RMS);
+        ingest.ingest();
+        assertEquals(10, samples.size());
+        for (int i = 0; i < samples.size(); i++) {
+            assertEquals(1000, samples.getAmplitude(i));
+        }
+    }
+
+    @Test
+    public void fractionalBlocksKeepExactRate() {
+        final long[] times = new long[400];
+        final int[] count = {0};
+        SampleSink sink = new SampleSink() {
+            @Override
+            public void add(long time, int amplitude) {
+                times[count[0]++] = time;
+            }
+        };
+        //44100 / 200 = 220.5 frames per block
+        PcmReducer reducer = new PcmReducer(sink, 44100, 2, 200);
+        short[] pcm = new short[2 * 44100];
+        reducer.reduce(pcm, 0, 1001);
+        reducer.reduce(pcm, 1001, pcm.length - 1001);
+        assertEquals(200, count[0]);
+        assertEquals(1000, times[199]);
+        for (int i = 0; i < count[0]; i++) {
+            assertEquals((i + 1) * 5, times[i]);
+        }
+    }
+
+    @Test
+    public void partialLastBlockEmittedAtEnd() throws IOException {
+        short[] pcm = new short[1000 + 10];
+        pcm[1005] = 77;
+        SampleStore samples = new SampleStore();
+        new PcmIngest(new ArraySource(pcm, 1000, 1, 64), samples, 10).ingest();
+        assertEquals(11, samples.size());
+        assertEquals(1010, samples.getTime(10));
+        assertEquals(77, samples.getAmplitude(10));
+    }
+
+    @Test
+    public void stereoBlocksCoverBothChannels() throws IOException {
+        short[] pcm = new short[2 * 1000];
+        pcm[2 * 150 + 1] = 500;//Right channel of frame 150
+        SampleStore samples = new SampleStore();
+        new PcmIngest(new ArraySource(pcm, 1000, 2, 7), samples, 10).ingest();
+        assertEquals(10, samples.size());
+        assertEquals(200, samples.getTime(1));
+        assertEquals(500, samples.getAmplitude(1));
+        assertEquals(0, samples.getAmplitude(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rateAboveSampleRateRejected() {
+        new PcmIngest(new ArraySource(new short[0], 8000, 1, 1), new SampleStore(), 8001);
+    }
+
+    @Test
+    public void wavRoundTripThroughPcmSink() throws IOException {
+        short[] pcm = new short[2 * 22050];
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (short) (i * 37);
+        }
+        SampleStore direct = new SampleStore();
+        WavFileWriter writer = new WavFileWriter(file, 22050, 2);
+        PcmIngest ingest = new PcmIngest(new ArraySource(pcm, 22050, 2, 999), direct, 60);
+        ingest.setPcmSink(writer);
+        ingest.ingest();
+        writer.close();
+        assertEquals(file.length(), WavFileWriter.HEADER_BYTES + 2L * pcm.length);
+
+        WavFileSource source = new WavFileSource(file);
+        try {
+            assertEquals(22050, source.getSampleRate());
+            assertEquals(2, source.getChannelCount());
+            assertEquals(22050, source.getFrameCount());
+            short[] read = new short[pcm.length];
+            int position = 0;
+            int count;
+            while ((count = source.read(read, position, Math.min(1234, read.length - position))) > 0) {
+                position += count;
+            }
+            assertEquals(pcm.length, position);
+            assertArrayEquals(toInts(pcm), toInts(read));
+        } finally {
+            source.close();
+        }
+
+        SampleStore fromFile = new SampleStore();
+        source = new WavFileSource(file);
+        try {
+            new PcmIngest(source, fromFile, 60).ingest();
+        } finally {
+            source.close();
+        }
+        assertEquals(60, fromFile.size());
+        for (int i = 0; i < fromFile.size(); i++) {
+            assertEquals(direct.getTime(i), fromFile.getTime(i));
+            assertEquals(direct.getAmplitude(i), fromFile.getAmplitude(i));
+        }
+    }
+
+    @Test
+    public void unclosedWavReadToEnd() throws IOException {
+        WavFileWriter writer = new WavFileWriter(file, 8000, 1);
+        writer.write(new short[]{1, -2, 3}, 0, 3);
+        //Not closed, sizes in the header are still 0
+        java.io.FileInputStream in = new java.io.FileInputStream(file);
+        WavFileSource source = new WavFileSource(in);
+        try {
+            assertEquals(-1, source.getFrameCount());
+            short[] read = new short[8];
+            assertEquals(3, source.read(read, 0, 8));
+            assertEquals(-2, read[1]);
+            assertEquals(-1, source.read(read, 0, 8));
+        } finally {
+            source.close();
+            writer.close();
+        }
+    }
+
+    @Test
+    public void foreignFileRejected() {
+        try {
+            new WavFileSource(new ByteArrayInputStream("RIFF\0\0\0\0AVI LIST".getBytes()));
+            fail("AVI accepted");
+        } catch (IOException expected) {
+        }
+        try {
+            new WavFileSource(new ByteArrayInputStream(new byte[3]));
+            fail("Truncated file accepted");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void reduceAllocatesNothing() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        long threadId = Thread.currentThread().getId();
+        SampleSink sink = new SampleSink() {
+            @Override
+            public void add(long time, int amplitude) {
+            }
+        };
+        PcmReducer peak = new PcmReducer(sink, 44100, 1, 200);
+        PcmReducer rms = new PcmReducer(sink, 44100, 1, 200);
+        rms.setRms(true);
+        short[] pcm = new short[441];
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (short) (i * 71);
+        }
+        for (int block = 0; block < 20000; block++) {
+            peak.reduce(pcm, 0, pcm.length);
+            rms.reduce(pcm, 0, pcm.length);
+        }
+        long overhead = threadBean.getThreadAllocatedBytes(threadId);
+        overhead = threadBean.getThreadAllocatedBytes(threadId) - overhead;
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int block = 0; block < 20000; block++) {
+            peak.reduce(pcm, 0, pcm.length);
+            rms.reduce(pcm, 0, pcm.length);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before - overhead;
+        assertEquals("bytes allocated by 20000 blocks", 0, allocated);
+    }
+
+    private static int[] toInts(short[] samples) {
+        int[] ints = new int[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            ints[i] = samples[i];
+        }
+        return ints;
+    }
+}
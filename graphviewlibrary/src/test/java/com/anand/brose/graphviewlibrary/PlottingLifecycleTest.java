@@ -0,0 +1,148 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link PlottingLifecycle} states, thread hand over and bounded command queue
+ */
+public class PlottingLifecycleTest {
+
+    @Test
+    public void startPlotsOnlyWithSurface() throws Exception {
+        PlottingLifecycle lifecycle = new PlottingLifecycle();
+        //Surface before start asks for no thread
+        assertFalse(lifecycle.post(PlottingLifecycle.SURFACE_READY));
+        assertTrue(lifecycle.post(PlottingLifecycle.START));
+        //Appended samples wake the thread only once it applied the start
+        assertFalse(lifecycle.isPlotting());
+        assertEquals(PlottingLifecycle.PLOTTING, lifecycle.drain());
+        assertTrue(lifecycle.isPlotting());
+        assertTrue(lifecycle.takeRestart());
+        assertFalse(lifecycle.takeRestart());
+
+        //App in background and back, the same thread keeps running
+        assertFalse(lifecycle.post(PlottingLifecycle.SURFACE_LOST));
+        assertEquals(PlottingLifecycle.SUSPENDED, lifecycle.drain());
+        assertFalse(lifecycle.isPlotting());
+        assertFalse(lifecycle.post(PlottingLifecycle.SURFACE_READY));
+        assertEquals(PlottingLifecycle.PLOTTING, lifecycle.drain());
+        assertFalse(lifecycle.takeRestart());
+
+        //Stop parks the thread, start again restarts plotting on it
+        assertFalse(lifecycle.post(PlottingLifecycle.STOP));
+        assertEquals(PlottingLifecycle.STOPPED, lifecycle.drain());
+        assertFalse(lifecycle.isPlotting());
+        assertFalse(lifecycle.post(PlottingLifecycle.START));
+        assertEquals(PlottingLifecycle.PLOTTING, lifecycle.drain());
+        assertTrue(lifecycle.takeRestart());
+        assertTrue(lifecycle.isThreadRunning());
+    }
+
+    @Test
+    public void newThreadOnlyAfterReleasedThreadExits() throws Exception {
+        PlottingLifecycle lifecycle = new PlottingLifecycle();
+        assertTrue(lifecycle.post(PlottingLifecycle.START));
+        lifecycle.post(PlottingLifecycle.SURFACE_READY);
+        lifecycle.drain();
+        lifecycle.post(PlottingLifecycle.RELEASE);
+        assertEquals(PlottingLifecycle.RELEASED, lifecycle.drain());
+
+        //Reattached before the released thread exits, it keeps plotting instead of a second thread
+        assertFalse(lifecycle.post(PlottingLifecycle.SURFACE_READY));
+        assertFalse(lifecycle.exitIfReleased());
+        assertEquals(PlottingLifecycle.PLOTTING, lifecycle.drain());
+
+        lifecycle.post(PlottingLifecycle.RELEASE);
+        assertEquals(PlottingLifecycle.RELEASED, lifecycle.drain());
+        assertTrue(lifecycle.exitIfReleased());
+        assertFalse(lifecycle.isThreadRunning());
+        //Reattached after exit, plotting was not stopped so a new thread is asked for once
+        assertTrue(lifecycle.post(PlottingLifecycle.SURFACE_READY));
+        assertFalse(lifecycle.post(PlottingLifecycle.SURFACE_READY));
+        assertEquals(PlottingLifecycle.PLOTTING, lifecycle.drain());
+    }
+
+    @Test
+    public void fullQueueFoldsToLatestCommands() throws Exception {
+        PlottingLifecycle lifecycle = new PlottingLifecycle();
+        lifecycle.post(PlottingLifecycle.STOP);
+        //Rotations while not plotting, no thread drains the queue
+        for (int i = 0; i < 100; i++) {
+            assertFalse(lifecycle.post(PlottingLifecycle.SURFACE_LOST));
+            assertFalse(lifecycle.post(PlottingLifecycle.SURFACE_READY));
+            assertTrue(lifecycle.getPendingCount() <= PlottingLifecycle.MAX_PENDING);
+        }
+        assertEquals(201, lifecycle.getPostedCount());
+        assertTrue(lifecycle.getFoldedCount() > 190);
+        assertTrue(lifecycle.post(PlottingLifecycle.START));
+        assertEquals(PlottingLifecycle.PLOTTING, lifecycle.drain());
+        assertTrue(lifecycle.takeRestart());
+
+        //Folded start and stop end in the state of the last one
+        for (int i = 0; i < 3 * PlottingLifecycle.MAX_PENDING; i++) {
+            lifecycle.post(i % 2 == 0 ? PlottingLifecycle.STOP : PlottingLifecycle.START);
+        }
+        lifecycle.post(PlottingLifecycle.SURFACE_LOST);
+        lifecycle.post(PlottingLifecycle.STOP);
+        assertEquals(PlottingLifecycle.STOPPED, lifecycle.drain());
+        lifecycle.post(PlottingLifecycle.START);
+        assertEquals(PlottingLifecycle.SUSPENDED, lifecycle.drain());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownCommandIsRejected() throws Exception {
+        new PlottingLifecycle().post(PlottingLifecycle.RELEASE + 1);
+    }
+
+    @Test(timeout = 10000)
+    public void surfaceLossWaitsForPlottingThread() throws Exception {
+        final PlottingLifecycle lifecycle = new PlottingLifecycle();
+        //Nothing to wait for without a thread
+        lifecycle.post(PlottingLifecycle.SURFACE_LOST);
+        assertTrue(lifecycle.awaitApplied(0));
+
+        assertTrue(lifecycle.post(PlottingLifecycle.START));
+        lifecycle.post(PlottingLifecycle.SURFACE_READY);
+        final CountDownLatch plotting = new CountDownLatch(1);
+        final CountDownLatch suspended = new CountDownLatch(1);
+        Thread plottingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    int state = lifecycle.drain();
+                    if (state == PlottingLifecycle.PLOTTING) {
+                        plotting.countDown();
+                    } else if (state == PlottingLifecycle.SUSPENDED) {
+                        suspended.countDown();
+                    } else if (state == PlottingLifecycle.RELEASED && lifecycle.exitIfReleased()) {
+                        return;
+                    }
+                    try {
+                        //Rendering a frame
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        });
+        plottingThread.start();
+        assertTrue(plotting.await(5, TimeUnit.SECONDS));
+        lifecycle.post(PlottingLifecycle.SURFACE_LOST);
+        assertTrue(lifecycle.awaitApplied(5000));
+        //Applied by the time the wait returns
+        assertEquals(PlottingLifecycle.SUSPENDED, lifecycle.getState());
+        assertFalse(lifecycle.hasPending());
+        assertTrue(suspended.await(5, TimeUnit.SECONDS));
+
+        lifecycle.post(PlottingLifecycle.RELEASE);
+        plottingThread.join();
+        assertFalse(lifecycle.isThreadRunning());
+        assertEquals(PlottingLifecycle.RELEASED, lifecycle.getState());
+    }
+}
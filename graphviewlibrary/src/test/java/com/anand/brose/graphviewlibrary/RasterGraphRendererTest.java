@@ -0,0 +1,124 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link RasterGraphRenderer} primitives, {@link WaveformThumbnail} and {@link PngWriter}
+ */
+public class RasterGraphRendererTest {
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private static RasterGraphRenderer renderer(int width, int height) {
+        RasterGraphRenderer renderer = new RasterGraphRenderer(width, height);
+        renderer.setColors(BLACK, WHITE, 0x80FFFFFF, 0xFF00FF00, 0xFFFF0000);
+        renderer.begin(height / 2, 10);
+        return renderer;
+    }
+
+    private static int pixel(RasterGraphRenderer renderer, int x, int y) {
+        return renderer.getPixels()[y * renderer.getWidth() + x];
+    }
+
+    private static int countRow(RasterGraphRenderer renderer, int y, int fromX, int toX, int color) {
+        int count = 0;
+        for (int x = fromX; x < toX; x++) {
+            if (pixel(renderer, x, y) == color) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void waveIsUpperThenLowerArc() {
+        RasterGraphRenderer renderer = renderer(40, 40);
+        renderer.addWave(0, 10);
+        //Crest in first half, trough in second half, nothing beyond amplitude
+        assertTrue(countRow(renderer, 10, 0, 6, WHITE) > 0);
+        assertEquals(0, countRow(renderer, 10, 6, 40, WHITE));
+        assertTrue(countRow(renderer, 30, 5, 11, WHITE) > 0);
+        assertEquals(0, countRow(renderer, 30, 0, 5, WHITE));
+        assertEquals(0, countRow(renderer, 9, 0, 40, WHITE));
+        assertEquals(0, countRow(renderer, 31, 0, 40, WHITE));
+        //Arcs are connected through the center line
+        assertEquals(WHITE, pixel(renderer, 5, 20));
+    }
+
+    @Test
+    public void flatWaveAndPeak() {
+        RasterGraphRenderer renderer = renderer(40, 40);
+        renderer.addWave(0, 0);
+        assertEquals(11, countRow(renderer, 20, 0, 40, WHITE));
+        renderer.addPeak(30, 8);
+        for (int y = 0; y < 40; y++) {
+            assertEquals("y " + y, y >= 12 && y <= 28, pixel(renderer, 30, y) == WHITE);
+        }
+    }
+
+    @Test
+    public void markerBlendsAndNeedleClips() {
+        RasterGraphRenderer renderer = renderer(40, 40);
+        renderer.addMarker(30, 10);
+        assertEquals(0xFF808080, pixel(renderer, 25, 0));
+        assertEquals(0xFF808080, pixel(renderer, 34, 39));
+        assertEquals(BLACK, pixel(renderer, 24, 0));
+        assertEquals(BLACK, pixel(renderer, 35, 0));
+        renderer.addNeedle(20, 100, 5);
+        assertEquals(0xFFFF0000, pixel(renderer, 39, 5));
+    }
+
+    @Test
+    public void timeLabelAboveBaseline() {
+        RasterGraphRenderer renderer = renderer(100, 40);
+        renderer.setTextSize(14);
+        renderer.addTimeLabel("01:05", 2);
+        int green = 0;
+        for (int y = 0; y < 40; y++) {
+            int row = countRow(renderer, y, 0, 100, 0xFF00FF00);
+            if (y < GraphRenderer.TIME_LABEL_BASELINE - 14 || y >= GraphRenderer.TIME_LABEL_BASELINE) {
+                assertEquals(0, row);
+            }
+            green += row;
+        }
+        assertTrue(green > 0);
+        assertEquals(60, renderer.getTextWidth("01:05"));
+    }
+
+    @Test
+    public void thumbnailPngDecodesToRenderedPixels() throws IOException {
+        SampleStore samples = new SampleStore();
+        for (int i = 0; i < 5000; i++) {
+            samples.add(i * 150L, (i * 37) % 30000);
+        }
+        WaveformThumbnail thumbnail = new WaveformThumbnail(320, 80);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        thumbnail.writePng(samples, out);
+        int[] pixels = thumbnail.render(samples);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(320, image.getWidth());
+        assertEquals(80, image.getHeight());
+        int white = 0;
+        for (int y = 0; y < 80; y++) {
+            for (int x = 0; x < 320; x++) {
+                assertEquals(pixels[y * 320 + x], image.getRGB(x, y));
+                if (pixels[y * 320 + x] == WHITE) {
+                    white++;
+                }
+            }
+        }
+        //Peaks were drawn across the width
+        assertTrue(white > 320);
+    }
+}
@@ -0,0 +1,224 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link RealtimeFrameBuilder} layout and steady state allocation
+ */
+public class RealtimeFrameBuilderTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HALF_HEIGHT = 300;
+    private static final int WAVE_LENGTH = 8;
+    private static final int TIME_SCALE = 5000;
+    private static final int MAX_AMPLITUDE = 35000;
+
+    @Test
+    public void layoutMatchesSamples() throws Exception {
+        SampleStore store = new SampleStore();
+        for (int i = 0; i < 100; i++) {
+            store.add(i * 150L, 3500 * (i % 10));
+        }
+        CountingSink sink = new CountingSink();
+        RealtimeFrameBuilder builder = new RealtimeFrameBuilder(new TimeLabels());
+        int startX = (int) (WIDTH * 0.75);
+        builder.build(store, store.size(), startX, WAVE_LENGTH, 2, TIME_SCALE, HALF_HEIGHT, MAX_AMPLITUDE, sink);
+
+        //Latest sample is skipped, the one before it sits at the needle
+        assertEquals(store.size() - 1, sink.waves);
+        assertTrue(builder.hasNeedle());
+        assertEquals(HALF_HEIGHT * store.getAmplitude(98) / MAX_AMPLITUDE, builder.getNeedleAmplitude());
+        assertEquals(startX - 2, sink.firstX);
+
+        //00:00 for first sample and a marker every 5 sec up to 14.7 sec
+        assertEquals(3, builder.timeMarkers.size());
+        assertEquals("00:10", builder.timeMarkers.getLabel(0));
+        assertEquals("00:05", builder.timeMarkers.getLabel(1));
+        assertEquals("00:00", builder.timeMarkers.getLabel(2));
+    }
+
+    @Test
+    public void labelsAreCached() throws Exception {
+        TimeLabels labels = new TimeLabels();
+        assertEquals("01:05", labels.format(65000));
+        assertEquals("125:00", labels.format(7500000));
+        assertSame(labels.format(65400), labels.format(65000));
+    }
+
+    @Test
+    public void noAllocationPerFrameAfterWarmUp() throws Exception {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return;//Allocation counters not available on this JVM
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        long threadId = Thread.currentThread().getId();
+
+        SampleStore store = new SampleStore();
+        for (int i = 0; i < 20000; i++) {
+            store.add(i * 150L, (i * 7919) % MAX_AMPLITUDE);
+        }
+        CountingSink sink = new CountingSink();
+        RealtimeFrameBuilder builder = new RealtimeFrameBuilder(new TimeLabels());
+        int startX = (int) (WIDTH * 0.75);
+
+        //Warm up, label table and marker arrays reach their final size
+        for (int frame = 0; frame < 20000; frame++) {
+            builder.build(store, 200 + frame % (store.size() - 200), startX, WAVE_LENGTH, frame % WAVE_LENGTH,
+                    TIME_SCALE, HALF_HEIGHT, MAX_AMPLITUDE, sink);
+        }
+        long overhead = threadBean.getThreadAllocatedBytes(threadId);
+        overhead = threadBean.getThreadAllocatedBytes(threadId) - overhead;
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int frame = 0; frame < 20000; frame++) {
+            builder.build(store, 200 + frame % (store.size() - 200), startX, WAVE_LENGTH, frame % WAVE_LENGTH,
+                    TIME_SCALE, HALF_HEIGHT, MAX_AMPLITUDE, sink);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before - overhead;
+        assertEquals("bytes allocated by 20000 frames", 0, allocated);
+    }
+
+    @Test
+    public void seriesLayerHasNoLabelsOrMarker() throws Exception {
+        SampleStore store = new SampleStore();
+        for (int i = 0; i < 100; i++) {
+            store.add(i * 150L, 1000);
+        }
+        RealtimeFrameBuilder builder = new RealtimeFrameBuilder(new TimeLabels());
+        CountingRenderer renderer = new CountingRenderer();
+        builder.render(store, store.size(), WIDTH, HALF_HEIGHT * 2, 0.75, WAVE_LENGTH, 0, TIME_SCALE, MAX_AMPLITUDE, renderer);
+        assertEquals(1, renderer.markers);
+        assertEquals(1, renderer.needles);
+        assertTrue(renderer.labels > 0);
+
+        renderer = new CountingRenderer();
+        builder.renderSeries(store, store.size(), WIDTH, HALF_HEIGHT * 2, 0.75, WAVE_LENGTH, 0, TIME_SCALE, 2000, false, renderer);
+        assertEquals(0, renderer.markers);
+        assertEquals(0, renderer.needles);
+        assertEquals(0, renderer.labels);
+        assertTrue(renderer.waves > 0);
+        //Own scale: 1000 of 2000 is half of half height
+        assertEquals(HALF_HEIGHT / 2, renderer.lastAmplitude);
+
+        renderer = new CountingRenderer();
+        builder.renderSeries(store, store.size(), WIDTH, HALF_HEIGHT * 2, 0.75, WAVE_LENGTH, 0, TIME_SCALE, 2000, true, renderer);
+        assertEquals(1, renderer.needles);
+    }
+
+    @Test
+    public void stripMatchesFullFrame() throws Exception {
+        SampleStore store = new SampleStore();
+        for (int i = 0; i < 1000; i++) {
+            store.add(i * 150L, (i * 7919) % MAX_AMPLITUDE);
+        }
+        int startX = (int) (WIDTH * 0.75);
+        int labelWidth = 100;
+        RealtimeFrameBuilder builder = new RealtimeFrameBuilder(new TimeLabels());
+        for (int redrawCount = 0; redrawCount < WAVE_LENGTH; redrawCount += 3) {
+            RecordingSink full = new RecordingSink();
+            builder.build(store, store.size(), startX, WAVE_LENGTH, redrawCount, TIME_SCALE, HALF_HEIGHT, MAX_AMPLITUDE,
+                    full);
+            List<Integer> fullLabels = labelPositions(builder.timeMarkers);
+            int[][] strips = {{labelWidth, WIDTH}, {startX - 40, startX + 200}, {300, 301}, {500, 500}};
+            for (int[] strip : strips) {
+                RecordingSink partial = new RecordingSink();
+                builder.buildStrip(store, store.size(), startX, WAVE_LENGTH, redrawCount, TIME_SCALE, HALF_HEIGHT,
+                        MAX_AMPLITUDE, strip[0], strip[1], labelWidth, partial);
+                assertTrue(builder.hasNeedle());
+                assertEquals(HALF_HEIGHT * store.getAmplitude(998) / MAX_AMPLITUDE, builder.getNeedleAmplitude());
+                //Waves and labels of the full frame touching the strip, nothing for an empty strip
+                List<Integer> waves = new ArrayList<Integer>();
+                for (int x : full.xs) {
+                    if (x + WAVE_LENGTH >= strip[0] && x < strip[1] && strip[0] < strip[1]) {
+                        waves.add(x);
+                    }
+                }
+                List<Integer> labels = new ArrayList<Integer>();
+                for (int x : fullLabels) {
+                    if (x + labelWidth >= strip[0] && x < strip[1] && strip[0] < strip[1]) {
+                        labels.add(x);
+                    }
+                }
+                assertEquals(waves, partial.xs);
+                assertEquals(labels, labelPositions(builder.timeMarkers));
+            }
+        }
+    }
+
+    private static List<Integer> labelPositions(TimeMarkers markers) {
+        List<Integer> positions = new ArrayList<Integer>();
+        for (int i = 0; i < markers.size(); i++) {
+            positions.add(markers.getPosition(i));
+        }
+        return positions;
+    }
+
+    private static class RecordingSink implements WaveSink {
+        final List<Integer> xs = new ArrayList<Integer>();
+
+        @Override
+        public void addWave(int x, int amplitude) {
+            xs.add(x);
+        }
+
+        @Override
+        public void addPeak(int x, int amplitude) {
+        }
+    }
+
+    private static class CountingRenderer extends CountingSink implements GraphRenderer {
+        int labels;
+        int markers;
+        int needles;
+        int lastAmplitude;
+
+        @Override
+        public void begin(int halfHeight, int waveLength) {
+        }
+
+        @Override
+        public void addWave(int x, int amplitude) {
+            super.addWave(x, amplitude);
+            lastAmplitude = amplitude;
+        }
+
+        @Override
+        public void addTimeLabel(String label, int x) {
+            labels++;
+        }
+
+        @Override
+        public void addMarker(int x, int strokeWidth) {
+            markers++;
+        }
+
+        @Override
+        public void addNeedle(int fromX, int toX, int y) {
+            needles++;
+        }
+    }
+
+    private static class CountingSink implements WaveSink {
+        int waves;
+        int firstX = Integer.MIN_VALUE;
+
+        @Override
+        public void addWave(int x, int amplitude) {
+            if (waves == 0) {
+                firstX = x;
+            }
+            waves++;
+        }
+
+        @Override
+        public void addPeak(int x, int amplitude) {
+        }
+    }
+}
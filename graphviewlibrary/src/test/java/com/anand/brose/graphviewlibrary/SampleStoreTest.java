@@ -0,0 +1,111 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SampleStore} chunking, list view and single producer/consumer handoff
+ */
+public class SampleStoreTest {
+
+    @Test
+    public void appendAcrossChunks() throws Exception {
+        SampleStore store = new SampleStore();
+        int count = SampleStore.CHUNK_SIZE * 10 + 7;
+        for (int i = 0; i < count; i++) {
+            store.add(i * 150L, i % 35000);
+        }
+        assertEquals(count, store.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i * 150L, store.getTime(i));
+            assertEquals(i % 35000, store.getAmplitude(i));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void readPastSizeFails() throws Exception {
+        SampleStore store = new SampleStore();
+        store.add(0, 1);
+        store.getTime(1);
+    }
+
+    @Test
+    public void clearReusesChunks() throws Exception {
+        SampleStore store = new SampleStore();
+        for (int i = 0; i < SampleStore.CHUNK_SIZE + 1; i++) {
+            store.add(i, i);
+        }
+        store.clear();
+        assertEquals(0, store.size());
+        store.add(5, 6);
+        assertEquals(1, store.size());
+        assertEquals(5, store.getTime(0));
+        assertEquals(6, store.getAmplitude(0));
+    }
+
+    @Test
+    public void listViewWritesThrough() throws Exception {
+        SampleStore store = new SampleStore();
+        List<WaveSample> list = store.asList();
+        list.add(new WaveSample(10, 20));
+        store.add(30, 40);
+        assertEquals(2, list.size());
+        assertEquals(30, list.get(1).getTime());
+        assertEquals(20, list.get(0).getAmplitude());
+        assertSame(store, WaveSampleListSource.of(list));
+    }
+
+    /**
+     * Producer appends at full speed while consumer keeps reading the published size and the samples below it,
+     * every published sample must be completely written
+     */
+    @Test(timeout = 60000)
+    public void concurrentAppendAndRead() throws Exception {
+        final SampleStore store = new SampleStore();
+        final int total = 2000000;
+        final AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                int lastSize = 0;
+                long reads = 0;
+                while (lastSize < total && failure.get() == null) {
+                    int size = store.size();
+                    if (size < lastSize) {
+                        failure.set("size went back from " + lastSize + " to " + size);
+                        return;
+                    }
+                    //Check newly published samples and a window before the last published one
+                    int from = Math.max(0, Math.min(lastSize, size - 64));
+                    for (int i = from; i < size; i++) {
+                        if (store.getTime(i) != i || store.getAmplitude(i) != expectedAmplitude(i)) {
+                            failure.set("sample " + i + " not visible after size " + size);
+                            return;
+                        }
+                        reads++;
+                    }
+                    lastSize = size;
+                }
+                if (reads < total) {
+                    failure.set("consumer read only " + reads + " samples");
+                }
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < total; i++) {
+            store.add(i, expectedAmplitude(i));
+        }
+        consumer.join();
+        assertNull(failure.get(), failure.get());
+        assertEquals(total, store.size());
+    }
+
+    private static int expectedAmplitude(int i) {
+        return (i * 31) | 1;
+    }
+}
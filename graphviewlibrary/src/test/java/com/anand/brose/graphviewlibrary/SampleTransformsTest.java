@@ -0,0 +1,69 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the built in {@link SampleTransforms} stages
+ */
+public class SampleTransformsTest {
+
+    @Test
+    public void emaMovesTowardsAmplitude() throws Exception {
+        SampleTransform ema = SampleTransforms.ema(0.5f);
+        assertEquals(1000, ema.apply(0, 1000));
+        assertEquals(500, ema.apply(1, 0));
+        assertEquals(250, ema.apply(2, 0));
+        assertEquals(625, ema.apply(3, 1000));
+        ema.reset();
+        assertEquals(80, ema.apply(4, 80));
+        assertEquals(1000, SampleTransforms.ema(1).apply(0, 1000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emaRejectsZeroAlpha() throws Exception {
+        SampleTransforms.ema(0);
+    }
+
+    @Test
+    public void decibelsMapFloorToZeroAndReferenceToReference() throws Exception {
+        SampleTransform db = SampleTransforms.decibels(32000, -60);
+        assertEquals(32000, db.apply(0, 32000));
+        assertEquals(32000, db.apply(0, 40000));
+        //-20 dB is a third of the way down from 0 to -60 dB
+        assertEquals(Math.round(32000 * (1 - 20 / 60.0)), db.apply(0, 3200));
+        assertEquals(Math.round(32000 * (1 - 20 / 60.0)), db.apply(0, -3200));
+        assertEquals(0, db.apply(0, 32));
+        assertEquals(0, db.apply(0, 10));
+        assertEquals(0, db.apply(0, 0));
+    }
+
+    @Test
+    public void peakHoldsThenFalls() throws Exception {
+        //Hold 100 ms, then fall 1000 per second
+        SampleTransform peak = SampleTransforms.peakHold(100, 1000);
+        assertEquals(500, peak.apply(0, 500));
+        assertEquals(500, peak.apply(50, 100));
+        assertEquals(500, peak.apply(100, 100));
+        //Hold ended at 100 ms, falls 1 per ms after
+        assertEquals(480, peak.apply(120, 100));
+        assertEquals(430, peak.apply(170, 100));
+        //Never below the amplitude
+        assertEquals(100, peak.apply(1000, 100));
+        //A higher amplitude is held again
+        assertEquals(900, peak.apply(1010, 900));
+        assertEquals(900, peak.apply(1100, 0));
+        peak.reset();
+        assertEquals(10, peak.apply(1110, 10));
+    }
+
+    @Test
+    public void noiseGateSilencesBelowThreshold() throws Exception {
+        SampleTransform gate = SampleTransforms.noiseGate(200);
+        assertEquals(0, gate.apply(0, 199));
+        assertEquals(0, gate.apply(0, -150));
+        assertEquals(200, gate.apply(0, 200));
+        assertEquals(-3000, gate.apply(0, -3000));
+    }
+}
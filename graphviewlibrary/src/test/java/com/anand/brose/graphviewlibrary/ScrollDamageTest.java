@@ -0,0 +1,149 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ScrollDamage} planning of partial realtime frames
+ */
+public class ScrollDamageTest {
+
+    private static final int WIDTH = 1080;
+    private static final int WAVE_LENGTH = 8;
+    private static final int LABEL_WIDTH = 100;
+    private static final int START_X = (int) (WIDTH * 0.75);
+    //Sample count of a cleared column, no sample drawn into it
+    private static final int BLANK = 0;
+
+    @Test
+    public void fullOnFirstFrameAndConfigurationChange() throws Exception {
+        ScrollDamage damage = new ScrollDamage();
+        damage.plan(origin(100, 0), 100, WAVE_LENGTH, LABEL_WIDTH, WIDTH, 1);
+        assertTrue(damage.isFull());
+        assertEquals(origin(100, 0), damage.getStripFrom());
+        assertEquals(origin(100, 0) + WIDTH, damage.getStripTo());
+        assertTrue(damage.getRingWidth() > WIDTH);
+
+        damage.plan(origin(100, 1), 100, WAVE_LENGTH, LABEL_WIDTH, WIDTH, 1);
+        assertFalse(damage.isFull());
+        assertTrue(damage.isScrolled());
+        assertEquals(damage.getStripFrom(), damage.getStripTo());
+
+        damage.plan(origin(100, 2), 100, WAVE_LENGTH, LABEL_WIDTH, WIDTH, 2);
+        assertTrue(damage.isFull());
+
+        damage.invalidate();
+        damage.plan(origin(100, 2), 100, WAVE_LENGTH, LABEL_WIDTH, WIDTH, 2);
+        assertTrue(damage.isFull());
+    }
+
+    @Test
+    public void stripCoversNewSamplesOnly() throws Exception {
+        ScrollDamage damage = new ScrollDamage();
+        damage.plan(origin(100, 0), 100, WAVE_LENGTH, LABEL_WIDTH, WIDTH, 0);
+        damage.plan(origin(101, 0), 101, WAVE_LENGTH, LABEL_WIDTH, WIDTH, 0);
+        assertFalse(damage.isFull());
+        //Wave of sample 99 starts where sample 98 ended, labels of it reach right of it
+        assertEquals(99L * WAVE_LENGTH - ScrollDamage.MARGIN, damage.getStripFrom());
+        assertEquals(100L * WAVE_LENGTH + LABEL_WIDTH + ScrollDamage.MARGIN, damage.getStripTo());
+
+        //Unchanged frame draws nothing
+        damage.plan(origin(101, 0), 101, WAVE_LENGTH, LABEL_WIDTH, WIDTH, 0);
+        assertFalse(damage.isFull());
+        assertFalse(damage.isScrolled());
+        assertEquals(damage.getStripFrom(), damage.getStripTo());
+    }
+
+    @Test
+    public void fullWhenSourceShrinksOrStripIsWide() throws Exception {
+        ScrollDamage damage = new ScrollDamage();
+        damage.plan(origin(100, 0), 100, WAVE_LENGTH, LABEL_WIDTH, WIDTH, 0);
+        damage.plan(origin(50, 0), 50, WAVE_LENGTH, LABEL_WIDTH, WIDTH, 0);
+        assertTrue(damage.isFull());
+        damage.plan(origin(50 + WIDTH / WAVE_LENGTH, 0), 50 + WIDTH / WAVE_LENGTH, WAVE_LENGTH, LABEL_WIDTH, WIDTH, 0);
+        assertTrue(damage.isFull());
+        damage.plan(origin(400, 0), 400, WAVE_LENGTH, LABEL_WIDTH, WIDTH + 1, 0);
+        assertTrue(damage.isFull());
+    }
+
+    @Test
+    public void ringColumnWraps() throws Exception {
+        assertEquals(0, ScrollDamage.ringX(0, 100));
+        assertEquals(99, ScrollDamage.ringX(199, 100));
+        assertEquals(99, ScrollDamage.ringX(-1, 100));
+        assertEquals(0, ScrollDamage.ringX(-200, 100));
+    }
+
+    /**
+     * Replays frames of irregular sample arrival and checks each visible ring column holds the content of its
+     * content x with all samples that affect it
+     */
+    @Test
+    public void visibleColumnsStayCurrent() throws Exception {
+        ScrollDamage damage = new ScrollDamage();
+        long[] stamp = new long[0];
+        int[] drawnCount = new int[0];
+        int sampleCount = 2;
+        int redrawCount = 0;
+        int fullFrames = 0;
+        for (int frame = 0; frame < 20000; frame++) {
+            //0 to 3 samples per frame, waves scroll 1 px per frame until they reach the newest sample
+            int arrived = (frame * 7919) % 11 < 5 ? 1 : (frame * 7919) % 11 < 7 ? 0 : (frame * 7919) % 11 - 6;
+            if (arrived > 0) {
+                sampleCount += arrived;
+                redrawCount = 0;
+            } else if (redrawCount < WAVE_LENGTH) {
+                redrawCount++;
+            }
+            long origin = origin(sampleCount, redrawCount);
+            damage.plan(origin, sampleCount, WAVE_LENGTH, LABEL_WIDTH, WIDTH, frame / 5000);
+            int ringWidth = damage.getRingWidth();
+            if (damage.isFull()) {
+                fullFrames++;
+                stamp = new long[ringWidth];
+                drawnCount = new int[ringWidth];
+                for (long c = origin; c < origin + ringWidth; c++) {
+                    stamp[ScrollDamage.ringX(c, ringWidth)] = c;
+                    drawnCount[ScrollDamage.ringX(c, ringWidth)] = BLANK;
+                }
+            }
+            for (long c = damage.getClearFrom(); c < damage.getClearTo(); c++) {
+                stamp[ScrollDamage.ringX(c, ringWidth)] = c;
+                drawnCount[ScrollDamage.ringX(c, ringWidth)] = BLANK;
+            }
+            for (long c = damage.getStripFrom(); c < damage.getStripTo(); c++) {
+                stamp[ScrollDamage.ringX(c, ringWidth)] = c;
+                drawnCount[ScrollDamage.ringX(c, ringWidth)] = sampleCount;
+            }
+            for (long c = origin; c < origin + WIDTH; c++) {
+                int column = ScrollDamage.ringX(c, ringWidth);
+                assertEquals("content x in frame " + frame, c, stamp[column]);
+                assertEquals("samples at content x " + c + " in frame " + frame,
+                        samplesReaching(c, sampleCount), samplesReaching(c, drawnCount[column]));
+            }
+        }
+        //First frame and one per configuration change
+        assertEquals(4, fullFrames);
+    }
+
+    /**
+     * No of samples, up to the newest drawn one, whose wave or label reaches content x
+     */
+    private static long samplesReaching(long c, int sampleCount) {
+        int reach = Math.max(WAVE_LENGTH, LABEL_WIDTH) + ScrollDamage.MARGIN;
+        long first = Math.max(0, (c - reach) / WAVE_LENGTH);
+        long last = Math.min(sampleCount - 2, (c + ScrollDamage.MARGIN) / WAVE_LENGTH);
+        long count = 0;
+        for (long i = first; i <= last; i++) {
+            if (i * WAVE_LENGTH - ScrollDamage.MARGIN <= c && c < i * WAVE_LENGTH + reach) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long origin(int sampleCount, int redrawCount) {
+        return (long) (sampleCount - 2) * WAVE_LENGTH + redrawCount - START_X;
+    }
+}
@@ -0,0 +1,50 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SlidingWindowMax} against a scan of the window
+ */
+public class SlidingWindowMaxTest {
+
+    @Test
+    public void matchesWindowScan() throws Exception {
+        Random random = new Random(7);
+        int count = 20000;
+        long[] times = new long[count];
+        int[] amplitudes = new int[count];
+        SlidingWindowMax window = new SlidingWindowMax(1000);
+        long time = 0;
+        for (int i = 0; i < count; i++) {
+            //Irregular sample times, runs of rising and falling amplitudes grow and drain the deque
+            time += random.nextInt(40);
+            times[i] = time;
+            amplitudes[i] = (i / 500) % 2 == 0 ? i % 500 * 10 : random.nextInt(5000);
+            window.add(time, amplitudes[i]);
+            int expected = 0;
+            for (int k = i; k >= 0 && times[k] >= time - 1000; k--) {
+                expected = Math.max(expected, amplitudes[k]);
+            }
+            assertEquals("max at " + i, expected, window.max());
+        }
+    }
+
+    @Test
+    public void setWindowForgetsSamples() throws Exception {
+        SlidingWindowMax window = new SlidingWindowMax(100);
+        assertEquals(0, window.max());
+        window.add(0, 900);
+        window.add(50, 100);
+        assertEquals(900, window.max());
+        window.add(101, 200);
+        assertEquals(200, window.max());
+        window.setWindow(1000);
+        assertEquals(0, window.max());
+        window.add(200, 50);
+        assertEquals(50, window.max());
+    }
+}
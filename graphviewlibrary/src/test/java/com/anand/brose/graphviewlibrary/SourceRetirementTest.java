@@ -0,0 +1,72 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SourceRetirement} waiting only for frames entered before a source was retired
+ */
+public class SourceRetirementTest {
+
+    private static Runnable counter(final AtomicInteger runs) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+    }
+
+    @Test
+    public void runsRightAwayWithoutFrames() throws Exception {
+        SourceRetirement retirement = new SourceRetirement();
+        AtomicInteger runs = new AtomicInteger();
+        long token = retirement.enter();
+        retirement.exit(token);
+        retirement.retire(counter(runs));
+        assertEquals(1, runs.get());
+        assertEquals(0, retirement.getPendingCount());
+    }
+
+    @Test
+    public void waitsForFramesEnteredBefore() throws Exception {
+        SourceRetirement retirement = new SourceRetirement();
+        AtomicInteger runs = new AtomicInteger();
+        //Realtime and full graph frames in progress when the graph switches source
+        long realtime = retirement.enter();
+        long fullGraph = retirement.enter();
+        retirement.retire(counter(runs));
+        assertEquals(0, runs.get());
+
+        //A frame entered later reads the new source and does not hold the old one
+        long later = retirement.enter();
+        retirement.exit(realtime);
+        assertEquals(0, runs.get());
+        retirement.exit(fullGraph);
+        assertEquals(1, runs.get());
+        retirement.exit(later);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void retiredInOrder() throws Exception {
+        SourceRetirement retirement = new SourceRetirement();
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger second = new AtomicInteger();
+        long old = retirement.enter();
+        retirement.retire(counter(first));
+        long middle = retirement.enter();
+        retirement.retire(counter(second));
+        assertEquals(2, retirement.getPendingCount());
+
+        retirement.exit(old);
+        assertEquals(1, first.get());
+        assertEquals(0, second.get());
+        retirement.exit(middle);
+        assertEquals(1, second.get());
+        assertEquals(0, retirement.getPendingCount());
+    }
+}
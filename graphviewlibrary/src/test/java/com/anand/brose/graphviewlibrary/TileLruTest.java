@@ -0,0 +1,180 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TileLru} eviction order and pinned frame tiles, and {@link TilePool} reuse of evicted tiles
+ */
+public class TileLruTest {
+
+    private static class RecordingLru extends TileLru<int[]> {
+        final List<Integer> removed = new ArrayList<>();
+
+        RecordingLru(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        protected void entryRemoved(int tile, int[] value) {
+            removed.add(tile);
+            //Storage handed back for reuse, like the bitmap pool does
+            value[0] = -1;
+        }
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        RecordingLru lru = new RecordingLru(3);
+        lru.put(0, new int[]{0});
+        lru.put(1, new int[]{1});
+        lru.put(2, new int[]{2});
+        assertNotNull(lru.get(0));
+        lru.put(3, new int[]{3});
+        assertEquals(3, lru.size());
+        assertNull(lru.get(1));
+        assertEquals(1, (int) lru.removed.get(0));
+
+        lru.setCapacity(1);
+        assertEquals(1, lru.size());
+        assertNotNull(lru.get(3));
+        lru.clear();
+        assertEquals(0, lru.size());
+        assertEquals(4, lru.removed.size());
+    }
+
+    @Test
+    public void visibleTilesAboveCapacityAreKeptUntilDrawn() throws Exception {
+        //8 tiles fit the budget, a wide view shows 11
+        RecordingLru lru = new RecordingLru(8);
+        int firstTile = 5;
+        int lastTile = 15;
+        int[][] visible = new int[lastTile - firstTile + 1][];
+        lru.pin(firstTile, lastTile);
+        for (int tile = firstTile; tile <= lastTile; tile++) {
+            int[] value = lru.get(tile);
+            if (value == null) {
+                value = new int[]{tile};
+                lru.put(tile, value);
+            }
+            visible[tile - firstTile] = value;
+        }
+        //No tile of the frame was removed and reused while the frame was built
+        assertTrue(lru.removed.isEmpty());
+        assertEquals(11, lru.size());
+        for (int tile = firstTile; tile <= lastTile; tile++) {
+            assertEquals(tile, visible[tile - firstTile][0]);
+            assertSame(visible[tile - firstTile], lru.get(tile));
+        }
+
+        //Unpinned after drawing, trimmed back to the least recently used
+        lru.unpin();
+        assertEquals(8, lru.size());
+        assertEquals(3, lru.removed.size());
+        assertFalse(lru.isPinned(firstTile));
+
+        //The next frame at the same offset hits every tile still cached
+        lru.pin(8, 15);
+        for (int tile = 8; tile <= 15; tile++) {
+            assertNotNull(lru.get(tile));
+        }
+        lru.unpin();
+    }
+
+    @Test
+    public void unpinnedTilesMakeRoomForPinnedOnes() throws Exception {
+        RecordingLru lru = new RecordingLru(2);
+        lru.put(0, new int[]{0});
+        lru.put(1, new int[]{1});
+        lru.pin(1, 3);
+        lru.put(2, new int[]{2});
+        lru.put(3, new int[]{3});
+        //Only the unpinned tile was evicted, pinned ones exceed the capacity
+        assertEquals(1, lru.removed.size());
+        assertEquals(0, (int) lru.removed.get(0));
+        assertEquals(3, lru.size());
+        lru.unpin();
+        assertEquals(2, lru.size());
+        assertNull(lru.get(1));
+    }
+
+    /**
+     * Tiles as {tile, height}, evicted ones go to the pool like {@link FullGraphTileCache} does with bitmaps
+     */
+    private static class HeightPool extends TilePool<int[]> {
+        final List<int[]> recycled = new ArrayList<>();
+        int created = 0;
+
+        HeightPool() {
+            super(4);
+        }
+
+        @Override
+        protected int[] create(int height) {
+            created++;
+            return new int[]{-1, height};
+        }
+
+        @Override
+        protected int heightOf(int[] value) {
+            return value[1];
+        }
+
+        @Override
+        protected void recycle(int[] value) {
+            recycled.add(value);
+        }
+    }
+
+    private static int[] frameTile(TileLru<int[]> lru, HeightPool pool, int tile) {
+        int[] value = lru.get(tile);
+        if (value == null) {
+            value = pool.obtain();
+            value[0] = tile;
+            lru.put(tile, value);
+        }
+        return value;
+    }
+
+    @Test
+    public void heightChangeBetweenFramesDropsPooledTiles() throws Exception {
+        final HeightPool pool = new HeightPool();
+        TileLru<int[]> lru = new TileLru<int[]>(2) {
+            @Override
+            protected void entryRemoved(int tile, int[] value) {
+                pool.release(value);
+            }
+        };
+        pool.setTileHeight(100);
+        for (int tile = 0; tile < 4; tile++) {
+            frameTile(lru, pool, tile);
+        }
+        //Two tiles evicted, one reused by the last tile
+        assertEquals(1, pool.size());
+        assertEquals(3, pool.created);
+
+        //Rotated, the cache is cleared for the new height
+        pool.setTileHeight(60);
+        lru.clear();
+        assertEquals(0, pool.size());
+        assertEquals(3, pool.recycled.size());
+        lru.pin(0, 2);
+        for (int tile = 0; tile <= 2; tile++) {
+            assertEquals(60, frameTile(lru, pool, tile)[1]);
+        }
+        lru.unpin();
+        assertEquals(6, pool.created);
+        //Trimmed back to the capacity, the evicted tile of the new height is pooled
+        assertEquals(1, pool.size());
+
+        //A tile of the old height handed back late is recycled, not handed out
+        pool.release(new int[]{9, 100});
+        assertEquals(1, pool.size());
+        assertEquals(4, pool.recycled.size());
+        assertEquals(60, pool.obtain()[1]);
+    }
+}
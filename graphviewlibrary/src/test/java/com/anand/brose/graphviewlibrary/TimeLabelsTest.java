@@ -0,0 +1,32 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TimeLabels} formatting and caching
+ */
+public class TimeLabelsTest {
+
+    @Test
+    public void formatsAndCachesLabels() {
+        TimeLabels labels = new TimeLabels();
+        assertEquals("00:00", labels.format(999));
+        assertEquals("01:05", labels.format(65000));
+        assertSame(labels.format(65000), labels.format(65999));
+        //Past the initial table of 10 minutes
+        assertEquals("120:00", labels.format(120 * 60 * 1000L));
+    }
+
+    @Test
+    public void negativeTimesAreSigned() {
+        TimeLabels labels = new TimeLabels();
+        assertEquals("00:00", labels.format(-999));
+        assertEquals("-00:01", labels.format(-1000));
+        assertEquals("-01:05", labels.format(-65500));
+        assertSame(labels.format(-65000), labels.format(-65999));
+        //Past the initial table of negative labels
+        assertEquals("-10:00", labels.format(-600000));
+    }
+}
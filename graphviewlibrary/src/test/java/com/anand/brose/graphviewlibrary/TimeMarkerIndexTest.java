@@ -0,0 +1,144 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TimeMarkerIndex} incremental building and lookup
+ */
+public class TimeMarkerIndexTest {
+
+    private static SampleStore jitteredSamples(int count, long seed) {
+        Random random = new Random(seed);
+        SampleStore samples = new SampleStore();
+        long time = 0;
+        for (int i = 0; i < count; i++) {
+            time += 100 + random.nextInt(100);
+            samples.add(time, 0);
+        }
+        return samples;
+    }
+
+    /**
+     * Marker indices found by testing every sample the way the render loops did before the index
+     */
+    private static int countScanned(SampleSource samples, int sampleCount, int timeScale) {
+        int markers = 1;
+        for (int i = 1; i < sampleCount; i++) {
+            if (samples.getTime(i - 1) % timeScale > samples.getTime(i) % timeScale) {
+                markers++;
+            }
+        }
+        return markers;
+    }
+
+    @Test
+    public void incrementalMatchesFullScan() {
+        SampleStore samples = jitteredSamples(20000, 1);
+        TimeMarkerIndex incremental = new TimeMarkerIndex(new TimeLabels());
+        for (int size = 0; size <= samples.size(); size += 37) {
+            incremental.update(samples, size, 5000);
+        }
+        incremental.update(samples, samples.size(), 5000);
+        TimeMarkerIndex full = new TimeMarkerIndex(new TimeLabels());
+        full.update(samples, samples.size(), 5000);
+
+        assertEquals(countScanned(samples, samples.size(), 5000), full.size());
+        assertEquals(full.size(), incremental.size());
+        for (int m = 0; m < full.size(); m++) {
+            assertEquals(full.getSampleIndex(m), incremental.getSampleIndex(m));
+            assertEquals(full.getTime(m), incremental.getTime(m));
+            assertEquals(full.getLabel(m), incremental.getLabel(m));
+        }
+        for (int m = 1; m < full.size(); m++) {
+            int index = full.getSampleIndex(m);
+            //First sample past its boundary
+            assertTrue(samples.getTime(index - 1) < full.getTime(m));
+            assertTrue(samples.getTime(index) >= full.getTime(m));
+            assertEquals(0, full.getTime(m) % 5000);
+        }
+        assertEquals(0, full.getSampleIndex(0));
+        assertEquals("00:00", full.getLabel(0));
+        assertEquals("00:05", full.getLabel(1));
+    }
+
+    @Test
+    public void rebuiltOnTimeScaleSourceOrClear() {
+        SampleStore samples = jitteredSamples(1000, 2);
+        TimeMarkerIndex index = new TimeMarkerIndex(new TimeLabels());
+        index.update(samples, samples.size(), 5000);
+        int fiveSecondMarkers = index.size();
+        index.update(samples, samples.size(), 1000);
+        assertEquals(countScanned(samples, samples.size(), 1000), index.size());
+        assertTrue(index.size() > fiveSecondMarkers);
+
+        SampleStore other = jitteredSamples(2000, 3);
+        index.update(other, other.size(), 1000);
+        assertEquals(countScanned(other, other.size(), 1000), index.size());
+
+        other.clear();
+        other.add(0, 0);
+        other.add(1500, 0);
+        index.update(other, other.size(), 1000);
+        assertEquals(2, index.size());
+        assertEquals("00:01", index.getLabel(1));
+
+        //Cleared and refilled past the old size before the next frame
+        other.clear();
+        for (int i = 0; i < 5; i++) {
+            other.add(i * 700L, 0);
+        }
+        index.update(other, other.size(), 1000);
+        assertEquals(countScanned(other, other.size(), 1000), index.size());
+        //Boundaries of the new times, not the marker of the old sample 1 at 1500
+        assertEquals(3, index.size());
+        assertEquals(2, index.getSampleIndex(1));
+        assertEquals(3, index.getSampleIndex(2));
+        assertEquals("00:02", index.getLabel(2));
+    }
+
+    @Test
+    public void binarySearch() {
+        SampleStore samples = new SampleStore();
+        for (int i = 0; i < 100; i++) {
+            samples.add(i * 1000L, 0);
+        }
+        TimeMarkerIndex index = new TimeMarkerIndex(new TimeLabels());
+        index.update(samples, samples.size(), 10000);
+        //Samples 0, 10, 20 ... 90
+        assertEquals(10, index.size());
+        assertEquals(0, index.firstAtOrAfter(0));
+        assertEquals(1, index.firstAtOrAfter(1));
+        assertEquals(1, index.firstAtOrAfter(10));
+        assertEquals(5, index.firstAtOrAfter(45));
+        assertEquals(9, index.firstAtOrAfter(90));
+        assertEquals(10, index.firstAtOrAfter(91));
+        assertEquals(90, index.getSampleIndex(9));
+        assertEquals("01:30", index.getLabel(9));
+    }
+
+    @Test
+    public void realtimeMarkersAtScannedPositions() {
+        SampleStore samples = jitteredSamples(5000, 4);
+        RealtimeFrameBuilder builder = new RealtimeFrameBuilder(new TimeLabels());
+        int startX = 810;
+        int waveLength = 4;
+        WaveLines lines = new WaveLines();
+        for (int sampleCount = 2; sampleCount < samples.size(); sampleCount += 13) {
+            lines.rewind(300, waveLength);
+            builder.build(samples, sampleCount, startX, waveLength, 1, 5000, 300, 35000, lines);
+            int marker = 0;
+            int x = startX;
+            for (int i = sampleCount - 2; i >= 0 && x >= -waveLength; i--, x -= waveLength) {
+                if (i == 0 || samples.getTime(i - 1) % 5000 > samples.getTime(i) % 5000) {
+                    assertEquals(x - 1, builder.timeMarkers.getPosition(marker));
+                    marker++;
+                }
+            }
+            assertEquals(marker, builder.timeMarkers.size());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TransformedSampleSource} incremental transform, caching and reset
+ */
+public class TransformedSampleSourceTest {
+
+    /**
+     * Doubles amplitudes and counts how often it ran
+     */
+    private static final class CountingTransform implements SampleTransform {
+        int applied = 0;
+        int resets = 0;
+
+        @Override
+        public int apply(long time, int amplitude) {
+            applied++;
+            return amplitude * 2;
+        }
+
+        @Override
+        public void reset() {
+            resets++;
+        }
+    }
+
+    @Test
+    public void chainRunsOncePerAppendedSample() throws Exception {
+        SampleStore store = new SampleStore();
+        CountingTransform counting = new CountingTransform();
+        TransformedSampleSource transformed = new TransformedSampleSource(store, counting,
+                SampleTransforms.noiseGate(100));
+        final AtomicInteger notified = new AtomicInteger();
+        transformed.addSampleListener(new SampleListener() {
+            @Override
+            public void onSamplesChanged(SampleSource source) {
+                notified.incrementAndGet();
+            }
+        });
+        for (int i = 0; i < 1000; i++) {
+            store.add(i * 150L, i);
+            //Transformed on the producer thread as it is appended
+            assertEquals(i + 1, counting.applied);
+        }
+        assertEquals(1000, notified.get());
+        assertEquals(1000, transformed.size());
+        //Frames read cached amplitudes
+        for (int pass = 0; pass < 3; pass++) {
+            for (int i = 0; i < transformed.size(); i++) {
+                assertEquals(i * 150L, transformed.getTime(i));
+                assertEquals(i * 2 < 100 ? 0 : i * 2, transformed.getAmplitude(i));
+            }
+        }
+        assertEquals(1000, counting.applied);
+    }
+
+    @Test
+    public void plainSourceCatchesUpOnSize() throws Exception {
+        final SampleStore store = new SampleStore();
+        for (int i = 0; i < 10; i++) {
+            store.add(i, 10);
+        }
+        SampleSource plain = new SampleSource() {
+            @Override
+            public int size() {
+                return store.size();
+            }
+
+            @Override
+            public long getTime(int index) {
+                return store.getTime(index);
+            }
+
+            @Override
+            public int getAmplitude(int index) {
+                return store.getAmplitude(index);
+            }
+        };
+        CountingTransform counting = new CountingTransform();
+        TransformedSampleSource transformed = new TransformedSampleSource(plain, counting);
+        assertEquals(10, counting.applied);
+        store.add(10, 30);
+        assertEquals(10, counting.applied);
+        assertEquals(11, transformed.size());
+        assertEquals(60, transformed.getAmplitude(10));
+        assertEquals(11, counting.applied);
+    }
+
+    @Test
+    public void clearedSourceResetsChain() throws Exception {
+        SampleStore store = new SampleStore();
+        CountingTransform counting = new CountingTransform();
+        TransformedSampleSource transformed = new TransformedSampleSource(store, SampleTransforms.ema(0.5f), counting);
+        store.add(0, 1000);
+        store.add(1, 0);
+        assertEquals(1000, transformed.getAmplitude(1));
+        store.clear();
+        assertEquals(0, transformed.size());
+        assertEquals(1, counting.resets);
+        //Smoothing starts again from the first sample
+        store.add(0, 40);
+        assertEquals(80, transformed.getAmplitude(0));
+
+        //Released source is only caught up on size
+        transformed.release();
+        store.add(1, 40);
+        assertEquals(3, counting.applied);
+        assertEquals(2, transformed.size());
+        assertEquals(4, counting.applied);
+    }
+
+    @Test
+    public void refilledSourceResetsChain() throws Exception {
+        SampleStore store = new SampleStore();
+        CountingTransform counting = new CountingTransform();
+        TransformedSampleSource transformed = new TransformedSampleSource(store, SampleTransforms.ema(0.5f), counting);
+        //Only caught up on size, so a clear and refill between two updates is not seen as it happens
+        transformed.release();
+        for (int i = 0; i < 4; i++) {
+            store.add(i * 20L, 1000);
+        }
+        assertEquals(4, transformed.size());
+        store.clear();
+        for (int i = 0; i < 6; i++) {
+            store.add(i * 10L, 40);
+        }
+        assertEquals(6, transformed.size());
+        assertEquals(1, counting.resets);
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i * 10L, transformed.getTime(i));
+            //No smoothing carried over from the old samples
+            assertEquals(80, transformed.getAmplitude(i));
+        }
+    }
+}
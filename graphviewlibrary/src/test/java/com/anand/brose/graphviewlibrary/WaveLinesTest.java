@@ -0,0 +1,86 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link WaveLines} polyline geometry
+ */
+public class WaveLinesTest {
+
+    private static final int HALF_HEIGHT = 300;
+
+    @Test
+    public void waveIsConnectedHalfSine() {
+        WaveLines lines = new WaveLines();
+        lines.rewind(HALF_HEIGHT, 8);
+        lines.addWave(100, 50);
+        float[] points = lines.getPoints();
+        assertEquals(8 * 4, lines.size());
+        //Starts and ends on the center line at the wave borders
+        assertEquals(100f, points[0], 0);
+        assertEquals(HALF_HEIGHT, points[1], 0);
+        assertEquals(108f, points[lines.size() - 2], 0.0001f);
+        assertEquals(HALF_HEIGHT, points[lines.size() - 1], 0);
+        //Segments are joined end to start
+        for (int i = 4; i < lines.size(); i += 4) {
+            assertEquals(points[i - 2], points[i], 0);
+            assertEquals(points[i - 1], points[i + 1], 0);
+        }
+        //Crest a quarter in, trough three quarters in
+        assertEquals(HALF_HEIGHT - 50, points[2 * 4 + 1], 0.001f);
+        assertEquals(HALF_HEIGHT + 50, points[6 * 4 + 1], 0.001f);
+        assertEquals(HALF_HEIGHT, points[4 * 4 + 1], 0);
+    }
+
+    @Test
+    public void flatWaveAndPeakAreSingleSegments() {
+        WaveLines lines = new WaveLines();
+        lines.rewind(HALF_HEIGHT, 3);
+        lines.addWave(0, 0);
+        lines.addPeak(10, 20);
+        assertEquals(8, lines.size());
+        float[] points = lines.getPoints();
+        assertArrayEquals(new float[]{0, HALF_HEIGHT, 3, HALF_HEIGHT, 10, HALF_HEIGHT - 20, 10, HALF_HEIGHT + 21},
+                Arrays.copyOf(points, 8), 0);
+        //Short waves still get enough segments to look like a wave
+        lines.addWave(20, 5);
+        assertEquals(8 + 4 * 4, lines.size());
+    }
+
+    @Test
+    public void noAllocationPerFrameAfterWarmUp() throws Exception {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return;//Allocation counters not available on this JVM
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        long threadId = Thread.currentThread().getId();
+
+        WaveLines lines = new WaveLines();
+        //Warm up, segment array reaches its final size and the loop gets compiled
+        for (int frame = 0; frame < 20000; frame++) {
+            frame(lines, frame);
+        }
+        long overhead = threadBean.getThreadAllocatedBytes(threadId);
+        overhead = threadBean.getThreadAllocatedBytes(threadId) - overhead;
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int frame = 0; frame < 20000; frame++) {
+            frame(lines, frame);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before - overhead;
+        assertEquals("bytes allocated by 20000 frames", 0, allocated);
+    }
+
+    private static void frame(WaveLines lines, int frame) {
+        lines.rewind(HALF_HEIGHT, 8);
+        for (int x = -8; x < 1080; x += 8) {
+            lines.addWave(x, (x + frame) % 200);
+        }
+    }
+}
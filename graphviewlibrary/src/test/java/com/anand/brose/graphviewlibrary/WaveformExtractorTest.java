@@ -0,0 +1,168 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Parallel extraction must give exactly the samples of a sequential {@link PcmIngest} pass
+ */
+public class WaveformExtractorTest {
+
+    private File file;
+    private WaveformExtractor extractor;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("extract", ".wav");
+        extractor = new WaveformExtractor(4);
+    }
+
+    @After
+    public void tearDown() {
+        extractor.close();
+        file.delete();
+    }
+
+    private void writeWav(int sampleRate, int channelCount, int frames, boolean close) throws IOException {
+        Random random = new Random(frames);
+        WavFileWriter writer = new WavFileWriter(file, sampleRate, channelCount);
+        short[] block = new short[1000 * channelCount];
+        int written = 0;
+        while (written < frames) {
+            int count = Math.min(1000, frames - written);
+            for (int i = 0; i < count * channelCount; i++) {
+                //Quiet noise with occasional clicks
+                block[i] = (short) (random.nextInt(2000) - 1000);
+                if (random.nextInt(5000) == 0) {
+                    block[i] = (short) (random.nextBoolean() ? 32767 : -32768);
+                }
+            }
+            writer.write(block, 0, count * channelCount);
+            written += count;
+        }
+        if (close) {
+            writer.close();
+        }
+    }
+
+    private SampleStore sequential(int samplesPerSecond, int reduction) throws IOException {
+        SampleStore samples = new SampleStore();
+        WavFileSource source = new WavFileSource(file);
+        try {
+            PcmIngest ingest = new PcmIngest(source, samples, samplesPerSecond);
+            ingest.setReduction(reduction);
+            ingest.ingest();
+        } finally {
+            source.close();
+        }
+        return samples;
+    }
+
+    private static void assertSameSamples(SampleStore expected, SampleStore actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("time " + i, expected.getTime(i), actual.getTime(i));
+            assertEquals("amplitude " + i, expected.getAmplitude(i), actual.getAmplitude(i));
+        }
+    }
+
+    @Test
+    public void matchesSequentialPass() throws Exception {
+        writeWav(44100, 1, 44100 * 7 + 123, true);
+        extractor.setChunkFrames(10000);
+        for (int rate : new int[]{50, 60, 200}) {
+            SampleStore samples = new SampleStore();
+            assertTrue(extractor.extract(file, samples, rate));
+            assertSameSamples(sequential(rate, PcmIngest.REDUCE_PEAK), samples);
+        }
+    }
+
+    @Test
+    public void rmsStereoMatchesSequentialPass() throws Exception {
+        writeWav(22050, 2, 22050 * 3 + 7, true);
+        extractor.setChunkFrames(4096);
+        extractor.setReduction(PcmIngest.REDUCE_RMS);
+        SampleStore samples = new SampleStore();
+        assertTrue(extractor.extract(file, samples, 100));
+        assertSameSamples(sequential(100, PcmIngest.REDUCE_RMS), samples);
+    }
+
+    @Test
+    public void unclosedFileUsesLengthOnDisk() throws Exception {
+        writeWav(8000, 1, 8000 * 2, false);
+        SampleStore samples = new SampleStore();
+        assertTrue(extractor.extract(file, samples, 50));
+        assertEquals(100, samples.size());
+        assertEquals(2000, samples.getTime(99));
+    }
+
+    @Test
+    public void progressReachesTotal() throws Exception {
+        writeWav(8000, 1, 8000 * 10, true);
+        extractor.setChunkFrames(8000);
+        final long[] last = {0, 0};
+        extractor.setExtractionListener(new ExtractionListener() {
+            @Override
+            public void onProgress(long processedFrames, long totalFrames) {
+                assertTrue(processedFrames > last[0]);
+                last[0] = processedFrames;
+                last[1]++;
+                assertEquals(80000, totalFrames);
+            }
+        });
+        assertTrue(extractor.extract(file, new SampleStore(), 50));
+        assertEquals(80000, last[0]);
+        assertEquals(10, last[1]);
+    }
+
+    @Test
+    public void cancelKeepsMergedPrefix() throws Exception {
+        writeWav(8000, 1, 8000 * 20, true);
+        extractor.setChunkFrames(8000);
+        extractor.setExtractionListener(new ExtractionListener() {
+            @Override
+            public void onProgress(long processedFrames, long totalFrames) {
+                if (processedFrames >= 3 * 8000) {
+                    extractor.cancel();
+                }
+            }
+        });
+        SampleStore samples = new SampleStore();
+        assertFalse(extractor.extract(file, samples, 50));
+        assertEquals(150, samples.size());
+        SampleStore expected = sequential(50, PcmIngest.REDUCE_PEAK);
+        for (int i = 0; i < samples.size(); i++) {
+            assertEquals(expected.getAmplitude(i), samples.getAmplitude(i));
+        }
+
+        //Next extraction runs again
+        extractor.setExtractionListener(null);
+        samples = new SampleStore();
+        assertTrue(extractor.extract(file, samples, 50));
+        assertSameSamples(expected, samples);
+    }
+
+    @Test
+    public void truncatedFileFails() throws Exception {
+        writeWav(8000, 1, 8000, true);
+        RandomAccessFile truncate = new RandomAccessFile(file, "rw");
+        try {
+            truncate.setLength(WavFileWriter.HEADER_BYTES - 4);
+        } finally {
+            truncate.close();
+        }
+        try {
+            extractor.extract(file, new SampleStore(), 50);
+            fail("Truncated file accepted");
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trip, recovery and size tests for {@link WaveformWriter} and {@link WaveformReader}
+ */
+public class WaveformFileTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("graph", WaveformFile.FILE_EXTENSION);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static SampleStore randomSamples(int count, long seed) {
+        Random random = new Random(seed);
+        SampleStore samples = new SampleStore();
+        long time = 0;
+        for (int i = 0; i < count; i++) {
+            time += 100 + random.nextInt(100);
+            samples.add(time, random.nextInt(65536) - 32768);
+        }
+        return samples;
+    }
+
+    @Test
+    public void exactRoundTrip() throws IOException {
+        SampleStore samples = randomSamples(10000, 1);
+        samples.add(Long.MAX_VALUE / 2, Integer.MAX_VALUE);
+        samples.add(-5, Integer.MIN_VALUE);
+        WaveformFile.write(samples, file, 1);
+
+        SampleStore restored = WaveformFile.read(file, new SampleStore());
+        assertEquals(samples.size(), restored.size());
+        for (int i = 0; i < samples.size(); i++) {
+            assertEquals(samples.getTime(i), restored.getTime(i));
+            assertEquals(samples.getAmplitude(i), restored.getAmplitude(i));
+        }
+    }
+
+    @Test
+    public void quantizedRoundTrip() throws IOException {
+        SampleStore samples = randomSamples(5000, 2);
+        WaveformFile.write(samples, file, 16);
+
+        WaveformReader reader = new WaveformReader(new FileInputStream(file));
+        assertEquals(WaveformFile.VERSION, reader.getVersion());
+        assertEquals(16, reader.getQuantizationStep());
+        assertEquals(5000, reader.getSampleCount());
+        int i = 0;
+        while (reader.next()) {
+            assertEquals(samples.getTime(i), reader.getTime());
+            assertEquals(0, reader.getAmplitude() % 16);
+            assertTrue(Math.abs(samples.getAmplitude(i) - reader.getAmplitude()) <= 8);
+            i++;
+        }
+        reader.close();
+        assertEquals(5000, i);
+        //Quantized amplitudes fit in fewer bytes than exact ones
+        assertTrue(file.length() < 5000 * 5);
+    }
+
+    @Test
+    public void summaryHoldsBucketPeaks() throws IOException {
+        SampleStore samples = new SampleStore();
+        for (int i = 0; i < 1000; i++) {
+            samples.add(i * 150L, i % 100 == 37 ? -900 - i : i % 50);
+        }
+        WaveformWriter writer = new WaveformWriter(file, 1, 100);
+        for (int i = 0; i < samples.size(); i++) {
+            writer.write(samples.getTime(i), samples.getAmplitude(i));
+        }
+        writer.close();
+
+        SampleStore summary = WaveformFile.readSummary(file, new SampleStore());
+        assertEquals(10, summary.size());
+        for (int bucket = 0; bucket < 10; bucket++) {
+            assertEquals(bucket * 100 * 150L, summary.getTime(bucket));
+            assertEquals(-900 - (bucket * 100 + 37), summary.getAmplitude(bucket));
+        }
+    }
+
+    @Test
+    public void unfinishedFileReadsFlushedSamples() throws IOException {
+        WaveformWriter writer = new WaveformWriter(file);
+        for (int i = 0; i < 3000; i++) {
+            writer.write(i, i);
+        }
+        writer.flush();
+        //Cut the last sample in half, like a write interrupted by process death
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.setLength(randomAccessFile.length() - 1);
+        randomAccessFile.close();
+
+        WaveformReader reader = new WaveformReader(new FileInputStream(file));
+        assertEquals(-1, reader.getSampleCount());
+        assertFalse(reader.hasSummary());
+        int count = 0;
+        while (reader.next()) {
+            assertEquals(count, reader.getTime());
+            count++;
+        }
+        reader.close();
+        assertEquals(2999, count);
+        assertEquals(0, WaveformFile.readSummary(file, new SampleStore()).size());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFile() throws IOException {
+        new WaveformReader(new ByteArrayInputStream(new byte[64]));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsNewerVersion() throws IOException {
+        new WaveformWriter(file).close();
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.seek(4);
+        randomAccessFile.write(WaveformFile.VERSION + 1);
+        randomAccessFile.close();
+        new WaveformReader(new FileInputStream(file));
+    }
+
+    @Test
+    public void compactEncoding() throws IOException {
+        //Write and read rates are measured by WaveformFileBenchmark
+        int count = 200000;
+        SampleStore samples = randomSamples(count, 3);
+        WaveformFile.write(samples, file, 1);
+        assertEquals(count, WaveformFile.read(file, new SampleStore()).size());
+        //Varint coded time deltas, well below the 12 bytes of a raw time and amplitude
+        assertTrue((double) file.length() / count < 6);
+    }
+}
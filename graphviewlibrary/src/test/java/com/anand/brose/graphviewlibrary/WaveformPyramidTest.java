@@ -0,0 +1,102 @@
+package com.anand.brose.graphviewlibrary;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link WaveformPyramid} range reduction against a linear scan
+ */
+public class WaveformPyramidTest {
+
+    @Test
+    public void reduceMatchesLinearScan() throws Exception {
+        Random random = new Random(42);
+        SampleStore store = new SampleStore();
+        WaveformPyramid pyramid = new WaveformPyramid();
+        WaveformPyramid.Bucket bucket = new WaveformPyramid.Bucket();
+        //Grow in uneven steps to cover incremental update with partial buckets
+        for (int step = 0; step < 40; step++) {
+            int add = 1 + random.nextInt(3000);
+            for (int i = 0; i < add; i++) {
+                store.add(store.size() * 20L, random.nextInt(35000));
+            }
+            pyramid.update(store, store.size());
+            assertEquals(store.size(), pyramid.size());
+            for (int query = 0; query < 50; query++) {
+                int from = random.nextInt(store.size());
+                int to = from + 1 + random.nextInt(store.size() - from);
+                pyramid.reduce(store, from, to, bucket);
+                assertRange(store, from, to, bucket);
+            }
+        }
+        pyramid.reduce(store, 0, store.size(), bucket);
+        assertRange(store, 0, store.size(), bucket);
+    }
+
+    @Test
+    public void clearedSourceIsRebuilt() throws Exception {
+        SampleStore store = new SampleStore();
+        WaveformPyramid pyramid = new WaveformPyramid();
+        WaveformPyramid.Bucket bucket = new WaveformPyramid.Bucket();
+        for (int i = 0; i < 1000; i++) {
+            store.add(i, 30000);
+        }
+        pyramid.update(store, store.size());
+        store.clear();
+        for (int i = 0; i < 100; i++) {
+            store.add(i, 10);
+        }
+        pyramid.update(store, store.size());
+        pyramid.reduce(store, 0, 100, bucket);
+        assertEquals(10, bucket.max);
+        assertEquals(10, bucket.rms());
+    }
+
+    @Test
+    public void refilledOrReplacedSourceIsRebuilt() throws Exception {
+        SampleStore store = new SampleStore();
+        WaveformPyramid pyramid = new WaveformPyramid();
+        WaveformPyramid.Bucket bucket = new WaveformPyramid.Bucket();
+        for (int i = 0; i < 1000; i++) {
+            store.add(i * 20L, 30000);
+        }
+        pyramid.update(store, store.size());
+        //Cleared and refilled past the old size between two updates, e.g. reading a waveform file into it
+        store.clear();
+        for (int i = 0; i < 1500; i++) {
+            store.add(i * 10L, 10);
+        }
+        pyramid.update(store, store.size());
+        pyramid.reduce(store, 0, store.size(), bucket);
+        assertEquals(10, bucket.max);
+        assertEquals(1500, pyramid.size());
+
+        SampleStore other = new SampleStore();
+        for (int i = 0; i < 2000; i++) {
+            other.add(i * 10L, 20);
+        }
+        pyramid.update(other, other.size());
+        pyramid.reduce(other, 0, other.size(), bucket);
+        assertEquals(20, bucket.min);
+        assertEquals(20, bucket.max);
+    }
+
+    private static void assertRange(SampleStore store, int from, int to, WaveformPyramid.Bucket bucket) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        double sumSquares = 0;
+        for (int i = from; i < to; i++) {
+            min = Math.min(min, store.getAmplitude(i));
+            max = Math.max(max, store.getAmplitude(i));
+            sumSquares += (double) store.getAmplitude(i) * store.getAmplitude(i);
+        }
+        assertEquals(to - from, bucket.count);
+        assertEquals(min, bucket.min);
+        assertEquals(max, bucket.max);
+        double rms = Math.sqrt(sumSquares / (to - from));
+        assertEquals(rms, bucket.rms(), rms * 0.001 + 1);
+    }
+}